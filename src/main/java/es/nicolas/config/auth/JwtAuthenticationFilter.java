@@ -1,7 +1,9 @@
 package es.nicolas.config.auth;
 
 import es.nicolas.rest.auth.services.jwt.JwtService;
+import es.nicolas.rest.auth.services.jwt.VerifiedToken;
 import es.nicolas.rest.auth.services.users.AuthUsersService;
+import es.nicolas.rest.user.models.User;
 import jakarta.annotation.Nonnull;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -9,6 +11,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,6 +23,13 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Autentica las peticiones con un JWT en la cabecera Authorization.
+ * El token se decodifica y verifica (firma y caducidad) una sola vez con JwtService.verify,
+ * que recuerda los tokens ya verificados, y el usuario se carga una sola vez.
+ * En modo sin estado (jwt.stateless=true) el usuario autenticado se construye con el id y los roles del token
+ * y no se consulta la base de datos; los tokens emitidos sin ellos siguen cargando el usuario.
+ */
 @Slf4j
 @RequiredArgsConstructor
 @Component
@@ -27,6 +37,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final AuthUsersService authUsersService;
 
+    @Value("${jwt.stateless:false}")
+    private boolean stateless;
+
     @Override
     protected void doFilterInternal(@Nonnull HttpServletRequest request,
                                     @Nonnull HttpServletResponse response,
@@ -34,59 +47,66 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         log.debug("Iniciando el filtro de autenticacion");
         final String authHEader = request.getHeader("Authorization");
         final String jwt;
+        final VerifiedToken token;
         UserDetails userDetails = null;
-        String userName = null;
 
         // Si no tenemos cabereca o empieza por BEarer no hacemos nada
         if (!StringUtils.hasText(authHEader) || !StringUtils.startsWithIgnoreCase(authHEader, "Bearer ")) {
-            log.info("No se ha encontrado cabecera de autenticación, se ignora");
+            log.debug("No se ha encontrado cabecera de autenticación, se ignora");
             filterChain.doFilter(request, response);
             return;
         }
 
-        log.info("Se ha encontrado cabecera de autenticación, se procesa");
-        // La extraemos y comprobamos que sea válida
+        log.debug("Se ha encontrado cabecera de autenticación, se procesa");
+        // La extraemos y comprobamos que sea válida: firma y caducidad en un solo paso
         jwt = authHEader.substring(7);
-        // Lo primero es que el token es válido
         try {
-            userName = jwtService.extractUserName(jwt);
+            token = jwtService.verify(jwt);
         } catch (Exception e) {
             log.info("Token no válido");
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token no autorizado o no válido");
             return;
         }
 
-        log.info("Usuario autenticado: {}", userName);
-        if((StringUtils.hasText(userName)) && SecurityContextHolder.getContext().getAuthentication() == null){
-            // Comprobamos usuario + token
-            log.info("Comprobando usuario y token");
-            try {
-                userDetails = authUsersService.loadUserByUsername(userName);
-            } catch (Exception e){
-                log.info("Usuario no encontrado: {}",  userName);
-                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Usuario no autorizado");
-                return;
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            if (stateless && token.isStateless()) {
+                // Los borrados y cambios de roles ya han revocado el token (TokenRevocations)
+                userDetails = principal(token);
+            } else {
+                // El token ya está verificado, solo falta que el usuario exista
+                try {
+                    userDetails = authUsersService.loadUserByUsername(token.username());
+                } catch (Exception e) {
+                    log.info("Usuario no encontrado: {}", token.username());
+                    response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Usuario no autorizado");
+                    return;
+                }
             }
-            authUsersService.loadUserByUsername(userName);
-            log.info("Usuario autenticado: {}", userDetails);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                log.info("JWT token valido");
-                // Si es válido, lo autenticamos en el contexto de seguridad
-                SecurityContext context = SecurityContextHolder.createEmptyContext();
-                // Añadimos los detalles de la petición
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            log.debug("Usuario autenticado: {}", token.username());
+            // Lo autenticamos en el contexto de seguridad
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            // Añadimos los detalles de la petición
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    userDetails, null, userDetails.getAuthorities());
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                // Lo añadimos al contexto de seguridad
-                context.setAuthentication(authToken);
+            // Lo añadimos al contexto de seguridad
+            context.setAuthentication(authToken);
 
-                SecurityContextHolder.setContext(context);
-            }
+            SecurityContextHolder.setContext(context);
         }
 
         // Seguimos con la peticion
         filterChain.doFilter(request, response);
 
     }
+
+    // El mismo tipo que en el modo con estado, para que @AuthenticationPrincipal User funcione igual
+    private static User principal(VerifiedToken token) {
+        return User.builder()
+                .id(token.userId())
+                .username(token.username())
+                .roles(token.roles())
+                .build();
+    }
 }
@@ -0,0 +1,32 @@
+package es.nicolas.config.auth;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Claves de firma de los JWT (propiedades jwt.*). Para rotar la clave se pone la nueva en jwt.secret
+ * con otro jwt.key-id y la anterior pasa a jwt.previous-keys.<key-id>: los tokens ya emitidos
+ * se siguen aceptando hasta que caducan y entonces se puede quitar
+ *
+ * @param secret       clave con la que se firman los tokens nuevos
+ * @param keyId        identificador (kid) de esa clave, va en la cabecera de cada token
+ * @param previousKeys key-id -> clave de las anteriores, solo para verificar
+ */
+@ConfigurationProperties(prefix = "jwt")
+public record JwtKeysProperties(String secret, String keyId, Map<String, String> previousKeys) {
+    static final String DEFAULT_KEY_ID = "principal";
+
+    public JwtKeysProperties {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("Falta la clave de firma de los JWT (jwt.secret)");
+        }
+        if (keyId == null || keyId.isBlank()) {
+            keyId = DEFAULT_KEY_ID;
+        }
+        previousKeys = previousKeys == null ? Map.of() : Map.copyOf(previousKeys);
+        if (previousKeys.containsKey(keyId)) {
+            throw new IllegalStateException("El key-id " + keyId + " es el de la clave actual y el de una anterior");
+        }
+    }
+}
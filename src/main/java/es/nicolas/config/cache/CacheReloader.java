@@ -0,0 +1,31 @@
+package es.nicolas.config.cache;
+
+/**
+ * Cómo recargar una clave de una caché con TTL blando (refreshAfterWrite en su especificación).
+ * Cada módulo declara el suyo como bean y CachingConfig lo asocia a la caché por nombre.
+ */
+public interface CacheReloader {
+
+    /**
+     * @return nombre de la caché que recarga
+     */
+    String cacheName();
+
+    /**
+     * Vuelve a leer el valor de una clave. Se llama en segundo plano, fuera de cualquier petición
+     *
+     * @param key clave de la entrada caducada
+     * @return el valor actual, o null si ya no existe (se quita de la caché)
+     */
+    Object reload(Object key);
+
+    /**
+     * Como reload(key), con el valor que hay en la caché: permite comprobar si ha cambiado antes de leerlo entero
+     *
+     * @param anterior valor cacheado, ya decodificado
+     * @return el valor actual (puede ser el anterior si no ha cambiado), o null si ya no existe
+     */
+    default Object reload(Object key, Object anterior) {
+        return reload(key);
+    }
+}
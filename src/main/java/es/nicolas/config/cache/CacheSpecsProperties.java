@@ -0,0 +1,29 @@
+package es.nicolas.config.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Especificación Caffeine de cada caché (propiedades cache.*), por ejemplo
+ * cache.specs.alumnos=maximumSize=10000,expireAfterWrite=10m,expireAfterAccess=5m,recordStats
+ *
+ * @param defaultSpec    especificación de las cachés que no tienen una propia
+ * @param specs          nombre de la caché -> especificación
+ * @param refreshThreads hilos que recargan en segundo plano las entradas con refreshAfterWrite
+ */
+@ConfigurationProperties(prefix = "cache")
+public record CacheSpecsProperties(String defaultSpec, Map<String, String> specs, Integer refreshThreads) {
+    static final String DEFAULT_SPEC = "maximumSize=1000,expireAfterWrite=10m,recordStats";
+    static final int DEFAULT_REFRESH_THREADS = 2;
+
+    public CacheSpecsProperties {
+        if (defaultSpec == null || defaultSpec.isBlank()) {
+            defaultSpec = DEFAULT_SPEC;
+        }
+        specs = specs == null ? Map.of() : Map.copyOf(specs);
+        if (refreshThreads == null || refreshThreads < 1) {
+            refreshThreads = DEFAULT_REFRESH_THREADS;
+        }
+    }
+}
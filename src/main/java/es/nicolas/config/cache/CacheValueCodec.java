@@ -0,0 +1,26 @@
+package es.nicolas.config.cache;
+
+/**
+ * Cómo guardar compactados los valores de una caché, por ejemplo como byte[], para que quepan más en el mismo heap.
+ * Se codifica al escribir y se decodifica en cada lectura, así que quien usa la caché no nota la diferencia.
+ * Cada módulo declara el suyo como bean y CachingConfig lo asocia a la caché por nombre.
+ */
+public interface CacheValueCodec {
+
+    /**
+     * @return nombre de la caché cuyos valores codifica
+     */
+    String cacheName();
+
+    /**
+     * @param valor valor a guardar, puede ser null
+     * @return lo que se guarda en la caché; los valores que no sabe codificar los devuelve tal cual
+     */
+    Object encode(Object valor);
+
+    /**
+     * @param guardado lo que hay en la caché, puede ser null
+     * @return el valor original; lo que no ha codificado él lo devuelve tal cual
+     */
+    Object decode(Object guardado);
+}
@@ -0,0 +1,165 @@
+package es.nicolas.config.cache;
+
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import es.nicolas.rest.alumnos.repositories.AlumnosRepository;
+import es.nicolas.rest.asignaturas.dto.AsignaturaTamanoDto;
+import es.nicolas.rest.asignaturas.models.Asignatura;
+import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precarga las cachés al arrancar: las asignaturas modificadas más recientemente, hasta un máximo de alumnos
+ * entre todas, y los N alumnos modificados más recientemente,
+ * para que tras un despliegue las primeras peticiones no vayan todas a la base de datos.
+ * Es un ApplicationRunner, así que termina antes de que la aplicación se marque como lista (readiness).
+ * Las consultas van en paralelo en un pool de hilos acotado y con un tiempo máximo; si algo falla
+ * o se pasa de tiempo la aplicación arranca igual, solo con la caché menos llena.
+ * Publica la duración (cache.warmup) y las entradas cargadas por caché (cache.warmup.entries).
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class CacheWarmUp implements ApplicationRunner {
+    static final String ASIGNATURAS = "asignaturas";
+
+    private final AlumnosRepository alumnosRepository;
+    private final AsignaturasRespository asignaturasRespository;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+
+    // Alumnos a precargar, los más recientes primero
+    @Value("${warmup.alumnos:1000}")
+    private int maxAlumnos;
+
+    // Alumnos que pueden sumar entre todas las asignaturas precargadas: se cachean con sus alumnos
+    @Value("${warmup.asignaturas.max-alumnos:${warmup.alumnos:1000}}")
+    private int maxAlumnosAsignaturas;
+
+    // Alumnos por consulta, cada lote es una tarea del pool
+    @Value("${warmup.batch-size:250}")
+    private int tamanoLote;
+
+    // Hilos del pool, también es el máximo de conexiones que ocupa a la vez
+    @Value("${warmup.threads:4}")
+    private int hilos;
+
+    // Tiempo máximo de la precarga, lo que no termine se cancela
+    @Value("${warmup.timeout:30s}")
+    private Duration timeout;
+
+    // Entradas cargadas por una tarea
+    record Carga(String cache, int entradas) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        precargar();
+    }
+
+    /**
+     * @return entradas cargadas por caché
+     */
+    Map<String, Long> precargar() {
+        long inicio = System.nanoTime();
+        List<Callable<Carga>> tareas = new ArrayList<>();
+        tareas.add(this::precargarAsignaturas);
+        for (int lote = 0; (long) lote * tamanoLote < maxAlumnos; lote++) {
+            int numero = lote;
+            tareas.add(() -> precargarAlumnos(numero));
+        }
+
+        Map<String, Long> cargadas = new TreeMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(hilos, tareas.size())),
+                Thread.ofPlatform().name("cache-warmup-", 1).daemon().factory());
+        try {
+            for (Future<Carga> futuro : executor.invokeAll(tareas, timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                try {
+                    Carga carga = futuro.get();
+                    cargadas.merge(carga.cache(), (long) carga.entradas(), Long::sum);
+                } catch (CancellationException e) {
+                    log.warn("Precarga de cachés: una tarea no terminó en {}", timeout);
+                } catch (ExecutionException e) {
+                    log.warn("Precarga de cachés: error en una tarea, se continúa sin ella", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Precarga de cachés interrumpida");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Duration duracion = Duration.ofNanos(System.nanoTime() - inicio);
+        meterRegistry.timer("cache.warmup").record(duracion);
+        cargadas.forEach((cache, entradas) -> meterRegistry.counter("cache.warmup.entries", "cache", cache).increment(entradas));
+        log.info("Cachés precargadas en {} ms: {}", duracion.toMillis(), cargadas);
+        return cargadas;
+    }
+
+    // Asignaturas por id (findById). Se cachean con sus alumnos, así que solo se precargan, las más recientes
+    // primero, mientras sus alumnos no pasen del máximo; las demás se cargan al pedirlas.
+    // Por nombre se buscan en AsignaturaNameDictionary
+    private Carga precargarAsignaturas() {
+        Cache cache = cache(ASIGNATURAS);
+        List<Long> ids = new ArrayList<>();
+        long alumnos = 0;
+        for (AsignaturaTamanoDto tamano : asignaturasRespository.findTamanos()) {
+            if (alumnos + tamano.getAlumnos() <= maxAlumnosAsignaturas) {
+                ids.add(tamano.getId());
+                alumnos += tamano.getAlumnos();
+            }
+        }
+        int cargadas = 0;
+        for (int desde = 0; desde < ids.size(); desde += tamanoLote) {
+            List<Asignatura> asignaturas = asignaturasRespository.findWithAlumnosByIdIn(
+                    ids.subList(desde, Math.min(desde + tamanoLote, ids.size())));
+            asignaturas.forEach(asignatura -> cache.putIfAbsent(asignatura.getId(), asignatura));
+            cargadas += asignaturas.size();
+        }
+        return new Carga(ASIGNATURAS, cargadas);
+    }
+
+    // Un lote de los alumnos más recientes. En la MultiKeyCache quedan accesibles por id y por uuid
+    private Carga precargarAlumnos(int lote) {
+        Cache cache = cache(CachingConfig.ALUMNOS);
+        int restantes = maxAlumnos - lote * tamanoLote;
+        List<AlumnoResponseDto> alumnos = alumnosRepository.findResponseDtoNoBorrados(
+                        PageRequest.of(lote, tamanoLote, Sort.by(Sort.Direction.DESC, "updatedAt", "id")))
+                .getContent().stream()
+                .limit(restantes)
+                .toList();
+        // putIfAbsent: no pisamos lo que ya haya escrito el servicio
+        alumnos.forEach(alumno -> cache.putIfAbsent(alumno.getId(), alumno));
+        return new Carga(CachingConfig.ALUMNOS, alumnos.size());
+    }
+
+    private Cache cache(String nombre) {
+        return Objects.requireNonNull(cacheManager.getCache(nombre), () -> "No existe la caché " + nombre);
+    }
+}
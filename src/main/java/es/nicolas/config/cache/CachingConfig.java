@@ -0,0 +1,171 @@
+package es.nicolas.config.cache;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import es.nicolas.rest.asignaturas.models.Asignatura;
+import es.nicolas.rest.user.dto.UserInfoResponse;
+import es.nicolas.rest.user.dto.UserResponse;
+import es.nicolas.rest.user.models.User;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.CompositeCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Cachés acotadas con Caffeine en lugar de los ConcurrentMapCache sin límite por defecto.
+// Caffeine expulsa con W-TinyLFU al llegar al tamaño máximo y caduca por escritura (TTL) o por inactividad.
+// Con recordStats y Actuator, las métricas cache.gets (hit/miss), cache.evictions y cache.size
+// de cada caché aparecen en /actuator/metrics.
+// Las cachés con refreshAfterWrite (TTL blando) y expireAfterWrite (TTL duro) sirven la entrada caducada
+// al momento y la recargan en segundo plano con su CacheReloader; si la recarga falla o tarda se sigue
+// sirviendo la anterior hasta el TTL duro, así la latencia de lectura no depende de una base de datos ocupada.
+// Todas las escrituras en caché se aplican al confirmar la transacción y nunca sustituyen un valor más reciente
+// (VersionedTransactionAwareCache).
+// Los alumnos pueden guardarse compactados con su CacheValueCodec (cache.compact.alumnos).
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(CacheSpecsProperties.class)
+public class CachingConfig {
+    // Los alumnos se buscan por id y por uuid: una sola entrada con las dos claves
+    static final String ALUMNOS = "alumnos";
+    private static final String REFRESCO = "refreshAfterWrite";
+
+    @Bean
+    public CacheManager cacheManager(CacheSpecsProperties properties, ObjectProvider<CacheReloader> reloaders,
+                                     ObjectProvider<CacheValueCodec> codecs) {
+        return cacheManager(properties, reloaders.orderedStream().toList(), codecs.orderedStream().toList());
+    }
+
+    CacheManager cacheManager(CacheSpecsProperties properties, List<CacheReloader> reloaders, List<CacheValueCodec> codecs) {
+        Map<String, CacheReloader> recargas = reloaders.stream()
+                .collect(Collectors.toMap(CacheReloader::cacheName, Function.identity()));
+        // De momento solo la caché de alumnos, la más grande, guarda sus valores codificados
+        Map<String, CacheValueCodec> codificaciones = codecs.stream()
+                .collect(Collectors.toMap(CacheValueCodec::cacheName, Function.identity()));
+        for (String nombre : codificaciones.keySet()) {
+            if (!nombre.equals(ALUMNOS)) {
+                throw new IllegalStateException("La caché " + nombre + " no admite un CacheValueCodec, solo " + ALUMNOS);
+            }
+        }
+        Executor executor = executorRecargas(properties.refreshThreads());
+
+        // Cachés propias (varias claves o recarga en segundo plano),
+        // tienen prioridad sobre las de Caffeine con el mismo nombre
+        List<Cache> caches = new ArrayList<>();
+        String specAlumnos = spec(properties, ALUMNOS);
+        caches.add(new MultiKeyCache(ALUMNOS, builder(specAlumnos, executor),
+                valor -> valor instanceof AlumnoResponseDto alumno && alumno.getUuid() != null
+                        ? List.of(alumno.getId(), alumno.getUuid().toString())
+                        : List.of(),
+                recarga(ALUMNOS, specAlumnos, recargas), codificaciones.get(ALUMNOS)));
+        properties.specs().forEach((nombre, spec) -> {
+            if (!nombre.equals(ALUMNOS) && spec.contains(REFRESCO)) {
+                caches.add(new RefreshingCaffeineCache(nombre,
+                        builder(spec(properties, nombre), executor).build(recarga(nombre, spec, recargas))));
+            }
+        });
+        SimpleCacheManager propias = new SimpleCacheManager();
+        propias.setCaches(caches);
+        propias.initializeCaches();
+
+        CaffeineCacheManager caffeine = new CaffeineCacheManager();
+        // Cachés que se creen bajo demanda sin especificación propia
+        caffeine.setCacheSpecification(properties.defaultSpec());
+        // Las registramos al arrancar para que Actuator las encuentre y publique sus métricas
+        properties.specs().keySet().forEach(nombre -> {
+            if (propias.getCache(nombre) == null) {
+                caffeine.registerCustomCache(nombre, Caffeine.from(spec(properties, nombre)).build());
+            }
+        });
+        return new VersionedCacheManager(new CompositeCacheManager(propias, caffeine), CachingConfig::version);
+    }
+
+    // Versión de los valores cacheados para ordenar escrituras concurrentes: su fecha de modificación
+    static LocalDateTime version(Object valor) {
+        return switch (valor) {
+            case AlumnoResponseDto alumno -> alumno.getUpdatedAt();
+            case Asignatura asignatura -> asignatura.getUpdatedAt();
+            case UserResponse usuario -> usuario.getUpdatedAt();
+            case UserInfoResponse usuario -> usuario.getUpdatedAt();
+            case User usuario -> usuario.getUpdatedAt();
+            case null, default -> null;
+        };
+    }
+
+    // Métricas de las cachés de varias claves, igual que las de Caffeine
+    @Bean
+    public CacheMeterBinderProvider<MultiKeyCache> multiKeyCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(cache.getNativeCache(), cache.getName(), tags);
+    }
+
+    private static String spec(CacheSpecsProperties properties, String nombre) {
+        String spec = properties.specs().getOrDefault(nombre, properties.defaultSpec());
+        log.info("Caché {} configurada con {}", nombre, spec);
+        return spec;
+    }
+
+    // Las recargas van a un pool propio y acotado: si está lleno no se recarga y se sigue sirviendo lo que hay
+    private static Caffeine<Object, Object> builder(String spec, Executor executor) {
+        Caffeine<Object, Object> builder = Caffeine.from(spec);
+        return spec.contains(REFRESCO) ? builder.executor(executor) : builder;
+    }
+
+    /**
+     * Recarga de una caché con TTL blando, null si su especificación no tiene refreshAfterWrite
+     *
+     * @throws IllegalStateException si tiene refreshAfterWrite y no hay un CacheReloader para ella
+     */
+    static CacheLoader<Object, Object> recarga(String nombre, String spec, Map<String, CacheReloader> recargas) {
+        if (!spec.contains(REFRESCO)) {
+            return null;
+        }
+        CacheReloader reloader = recargas.get(nombre);
+        if (reloader == null) {
+            throw new IllegalStateException("La caché " + nombre + " tiene " + REFRESCO + " pero no hay un CacheReloader para ella");
+        }
+        if (!spec.contains("expireAfterWrite")) {
+            log.warn("La caché {} tiene {} sin expireAfterWrite: si las recargas fallan servirá valores antiguos indefinidamente", nombre, REFRESCO);
+        }
+        return new CacheLoader<>() {
+            // Los fallos no se cargan aquí sino en el método @Cacheable (RefreshingCaffeineCache)
+            @Override
+            public Object load(Object key) {
+                return null;
+            }
+
+            // Si lanza una excepción Caffeine la registra y conserva el valor anterior
+            @Override
+            public Object reload(Object key, Object anterior) {
+                return reloader.reload(key, anterior);
+            }
+        };
+    }
+
+    private static Executor executorRecargas(int hilos) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(hilos * 50),
+                Thread.ofPlatform().name("cache-refresh-", 1).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
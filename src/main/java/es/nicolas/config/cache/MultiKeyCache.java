@@ -0,0 +1,218 @@
+package es.nicolas.config.cache;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Caché en la que una misma entrada es accesible por varias claves, por ejemplo un alumno por id y por uuid.
+ * El valor se guarda una sola vez bajo su clave principal y las demás claves (alias) solo apuntan a ella,
+ * así que al borrar, actualizar o caducar la entrada deja de estar disponible por todas sus claves a la vez
+ * y nunca se sirve un valor distinto según la clave usada.
+ * Funciona con las anotaciones de Spring: @Cacheable con cualquiera de las claves,
+ * y @CachePut o @CacheEvict con una sola de ellas actualizan o borran la entrada para todas.
+ * Con un CacheValueCodec los valores se guardan codificados y se decodifican en cada lectura.
+ * Los alias de una entrada se quitan cuando la entrada sale de la caché: al borrarla, al expulsarla o caducar
+ * y cuando su recarga devuelve null porque el valor ya no existe.
+ */
+public class MultiKeyCache implements Cache {
+    // Entradas por clave principal
+    private final CaffeineCache principal;
+    // Alias -> clave principal
+    private final Map<Object, Object> alias = new ConcurrentHashMap<>();
+    // Claves de un valor: la primera es la principal y el resto sus alias
+    private final Function<Object, List<Object>> claves;
+    // Codificación de los valores guardados, null si se guardan tal cual
+    private final CacheValueCodec codec;
+
+    /**
+     * @param name    nombre de la caché
+     * @param builder configuración Caffeine de las entradas (tamaño, caducidad, estadísticas)
+     * @param claves  claves de cada valor, la principal primero; lista vacía si el valor no tiene claves propias
+     */
+    public MultiKeyCache(String name, Caffeine<Object, Object> builder, Function<Object, List<Object>> claves) {
+        this(name, builder, claves, null);
+    }
+
+    /**
+     * @param recarga recarga en segundo plano por clave principal si la especificación tiene refreshAfterWrite,
+     *                null si no
+     */
+    public MultiKeyCache(String name, Caffeine<Object, Object> builder, Function<Object, List<Object>> claves,
+                         CacheLoader<Object, Object> recarga) {
+        this(name, builder, claves, recarga, null);
+    }
+
+    /**
+     * @param codec codificación de los valores guardados, null para guardarlos tal cual
+     */
+    public MultiKeyCache(String name, Caffeine<Object, Object> builder, Function<Object, List<Object>> claves,
+                         CacheLoader<Object, Object> recarga, CacheValueCodec codec) {
+        this.claves = claves;
+        this.codec = codec;
+        // Al expulsar o caducar una entrada quitamos sus alias en la misma operación
+        Caffeine<Object, Object> conAlias = builder.evictionListener((clave, valor, causa) -> quitarAlias(clave, decode(valor)));
+        this.principal = recarga == null
+                ? new CaffeineCache(name, conAlias.build())
+                : new RefreshingCaffeineCache(name, conAlias.build(recargaConAlias(recarga)));
+    }
+
+    @Override
+    public String getName() {
+        return principal.getName();
+    }
+
+    @Override
+    public com.github.benmanes.caffeine.cache.Cache<Object, Object> getNativeCache() {
+        return principal.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper guardado = principal.get(resolver(key));
+        return guardado == null || codec == null ? guardado : new SimpleValueWrapper(codec.decode(guardado.get()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        if (codec == null) {
+            return principal.get(resolver(key), type);
+        }
+        ValueWrapper existente = get(key);
+        Object valor = existente == null ? null : existente.get();
+        if (valor != null && type != null && !type.isInstance(valor)) {
+            throw new IllegalStateException("El valor cacheado no es de tipo " + type.getName() + ": " + valor);
+        }
+        return (T) valor;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper existente = get(key);
+        if (existente != null) {
+            return (T) existente.get();
+        }
+        // No cargamos con la caché de Caffeine: la clave pedida puede ser un alias
+        T valor;
+        try {
+            valor = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, valor);
+        return valor;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        List<Object> clavesValor = value == null ? List.of() : claves.apply(value);
+        if (clavesValor.isEmpty()) {
+            principal.put(key, encode(value));
+            return;
+        }
+        Object clavePrincipal = clavesValor.getFirst();
+        principal.put(clavePrincipal, encode(value));
+        clavesValor.stream().skip(1).forEach(a -> alias.put(a, clavePrincipal));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existente = get(key);
+        if (existente == null) {
+            put(key, value);
+        }
+        return existente;
+    }
+
+    @Override
+    public void evict(Object key) {
+        Object clavePrincipal = resolver(key);
+        Object anterior = getNativeCache().asMap().remove(clavePrincipal);
+        quitarAlias(clavePrincipal, decode(anterior));
+        alias.remove(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean existia = getNativeCache().asMap().containsKey(resolver(key));
+        evict(key);
+        return existia;
+    }
+
+    @Override
+    public void clear() {
+        principal.clear();
+        alias.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean habiaEntradas = !getNativeCache().asMap().isEmpty();
+        clear();
+        return habiaEntradas;
+    }
+
+    /**
+     * Clave bajo la que put guarda el valor: su clave principal, o la clave pedida si el valor no tiene claves propias
+     */
+    Object clavePrincipal(Object key, Object value) {
+        List<Object> clavesValor = value == null ? List.of() : claves.apply(value);
+        return clavesValor.isEmpty() ? key : clavesValor.getFirst();
+    }
+
+    int aliasCount() {
+        return alias.size();
+    }
+
+    private Object encode(Object valor) {
+        return codec == null ? valor : codec.encode(valor);
+    }
+
+    private Object decode(Object guardado) {
+        return codec == null ? guardado : codec.decode(guardado);
+    }
+
+    // La recarga trabaja con valores sin codificar, la caché guarda lo que devuelve codificado.
+    // Si devuelve null Caffeine borra la entrada sin avisar al evictionListener, así que quitamos aquí sus alias
+    private CacheLoader<Object, Object> recargaConAlias(CacheLoader<Object, Object> recarga) {
+        return new CacheLoader<>() {
+            @Override
+            public Object load(Object key) throws Exception {
+                return encode(recarga.load(key));
+            }
+
+            @Override
+            public Object reload(Object key, Object anterior) throws Exception {
+                Object actual = decode(anterior);
+                Object recargado = recarga.reload(key, actual);
+                if (recargado == null) {
+                    quitarAlias(key, actual);
+                    return null;
+                }
+                return encode(recargado);
+            }
+        };
+    }
+
+    private Object resolver(Object key) {
+        return alias.getOrDefault(key, key);
+    }
+
+    // Solo quita los alias que siguen apuntando a esta entrada
+    private void quitarAlias(Object clavePrincipal, Object valor) {
+        if (valor == null) {
+            return;
+        }
+        claves.apply(valor).stream().skip(1).forEach(a -> alias.remove(a, clavePrincipal));
+    }
+}
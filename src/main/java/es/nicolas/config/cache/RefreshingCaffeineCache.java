@@ -0,0 +1,22 @@
+package es.nicolas.config.cache;
+
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+/**
+ * CaffeineCache sobre una LoadingCache con refreshAfterWrite que no carga en los fallos:
+ * una clave que no está devuelve null y la carga el método @Cacheable, igual que en las demás cachés.
+ * La LoadingCache solo se usa para recargar en segundo plano las entradas que han pasado el TTL blando.
+ */
+class RefreshingCaffeineCache extends CaffeineCache {
+
+    RefreshingCaffeineCache(String name, LoadingCache<Object, Object> cache) {
+        super(name, cache);
+    }
+
+    // getIfPresent también lanza la recarga si la entrada ha pasado el TTL blando
+    @Override
+    protected Object lookup(Object key) {
+        return getNativeCache().getIfPresent(key);
+    }
+}
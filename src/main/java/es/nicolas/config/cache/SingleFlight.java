@@ -0,0 +1,89 @@
+package es.nicolas.config.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa las cargas concurrentes de una misma clave (single flight): si llegan varias peticiones
+ * a la vez por un valor que no está en caché, solo la primera consulta la base de datos
+ * y las demás esperan y reciben su mismo resultado, o su misma excepción.
+ * Solo agrupa lo que está en curso, no guarda nada: al terminar la carga la siguiente petición vuelve a cargar.
+ * Publica las cargas ejecutadas y agrupadas (singleflight.loads, tags name y result) y las que hay en curso
+ * (singleflight.inflight).
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class SingleFlight {
+    static final String METRICA = "singleflight.loads";
+
+    private final MeterRegistry meterRegistry;
+
+    // Cargas en curso por nombre y clave
+    private final Map<Clave, CompletableFuture<Object>> enCurso = new ConcurrentHashMap<>();
+
+    record Clave(String nombre, Object clave) {
+    }
+
+    @PostConstruct
+    void registrarMetricas() {
+        meterRegistry.gaugeMapSize("singleflight.inflight", Tags.empty(), enCurso);
+    }
+
+    /**
+     * Carga un valor, compartiendo la carga con las demás llamadas concurrentes con el mismo nombre y clave.
+     * El valor es el mismo objeto para todas: no debe modificarse
+     *
+     * @param nombre tipo de dato, separa las claves y etiqueta las métricas (alumnos, asignaturas...)
+     * @param clave  clave del valor
+     * @param carga  consulta a ejecutar si no hay otra en curso
+     * @return el valor cargado
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(String nombre, Object clave, Supplier<T> carga) {
+        Clave enVuelo = new Clave(nombre, clave);
+        CompletableFuture<Object> nueva = new CompletableFuture<>();
+        CompletableFuture<Object> existente = enCurso.putIfAbsent(enVuelo, nueva);
+        if (existente != null) {
+            meterRegistry.counter(METRICA, "name", nombre, "result", "coalesced").increment();
+            log.debug("Carga de {} {} agrupada con la que está en curso", nombre, clave);
+            return (T) esperar(existente);
+        }
+        meterRegistry.counter(METRICA, "name", nombre, "result", "executed").increment();
+        try {
+            T valor = carga.get();
+            nueva.complete(valor);
+            return valor;
+        } catch (RuntimeException | Error e) {
+            nueva.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(enVuelo, nueva);
+        }
+    }
+
+    // Propaga la misma excepción que la carga, por ejemplo un NotFound para que responda 404
+    private static Object esperar(CompletableFuture<Object> carga) {
+        try {
+            return carga.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package es.nicolas.config.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Diccionario de cadenas con pocos valores distintos (grados, nombres de asignatura...) para los CacheValueCodec:
+ * cada cadena se guarda una sola vez y los valores codificados solo llevan su código.
+ * Los códigos no cambian ni se reutilizan mientras viva la aplicación, así que lo ya codificado sigue siendo válido.
+ * Está acotado: al llenarse no admite más cadenas y quien codifica debe guardarlas enteras.
+ */
+public class StringDictionary {
+    private final int maxSize;
+    private final Map<String, Integer> codigos = new ConcurrentHashMap<>();
+    // Código -> cadena, solo crece y con pocas altas: las lecturas no bloquean
+    private final List<String> valores = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param maxSize número máximo de cadenas distintas
+     */
+    public StringDictionary(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return el código de la cadena, dándola de alta si no estaba, o -1 si el diccionario está lleno
+     */
+    public int codigo(String valor) {
+        Integer codigo = codigos.get(valor);
+        return codigo != null ? codigo : registrar(valor);
+    }
+
+    /**
+     * @throws IllegalArgumentException si el código no existe
+     */
+    public String valor(int codigo) {
+        if (codigo < 0 || codigo >= valores.size()) {
+            throw new IllegalArgumentException("Código de diccionario desconocido: " + codigo);
+        }
+        return valores.get(codigo);
+    }
+
+    public int size() {
+        return valores.size();
+    }
+
+    // La cadena se añade a la lista antes de publicar su código, así quien lo lea siempre la encuentra
+    private synchronized int registrar(String valor) {
+        Integer codigo = codigos.get(valor);
+        if (codigo != null) {
+            return codigo;
+        }
+        if (valores.size() >= maxSize) {
+            return -1;
+        }
+        valores.add(valor);
+        codigos.put(valor, valores.size() - 1);
+        return valores.size() - 1;
+    }
+}
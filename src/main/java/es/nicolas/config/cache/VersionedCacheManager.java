@@ -0,0 +1,37 @@
+package es.nicolas.config.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Devuelve las cachés de otro CacheManager decoradas con {@link VersionedTransactionAwareCache}
+ */
+public class VersionedCacheManager implements CacheManager {
+    private final CacheManager delegado;
+    private final Function<Object, LocalDateTime> version;
+    private final Map<String, Cache> decoradas = new ConcurrentHashMap<>();
+
+    public VersionedCacheManager(CacheManager delegado, Function<Object, LocalDateTime> version) {
+        this.delegado = delegado;
+        this.version = version;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return decoradas.computeIfAbsent(name, nombre -> {
+            Cache cache = delegado.getCache(nombre);
+            return cache == null ? null : new VersionedTransactionAwareCache(cache, version);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegado.getCacheNames();
+    }
+}
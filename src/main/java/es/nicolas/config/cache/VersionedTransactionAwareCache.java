@@ -0,0 +1,63 @@
+package es.nicolas.config.cache;
+
+import es.nicolas.utils.transaction.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Caché que aplica los put y evict al confirmar la transacción en curso, como TransactionAwareCacheDecorator,
+ * así un @CachePut o @CacheEvict dentro de una transacción que se deshace no deja en la caché datos sin confirmar.
+ * Además compara versiones (updatedAt): si al escribir la caché ya tiene un valor más reciente de la misma clave,
+ * otra escritura se ha adelantado y no sabemos cuál ganó en la base de datos, así que se quita la entrada
+ * y la siguiente lectura la carga de nuevo. Nunca se sustituye un valor por otro más antiguo.
+ * Con una MultiKeyCache se compara y se bloquea por la clave principal del valor, así las escrituras
+ * de la misma entrada por id y por uuid no se adelantan una a otra.
+ * Spring Boot la desenvuelve al publicar las métricas de la caché que decora.
+ */
+@Slf4j
+public class VersionedTransactionAwareCache extends TransactionAwareCacheDecorator {
+    private static final int BLOQUEOS = 64;
+
+    // Versión de un valor, null si no tiene
+    private final Function<Object, LocalDateTime> version;
+    // Bloqueos por clave principal para comparar y escribir sin que se cuele otra escritura
+    private final Object[] bloqueos = new Object[BLOQUEOS];
+
+    public VersionedTransactionAwareCache(Cache targetCache, Function<Object, LocalDateTime> version) {
+        super(targetCache);
+        this.version = version;
+        for (int i = 0; i < BLOQUEOS; i++) {
+            bloqueos[i] = new Object();
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        AfterCommit.run(() -> putSiNoEsAnterior(key, value));
+    }
+
+    private void putSiNoEsAnterior(Object key, Object value) {
+        Cache destino = getTargetCache();
+        LocalDateTime nueva = value == null ? null : version.apply(value);
+        if (nueva == null) {
+            destino.put(key, value);
+            return;
+        }
+        Object clave = destino instanceof MultiKeyCache multiKey ? multiKey.clavePrincipal(key, value) : key;
+        synchronized (bloqueos[Math.floorMod(clave.hashCode(), BLOQUEOS)]) {
+            ValueWrapper actual = destino.get(clave);
+            LocalDateTime anterior = actual == null || actual.get() == null ? null : version.apply(actual.get());
+            if (anterior != null && anterior.isAfter(nueva)) {
+                log.debug("Caché {}: escritura de {} con versión {} anterior a la cacheada {}, se quita la entrada",
+                        getName(), key, nueva, anterior);
+                destino.evict(clave);
+            } else {
+                destino.put(key, value);
+            }
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package es.nicolas.graphql.controllers;
 
-import es.nicolas.rest.alumnos.models.Alumno;
+import es.nicolas.config.cache.SingleFlight;
+import es.nicolas.graphql.dto.AlumnoGraphQLResponse;
+import es.nicolas.graphql.dto.AsignaturaGraphQLResponse;
+import es.nicolas.graphql.mappers.AlumnoAsignaturaGraphQLMapper;
 import es.nicolas.rest.alumnos.repositories.AlumnosRepository;
-import es.nicolas.rest.asignaturas.models.Asignatura;
 import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.graphql.data.method.annotation.Argument;
@@ -13,57 +15,69 @@ import org.springframework.stereotype.Controller;
 import java.util.List;
 import java.util.Optional;
 
+// Devuelve DTOs inmutables y no entidades: lo que comparte el single flight entre peticiones
+// no puede ser una entidad de JPA ligada a la sesión de la petición que la cargó
 @RequiredArgsConstructor
 @Controller
 public class AlumnoAsignaturaGraphQLController {
     private final AlumnosRepository alumnosRepository;
     private final AsignaturasRespository asignaturasRespository;
+    private final AlumnoAsignaturaGraphQLMapper mapper;
+    private final SingleFlight singleFlight;
 
 
     // QUERIES
 
     @QueryMapping
-    public List<Alumno> alumnos(){
-        return alumnosRepository.findAll();
+    public List<AlumnoGraphQLResponse> alumnos(){
+        // Una sola consulta: sin el grafo cada alumno cargaría su asignatura, su usuario y sus roles
+        return alumnosRepository.findAllConAsignatura().stream()
+                .map(mapper::toAlumnoResponse)
+                .toList();
     }
 
     @QueryMapping
-    public Alumno alumnoById(@Argument Long id){
-        // Devuelve un alumno por su id
-        Optional<Alumno> alumnoOpt = alumnosRepository.findById(id);
+    public AlumnoGraphQLResponse alumnoById(@Argument Long id){
+        // Devuelve un alumno por su id, las consultas simultáneas del mismo id comparten una sola carga
+        // y el mismo DTO, que se mapea dentro de la carga
+        Optional<AlumnoGraphQLResponse> alumnoOpt = singleFlight.load("graphql-alumnos", id,
+                () -> alumnosRepository.findById(id).map(mapper::toAlumnoResponse));
         return alumnoOpt.orElse(null);
     }
 
     @QueryMapping
-    public List<Asignatura> asignaturas(){
-        // Devuelve todas las asignaturas como entidades
-        return asignaturasRespository.findAll();
+    public List<AsignaturaGraphQLResponse> asignaturas(){
+        // Devuelve todas las asignaturas
+        return asignaturasRespository.findAll().stream()
+                .map(mapper::toAsignaturaResponse)
+                .toList();
     }
 
     @QueryMapping
-    public Asignatura asignaturaById(@Argument Long id){
-        // Devuelve una asignatura por su id
-        return asignaturasRespository.findById(id).orElse(null);
+    public AsignaturaGraphQLResponse asignaturaById(@Argument Long id){
+        // Devuelve una asignatura por su id, las consultas simultáneas del mismo id comparten una sola carga
+        return singleFlight.load("graphql-asignaturas", id,
+                () -> asignaturasRespository.findById(id).map(mapper::toAsignaturaResponse)).orElse(null);
     }
 
     // asignaturasByNombre(nombre: String!): [Asignatura!]!
     @QueryMapping
-    public List<Asignatura> asignaturasByNombre(@Argument String nombre){
+    public List<AsignaturaGraphQLResponse> asignaturasByNombre(@Argument String nombre){
         // Devuelve una lista de asignaturas que coinciden con el nombre proporcionado, sino devuelve vacio
-        return asignaturasRespository.findByNombreContainsIgnoreCase(nombre);
+        return asignaturasRespository.findByNombreContainsIgnoreCase(nombre).stream()
+                .map(mapper::toAsignaturaResponse)
+                .toList();
     }
 
     // --- RESOLVERS RELACIONES ---
-    @SchemaMapping(typeName = "Alumno", field = "asignatura")
-    public Asignatura asignatura(Alumno alumno){
-        // Resuelve la asignatura asociada a un alumno
-        return alumno.getAsignatura();
-    }
+    // La asignatura de un alumno ya viene en su DTO
 
     @SchemaMapping(typeName = "Asignatura", field = "alumnos")
-    public List<Alumno> alumnos(Asignatura asignatura){
+    public List<AlumnoGraphQLResponse> alumnos(AsignaturaGraphQLResponse asignatura){
         // Resuelve la lista de alumnos asociados a una asignatura
-        return alumnosRepository.findByAsignatura(asignatura);
+        return alumnosRepository.findByAsignaturaId(asignatura.id()).stream()
+                .map(mapper::toAlumnoResponse)
+                .toList();
     }
 
 }
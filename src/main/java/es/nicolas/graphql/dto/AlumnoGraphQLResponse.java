@@ -0,0 +1,17 @@
+package es.nicolas.graphql.dto;
+
+// Alumno tal y como lo ve GraphQL. Es inmutable: la misma instancia puede servir a varias peticiones a la vez
+public record AlumnoGraphQLResponse(
+    Long id,
+    String nombre,
+    String apellido,
+    String grado,
+    String uuid,
+    String createdAt,
+    String updatedAt,
+    Boolean isDeleted,
+
+    AsignaturaGraphQLResponse asignatura
+){
+
+}
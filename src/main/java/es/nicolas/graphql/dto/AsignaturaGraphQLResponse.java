@@ -0,0 +1,12 @@
+package es.nicolas.graphql.dto;
+
+// Asignatura tal y como la ve GraphQL, sin sus alumnos: los resuelve el controlador solo si se piden
+public record AsignaturaGraphQLResponse(
+    Long id,
+    String nombre,
+    String createdAt,
+    String updatedAt,
+    Boolean isDeleted
+){
+
+}
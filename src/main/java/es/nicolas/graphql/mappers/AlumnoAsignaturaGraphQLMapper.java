@@ -0,0 +1,36 @@
+package es.nicolas.graphql.mappers;
+
+import es.nicolas.graphql.dto.AlumnoGraphQLResponse;
+import es.nicolas.graphql.dto.AsignaturaGraphQLResponse;
+import es.nicolas.rest.alumnos.models.Alumno;
+import es.nicolas.rest.asignaturas.models.Asignatura;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+@Component
+public class AlumnoAsignaturaGraphQLMapper {
+    public AlumnoGraphQLResponse toAlumnoResponse(Alumno alumno) {
+        return new AlumnoGraphQLResponse(
+                alumno.getId(),
+                alumno.getNombre(),
+                alumno.getApellido(),
+                alumno.getGrado(),
+                Objects.toString(alumno.getUuid(), null),
+                Objects.toString(alumno.getCreatedAt(), null),
+                Objects.toString(alumno.getUpdatedAt(), null),
+                alumno.isDeleted(),
+                alumno.getAsignatura() == null ? null : toAsignaturaResponse(alumno.getAsignatura())
+        );
+    }
+
+    public AsignaturaGraphQLResponse toAsignaturaResponse(Asignatura asignatura) {
+        return new AsignaturaGraphQLResponse(
+                asignatura.getId(),
+                asignatura.getNombre(),
+                Objects.toString(asignatura.getCreatedAt(), null),
+                Objects.toString(asignatura.getUpdatedAt(), null),
+                asignatura.getIsDeleted()
+        );
+    }
+}
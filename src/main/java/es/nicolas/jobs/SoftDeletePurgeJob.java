@@ -0,0 +1,213 @@
+package es.nicolas.jobs;
+
+import es.nicolas.rest.alumnos.cache.AlumnoQueryCache;
+import es.nicolas.rest.alumnos.repositories.AlumnosRepository;
+import es.nicolas.rest.alumnos.search.AlumnoSearchIndex;
+import es.nicolas.rest.asignaturas.dictionary.AsignaturaNameDictionary;
+import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
+import es.nicolas.rest.user.repositories.UserRepository;
+import es.nicolas.utils.etag.WriteVersions;
+import es.nicolas.utils.transaction.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Borra definitivamente las filas con soft delete (isDeleted = true) cuya última modificación
+ * es anterior a la ventana de retención, para que no se acumulen y no ralenticen los filtros por isDeleted.
+ * Trabaja en lotes pequeños ordenados por id (keyset), cada uno en su propia transacción y con una pausa
+ * entre lotes, así nunca retiene bloqueos largos ni acapara conexiones del pool.
+ * Cachés, índice de búsqueda y versiones se actualizan al confirmar cada lote, como en el resto de escrituras.
+ * Publica en Micrometer las filas borradas (purge.rows), la duración de cada lote (purge.chunk),
+ * el último id purgado por tabla (purge.last.id) y si hay una purga en curso (purge.running).
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = "purge.enabled", havingValue = "true", matchIfMissing = true)
+public class SoftDeletePurgeJob {
+    private final AlumnosRepository alumnosRepository;
+    private final UserRepository userRepository;
+    private final AsignaturasRespository asignaturasRespository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final AsignaturaNameDictionary asignaturaNameDictionary;
+    private final AlumnoQueryCache alumnoQueryCache;
+    private final AlumnoSearchIndex alumnoSearchIndex;
+    private final WriteVersions writeVersions;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean(false);
+    // Tabla -> último id purgado en la ejecución actual (progreso)
+    private final Map<String, AtomicLong> progreso = new ConcurrentHashMap<>();
+
+    // Tiempo que se conserva una fila borrada antes de purgarla
+    @Value("${purge.retention:30d}")
+    private Duration retencion;
+
+    // Filas que se borran en cada transacción
+    @Value("${purge.chunk-size:500}")
+    private int chunkSize;
+
+    // Pausa entre lotes para no competir con el tráfico normal
+    @Value("${purge.throttle:200ms}")
+    private Duration pausa;
+
+    // Límite de lotes por tabla en cada ejecución, lo que quede se purga en la siguiente
+    @Value("${purge.max-chunks-per-run:1000}")
+    private int maxLotes;
+
+    // Una tabla a purgar: cómo buscar el siguiente lote de ids y cómo borrarlo
+    record Tabla(String nombre, BiFunction<LocalDateTime, Long, List<Long>> siguientes, Consumer<List<Long>> borrar) {
+    }
+
+    @PostConstruct
+    void registrarMetricas() {
+        meterRegistry.gauge("purge.running", enCurso, e -> e.get() ? 1 : 0);
+    }
+
+    @Scheduled(cron = "${purge.cron:0 30 3 * * *}")
+    public void purgar() {
+        if (!enCurso.compareAndSet(false, true)) {
+            log.warn("Ya hay una purga de borrados en curso, se omite esta ejecución");
+            return;
+        }
+        try {
+            LocalDateTime limite = LocalDateTime.now().minus(retencion);
+            log.info("Purgando filas borradas antes de {}", limite);
+            // Primero los alumnos y los usuarios para que las asignaturas queden sin referencias
+            purgar(new Tabla("alumnos",
+                    (l, desde) -> alumnosRepository.findIdsBorradosAntesDe(l, desde, PageRequest.ofSize(chunkSize)),
+                    ids -> {
+                        alumnosRepository.deleteAllByIdInBatch(ids);
+                        evictAlumnos(ids);
+                    }), limite);
+            purgar(new Tabla("usuarios",
+                    (l, desde) -> userRepository.findIdsBorradosAntesDe(l, desde, PageRequest.ofSize(chunkSize)),
+                    ids -> {
+                        // Los usernames se leen antes de borrar las filas
+                        List<String> usernames = userRepository.findUsernamesByIdIn(ids);
+                        userRepository.deleteRolesByUserIdIn(ids);
+                        userRepository.deleteAllByIdInBatch(ids);
+                        evictUsuarios(ids, usernames);
+                        AfterCommit.run(() -> writeVersions.incrementar(WriteVersions.USUARIOS));
+                    }), limite);
+            purgar(new Tabla("asignaturas",
+                    (l, desde) -> asignaturasRespository.findIdsBorradasSinReferenciasAntesDe(l, desde, PageRequest.ofSize(chunkSize)),
+                    ids -> {
+                        asignaturasRespository.deleteAllByIdInBatch(ids);
+                        evict("asignaturas", ids);
+                        AfterCommit.run(() -> {
+                            ids.forEach(asignaturaNameDictionary::eliminar);
+                            writeVersions.incrementar(WriteVersions.ASIGNATURAS);
+                        });
+                    }), limite);
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    /**
+     * Purga una tabla lote a lote
+     *
+     * @param tabla  tabla a purgar
+     * @param limite fecha de modificación por debajo de la cual se borran las filas
+     * @return filas borradas
+     */
+    long purgar(Tabla tabla, LocalDateTime limite) {
+        Tags tags = Tags.of("table", tabla.nombre());
+        Timer timer = meterRegistry.timer("purge.chunk", tags);
+        AtomicLong ultimoId = progreso.computeIfAbsent(tabla.nombre(),
+                nombre -> meterRegistry.gauge("purge.last.id", tags, new AtomicLong()));
+        ultimoId.set(0);
+
+        long inicio = System.nanoTime();
+        long borradas = 0;
+        for (int lote = 0; lote < maxLotes; lote++) {
+            long desdeId = ultimoId.get();
+            List<Long> ids = timer.record(() -> transactionTemplate.execute(status -> {
+                List<Long> siguientes = tabla.siguientes().apply(limite, desdeId);
+                if (!siguientes.isEmpty()) {
+                    tabla.borrar().accept(siguientes);
+                }
+                return siguientes;
+            }));
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            borradas += ids.size();
+            ultimoId.set(ids.getLast());
+            meterRegistry.counter("purge.rows", tags).increment(ids.size());
+            log.debug("Purgadas {} filas de {} hasta el id {}", ids.size(), tabla.nombre(), ultimoId.get());
+            if (ids.size() < chunkSize || !esperar()) {
+                break;
+            }
+        }
+        double segundos = Math.max((System.nanoTime() - inicio) / 1e9, 0.001);
+        log.info("Purgadas {} filas de {} en {} s ({} filas/s)", borradas, tabla.nombre(),
+                String.format("%.2f", segundos), Math.round(borradas / segundos));
+        return borradas;
+    }
+
+    // La caché de alumnos también los guarda por uuid, pero al quitar el id desaparece el alias
+    // (la propia caché aplaza el evict al commit).
+    // Los listados con isDeleted=true los incluían: nueva versión de las páginas cacheadas
+    private void evictAlumnos(List<Long> ids) {
+        evict("alumnos", ids);
+        AfterCommit.run(() -> {
+            ids.forEach(alumnoSearchIndex::eliminar);
+            alumnoQueryCache.invalidar();
+        });
+    }
+
+    // Los usuarios están por id en la caché users y por username en la de autenticación,
+    // si no un usuario purgado seguiría autenticándose hasta que caducase su entrada
+    private void evictUsuarios(List<Long> ids, List<String> usernames) {
+        evict("users", ids);
+        evict("usuarios-auth", usernames);
+    }
+
+    // Todas las cachés aplazan el evict al commit (VersionedTransactionAwareCache)
+    private void evict(String nombre, List<?> claves) {
+        Cache cache = cacheManager.getCache(nombre);
+        if (cache != null) {
+            claves.forEach(cache::evict);
+        }
+    }
+
+    // Pausa entre lotes, devuelve false si hay que parar
+    private boolean esperar() {
+        if (pausa.isZero() || pausa.isNegative()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausa);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Purga de borrados interrumpida");
+            return false;
+        }
+    }
+}
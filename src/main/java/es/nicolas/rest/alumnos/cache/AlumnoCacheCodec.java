@@ -0,0 +1,195 @@
+package es.nicolas.rest.alumnos.cache;
+
+import es.nicolas.config.cache.CacheValueCodec;
+import es.nicolas.config.cache.StringDictionary;
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Guarda los alumnos de la caché como byte[] en lugar de AlumnoResponseDto: con la caché llena
+ * el heap se iba en copias de los mismos grados y asignaturas, LocalDateTime y UUID.
+ * Grado y asignatura van a un diccionario y en el valor solo queda su código, las fechas van como
+ * nanosegundos desde epoch (UTC) y el uuid como dos long. Un alumno ocupa unos 60 bytes más sus nombres.
+ * Cada lectura decodifica un AlumnoResponseDto nuevo, así que quien lo modifique no cambia la caché.
+ * Desactivado por defecto, se activa con cache.compact.alumnos=true.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = "cache.compact.alumnos", havingValue = "true")
+public class AlumnoCacheCodec implements CacheValueCodec {
+    // Versión del formato, por si cambia con entradas antiguas aún en la caché
+    private static final byte FORMATO = 1;
+    private static final short SIN_CODIGO = -1;
+    private static final long NANOS = 1_000_000_000L;
+
+    // Bits de los campos presentes (no null)
+    private static final int ID = 1;
+    private static final int NOMBRE = 1 << 1;
+    private static final int APELLIDO = 1 << 2;
+    private static final int GRADO = 1 << 3;
+    private static final int CREATED_AT = 1 << 4;
+    private static final int UPDATED_AT = 1 << 5;
+    private static final int UUID_ = 1 << 6;
+    private static final int ASIGNATURA = 1 << 7;
+
+    private final MeterRegistry meterRegistry;
+
+    // Grados y asignaturas distintos que se guardan por código, los demás van enteros
+    @Value("${cache.compact.dictionary-size:" + Short.MAX_VALUE + "}")
+    private int tamanoDiccionario;
+
+    private StringDictionary diccionario;
+
+    @PostConstruct
+    void init() {
+        diccionario = new StringDictionary(Math.min(tamanoDiccionario, Short.MAX_VALUE));
+        meterRegistry.gauge("cache.codec.dictionary.size", diccionario, StringDictionary::size);
+    }
+
+    @Override
+    public String cacheName() {
+        return "alumnos";
+    }
+
+    @Override
+    public Object encode(Object valor) {
+        if (!(valor instanceof AlumnoResponseDto alumno)) {
+            return valor;
+        }
+        try {
+            return codificar(alumno);
+        } catch (IOException | ArithmeticException e) {
+            // Un nombre demasiado largo para writeUTF o una fecha fuera de rango: se guarda sin compactar
+            log.debug("No se ha podido compactar el alumno {}, se guarda tal cual: {}", alumno.getId(), e.getMessage());
+            return valor;
+        }
+    }
+
+    @Override
+    public Object decode(Object guardado) {
+        if (!(guardado instanceof byte[] bytes)) {
+            return guardado;
+        }
+        try {
+            return decodificar(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Alumno mal codificado en la caché", e);
+        }
+    }
+
+    private byte[] codificar(AlumnoResponseDto alumno) throws IOException {
+        int campos = (alumno.getId() != null ? ID : 0)
+                | (alumno.getNombre() != null ? NOMBRE : 0)
+                | (alumno.getApellido() != null ? APELLIDO : 0)
+                | (alumno.getGrado() != null ? GRADO : 0)
+                | (alumno.getCreatedAt() != null ? CREATED_AT : 0)
+                | (alumno.getUpdatedAt() != null ? UPDATED_AT : 0)
+                | (alumno.getUuid() != null ? UUID_ : 0)
+                | (alumno.getAsignatura() != null ? ASIGNATURA : 0);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FORMATO);
+        out.writeByte(campos);
+        if ((campos & ID) != 0) {
+            out.writeLong(alumno.getId());
+        }
+        if ((campos & NOMBRE) != 0) {
+            out.writeUTF(alumno.getNombre());
+        }
+        if ((campos & APELLIDO) != 0) {
+            out.writeUTF(alumno.getApellido());
+        }
+        if ((campos & GRADO) != 0) {
+            escribirDiccionario(out, alumno.getGrado());
+        }
+        if ((campos & CREATED_AT) != 0) {
+            out.writeLong(aNanos(alumno.getCreatedAt()));
+        }
+        if ((campos & UPDATED_AT) != 0) {
+            out.writeLong(aNanos(alumno.getUpdatedAt()));
+        }
+        if ((campos & UUID_) != 0) {
+            out.writeLong(alumno.getUuid().getMostSignificantBits());
+            out.writeLong(alumno.getUuid().getLeastSignificantBits());
+        }
+        if ((campos & ASIGNATURA) != 0) {
+            escribirDiccionario(out, alumno.getAsignatura());
+        }
+        return bytes.toByteArray();
+    }
+
+    private AlumnoResponseDto decodificar(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        byte formato = in.readByte();
+        if (formato != FORMATO) {
+            throw new IOException("Formato desconocido: " + formato);
+        }
+        int campos = in.readUnsignedByte();
+        AlumnoResponseDto alumno = new AlumnoResponseDto();
+        if ((campos & ID) != 0) {
+            alumno.setId(in.readLong());
+        }
+        if ((campos & NOMBRE) != 0) {
+            alumno.setNombre(in.readUTF());
+        }
+        if ((campos & APELLIDO) != 0) {
+            alumno.setApellido(in.readUTF());
+        }
+        if ((campos & GRADO) != 0) {
+            alumno.setGrado(leerDiccionario(in));
+        }
+        if ((campos & CREATED_AT) != 0) {
+            alumno.setCreatedAt(deNanos(in.readLong()));
+        }
+        if ((campos & UPDATED_AT) != 0) {
+            alumno.setUpdatedAt(deNanos(in.readLong()));
+        }
+        if ((campos & UUID_) != 0) {
+            alumno.setUuid(new UUID(in.readLong(), in.readLong()));
+        }
+        if ((campos & ASIGNATURA) != 0) {
+            alumno.setAsignatura(leerDiccionario(in));
+        }
+        return alumno;
+    }
+
+    // Código del diccionario, o SIN_CODIGO y la cadena entera si el diccionario está lleno
+    private void escribirDiccionario(DataOutputStream out, String valor) throws IOException {
+        int codigo = diccionario.codigo(valor);
+        out.writeShort(codigo < 0 ? SIN_CODIGO : codigo);
+        if (codigo < 0) {
+            out.writeUTF(valor);
+        }
+    }
+
+    private String leerDiccionario(DataInputStream in) throws IOException {
+        short codigo = in.readShort();
+        return codigo == SIN_CODIGO ? in.readUTF() : diccionario.valor(codigo);
+    }
+
+    // Sin pérdida de precisión (el ETag y las versiones de la caché usan updatedAt), válido entre 1677 y 2262
+    private static long aNanos(LocalDateTime fecha) {
+        return Math.addExact(Math.multiplyExact(fecha.toEpochSecond(ZoneOffset.UTC), NANOS), fecha.getNano());
+    }
+
+    private static LocalDateTime deNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS), (int) Math.floorMod(nanos, NANOS), ZoneOffset.UTC);
+    }
+}
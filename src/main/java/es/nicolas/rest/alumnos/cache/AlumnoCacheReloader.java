@@ -0,0 +1,36 @@
+package es.nicolas.rest.alumnos.cache;
+
+import es.nicolas.config.cache.CacheReloader;
+import es.nicolas.rest.alumnos.mappers.AlumnoMapper;
+import es.nicolas.rest.alumnos.repositories.AlumnosRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recarga en segundo plano los alumnos de la caché que han pasado su TTL blando.
+ * La clave principal de la caché de alumnos es el id (el uuid es un alias, MultiKeyCache)
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class AlumnoCacheReloader implements CacheReloader {
+    private final AlumnosRepository alumnosRepository;
+    private final AlumnoMapper alumnoMapper;
+
+    @Override
+    public String cacheName() {
+        return "alumnos";
+    }
+
+    @Override
+    public Object reload(Object key) {
+        if (!(key instanceof Long id)) {
+            return null;
+        }
+        log.debug("Recargando alumno {} en la caché", id);
+        return alumnosRepository.findById(id)
+                .map(alumnoMapper::toAlumnoResponseDto)
+                .orElse(null);
+    }
+}
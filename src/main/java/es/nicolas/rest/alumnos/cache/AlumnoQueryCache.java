@@ -0,0 +1,75 @@
+package es.nicolas.rest.alumnos.cache;
+
+import es.nicolas.utils.etag.WriteVersions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Caché de los resultados de las consultas de listado de alumnos (páginas y slices).
+ * La clave lleva los filtros normalizados, la página, la ordenación y la versión de escritura de los alumnos:
+ * cada alta, modificación o borrado incrementa la versión, así las páginas anteriores dejan de usarse
+ * (caducan solas en la caché) y las consultas repetidas se sirven de memoria hasta la siguiente escritura.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class AlumnoQueryCache {
+    public static final String CACHE = "alumnos-consultas";
+
+    private final CacheManager cacheManager;
+    // Versión de los datos de alumnos, cambia con cada escritura
+    private final WriteVersions writeVersions;
+
+    // Los filtros de texto no distinguen mayúsculas, igual que las consultas
+    record Clave(long version, String tipo, List<Object> filtros, int pagina, int tamano, String orden) {
+    }
+
+    /**
+     * Devuelve el resultado cacheado o lo calcula y lo guarda
+     *
+     * @param tipo     tipo de consulta (page, slice...)
+     * @param pageable página y ordenación
+     * @param consulta consulta a la base de datos si no está en caché
+     * @param filtros  filtros de la consulta
+     */
+    @SafeVarargs
+    public final <T> T get(String tipo, Pageable pageable, Supplier<T> consulta, Optional<?>... filtros) {
+        Cache cache = cacheManager.getCache(CACHE);
+        if (cache == null) {
+            return consulta.get();
+        }
+        // La versión se lee antes de consultar: si hay una escritura mientras tanto, el resultado queda con la versión vieja
+        Clave clave = new Clave(version(), tipo,
+                Arrays.stream(filtros).map(AlumnoQueryCache::normalizar).toList(),
+                pageable.isPaged() ? pageable.getPageNumber() : -1,
+                pageable.isPaged() ? pageable.getPageSize() : -1,
+                pageable.getSort().toString());
+        return cache.get(clave, consulta::get);
+    }
+
+    /**
+     * Invalida todos los resultados cacheados
+     */
+    public void invalidar() {
+        log.debug("Versión de los alumnos: {}", writeVersions.incrementar(WriteVersions.ALUMNOS));
+    }
+
+    public long version() {
+        return writeVersions.version(WriteVersions.ALUMNOS);
+    }
+
+    private static Object normalizar(Optional<?> filtro) {
+        return filtro.map(valor -> valor instanceof String texto ? texto.toLowerCase(Locale.ROOT) : valor)
+                .orElse(null);
+    }
+}
@@ -1,10 +1,16 @@
 package es.nicolas.rest.alumnos.controllers;
 
 
+import es.nicolas.rest.alumnos.dto.AlumnoBulkResponseDto;
+import es.nicolas.rest.alumnos.dto.AlumnoBulkUpdateResponseDto;
 import es.nicolas.rest.alumnos.dto.AlumnoCreateDto;
 import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
 import es.nicolas.rest.alumnos.dto.AlumnoUpdateDto;
+import es.nicolas.rest.alumnos.exceptions.AlumnoPreconditionFailedException;
+import es.nicolas.rest.alumnos.export.AlumnoExportFormat;
 import es.nicolas.rest.alumnos.services.AlumnosService;
+import es.nicolas.utils.etag.ETagUtils;
+import es.nicolas.utils.pagination.CursorUtils;
 import es.nicolas.utils.pagination.PageResponse;
 import es.nicolas.utils.pagination.PaginationLinksUtils;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,22 +20,32 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
 
 /**
@@ -48,22 +64,31 @@ public class AlumnosRestController {
 
     private final AlumnosService alumnosService; //Uso de la @Req.ArgsConst.
     private final PaginationLinksUtils paginationLinksUtils; // Para las paginaciones
+    private final CursorUtils cursorUtils; // Para la paginación por cursor
+
+    // Las exportaciones grandes tardan más que el timeout por defecto de las peticiones asíncronas,
+    // solo esta petición lo amplía
+    @Value("${alumnos.export.timeout:10m}")
+    private Duration exportTimeout;
 
     //Obtener todos los alumnos o filtrar por nombre y/o apellido
     // Podemos activar CORS en SecurityConfig de manera centralizada
     // o por método de esta manera
     @Operation(summary = "Obtenemos todos los alumnos", description = "Obtiene una lista de alumnos")
     @Parameters({
-            @Parameter(name = "nombre", description = "Nombre del alumno", example = ""),
-            @Parameter(name = "apellido", description = "Apellido del alumno", example = ""),
+            @Parameter(name = "nombre", description = "Nombre del alumno: empieza por el texto (usa el índice); con * delante busca por contenido (*texto), recorriendo la tabla", example = ""),
+            @Parameter(name = "apellido", description = "Apellido del alumno: empieza por el texto (usa el índice); con * delante busca por contenido (*texto), recorriendo la tabla", example = ""),
             @Parameter(name = "isDeleted", description = "Si está borrado o no", example = "false"),
             @Parameter(name = "page", description = "Número de página", example = "0"),
             @Parameter(name = "size", description = "Tamaño de página", example = "10"),
             @Parameter(name = "sortBy", description = "Campo por el que ordenar", example = "id"),
-            @Parameter(name = "direction", description = "Dirección de ordenación", example = "asc")
+            @Parameter(name = "direction", description = "Dirección de ordenación", example = "asc"),
+            @Parameter(name = "withTotal", description = "Si es false no se calculan totalPages ni totalElements (sin consulta COUNT)", example = "true"),
+            @Parameter(name = "after", description = "Cursor de la página anterior; si se indica (aunque sea vacío) se pagina por cursor en vez de por número de página", example = "")
     })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Página de alumnos"),
+            @ApiResponse(responseCode = "400", description = "Cursor u ordenación no válidos para la paginación por cursor")
     })
     //@CrossOrigin(origins = "http://mifrontend.es")
     @GetMapping()
@@ -74,21 +99,92 @@ public class AlumnosRestController {
                                                                          @RequestParam(defaultValue = "10") int size,
                                                                          @RequestParam(defaultValue = "id") String sortBy,
                                                                          @RequestParam(defaultValue = "asc") String direction,
+                                                                         @RequestParam(defaultValue = "true") boolean withTotal,
+                                                                         @RequestParam(required = false) String after,
                                                                          HttpServletRequest request) {
         log.info("Buscando alumnos por nombre: {}, apellido: {}, isDeleted: {}", nombre, apellido, isDeleted);
         // Creamos el objeto de ordenacion Sort
         Sort sort = direction.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+
+        // Paginación por cursor: el coste de cada página no depende de su profundidad
+        if (after != null) {
+            Window<AlumnoResponseDto> window = alumnosService.findAllAfter(nombre, apellido, isDeleted, after, size, sort);
+            String next = cursorUtils.encode(window);
+            // El enlace conserva los filtros y la ordenación, el cursor solo es válido para ellos
+            UriComponentsBuilder cursorUriBuilder = UriComponentsBuilder.fromUriString(request.getRequestURL().toString());
+            request.getParameterMap().forEach((name, values) -> cursorUriBuilder.queryParam(name, (Object[]) values));
+            return ResponseEntity.ok()
+                    .header("link", paginationLinksUtils.createLinkHeader(next, cursorUriBuilder))
+                    .body(PageResponse.of(window, size, after.isBlank(), sortBy, direction, next));
+        }
+
         // Creamos la vista de la paginacion
         Pageable pageable = PageRequest.of(page, size, sort);
 
         UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromUriString(request.getRequestURL().toString());
 
+        // Sin total: nos ahorramos la consulta COUNT, solo se sabe si hay página siguiente
+        if (!withTotal) {
+            Slice<AlumnoResponseDto> sliceResult = alumnosService.findAllSlice(nombre, apellido, isDeleted, pageable);
+            return ResponseEntity.ok()
+                    .header("link", paginationLinksUtils.createLinkHeader(sliceResult, uriBuilder))
+                    .body(PageResponse.of(sliceResult, sortBy, direction));
+        }
+
         Page<AlumnoResponseDto> pageResult = alumnosService.findAll(nombre, apellido, isDeleted, pageable);
         return ResponseEntity.ok()
                 .header("link", paginationLinksUtils.createLinkHeader(pageResult, uriBuilder))
                 .body(PageResponse.of(pageResult, sortBy, direction));
     }
 
+    // Exportación completa del listado, para cargas masivas sin paginar
+    @Operation(summary = "Exportamos los alumnos", description = "Devuelve todos los alumnos que cumplen los filtros en NDJSON o CSV, en streaming")
+    @Parameters({
+            @Parameter(name = "nombre", description = "Nombre del alumno: empieza por el texto (usa el índice); con * delante busca por contenido (*texto), recorriendo la tabla", example = ""),
+            @Parameter(name = "apellido", description = "Apellido del alumno: empieza por el texto (usa el índice); con * delante busca por contenido (*texto), recorriendo la tabla", example = ""),
+            @Parameter(name = "isDeleted", description = "Si está borrado o no", example = "false"),
+            @Parameter(name = "format", description = "Formato de salida: ndjson o csv", example = "ndjson")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Alumnos exportados"),
+            @ApiResponse(responseCode = "400", description = "Formato no soportado")
+    })
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportAlumnos(@RequestParam(required = false) Optional<String> nombre,
+                                            @RequestParam(required = false) Optional<String> apellido,
+                                            @RequestParam(required = false) Optional<Boolean> isDeleted,
+                                            @RequestParam(defaultValue = "ndjson") String format,
+                                            HttpServletResponse response) {
+        log.info("Exportando alumnos en formato: {}", format);
+        AlumnoExportFormat formato = AlumnoExportFormat.from(format);
+        response.setContentType(formato.getMediaType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("alumnos." + formato.getExtension()).build().toString());
+        // Se escribe en otro hilo según se lee de la base de datos, sin cargar la tabla en memoria,
+        // con su propio timeout en lugar del de todas las peticiones asíncronas
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            alumnosService.exportar(nombre, apellido, isDeleted, formato, response.getOutputStream());
+            return null;
+        });
+    }
+
+    // Búsqueda aproximada por nombre y apellido: no distingue tildes ni mayúsculas
+    // y devuelve primero los más parecidos
+    @Operation(summary = "Buscamos alumnos por nombre y apellido", description = "Búsqueda aproximada en memoria, ordenada por parecido")
+    @Parameters({
+            @Parameter(name = "q", description = "Texto a buscar en nombre y apellido", example = "perez", required = true),
+            @Parameter(name = "limit", description = "Número máximo de resultados", example = "10")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Alumnos encontrados, de más a menos parecido")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<List<AlumnoResponseDto>> searchAlumnos(@RequestParam String q,
+                                                                 @RequestParam(defaultValue = "10") int limit) {
+        log.info("Buscando alumnos parecidos a: {}", q);
+        return ResponseEntity.ok(alumnosService.search(q, limit));
+    }
+
     //Obtener un AlumnoResponseDto por su id, pasado como path variable el id
     //Si existe, lo devuelve, si no, lanza un 404 Not Found
     @Operation(summary = "Obtenemos un alumno por su id", description = "Obtiene un alumno por su id")
@@ -97,12 +193,16 @@ public class AlumnosRestController {
     })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Alumno encontrado"),
+            @ApiResponse(responseCode = "304", description = "Alumno sin cambios desde el If-None-Match o el If-Modified-Since"),
             @ApiResponse(responseCode = "404", description = "Alumno no encontrado")
     })
     @GetMapping("/{id}")
     public ResponseEntity<AlumnoResponseDto> getAlumnoById(@PathVariable Long id) {
         log.info("Buscando alumnos por id: {}", id);
-        return ResponseEntity.ok(alumnosService.findById(id));
+        // El alumno suele venir de la caché; con el ETag y el Last-Modified Spring responde 304
+        // a If-None-Match / If-Modified-Since sin serializar el cuerpo
+        AlumnoResponseDto alumno = alumnosService.findById(id);
+        return ETagUtils.ok(alumno, eTag(alumno), alumno.getUpdatedAt());
     }
 
     //Crear un nuevo alumnoCreateDto, pasado en el body como JSON, y devolver el alumno creado
@@ -119,13 +219,26 @@ public class AlumnosRestController {
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
+    // Carga masiva: array JSON o NDJSON (un alumno por línea), se lee en streaming
+    @Operation(summary = "Creamos alumnos de forma masiva", description = "Crea los alumnos de un array JSON o NDJSON por lotes e informa de los errores por fila")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Carga procesada, con los creados y los errores por fila")
+    })
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<AlumnoBulkResponseDto> createBulk(HttpServletRequest request) throws IOException {
+        log.info("Carga masiva de alumnos");
+        return ResponseEntity.ok(alumnosService.saveAll(request.getInputStream()));
+    }
+
     /**
      * Actualiza un alumno existente por su id.
      * @param id                El id del alumno a actualizar.
      * @param AlumnoUpdateDto con los datos actualizados.
+     * @param ifMatch           ETag leído antes de modificar, opcional.
      * @return ResponseEntity con el alumno actualizado.
      * @throws AlumnoNotFoundException   si no existe el alumno (404)
      * @throws AlumnoBadRequestException si los datos son inválidos (400)
+     * @throws AlumnoPreconditionFailedException si el If-Match no coincide (412)
      */
     @Operation(summary = "Actualiza un alumno existente", description = "Actualiza un alumno existente con los datos proporcionados")
     @Parameters({
@@ -135,21 +248,27 @@ public class AlumnosRestController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Alumno actualizado"),
             @ApiResponse(responseCode = "400", description = "Datos inválidos para actualizar el alumno"),
-            @ApiResponse(responseCode = "404", description = "Alumno no encontrado")
+            @ApiResponse(responseCode = "404", description = "Alumno no encontrado"),
+            @ApiResponse(responseCode = "412", description = "El If-Match no coincide con la versión actual del alumno")
     })
     @PutMapping("/{id}")
-    public ResponseEntity<AlumnoResponseDto> update(@PathVariable Long id, @Valid @RequestBody AlumnoUpdateDto alumnoUpdateDto) {
+    public ResponseEntity<AlumnoResponseDto> update(@PathVariable Long id, @Valid @RequestBody AlumnoUpdateDto alumnoUpdateDto,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Actualizando alumno con id: {} con alumno: {}", id, alumnoUpdateDto);
-        return ResponseEntity.ok(alumnosService.update(id, alumnoUpdateDto));
+        comprobarIfMatch(id, ifMatch);
+        AlumnoResponseDto alumno = alumnosService.update(id, alumnoUpdateDto);
+        return ETagUtils.ok(alumno, eTag(alumno), alumno.getUpdatedAt());
     }
 
     /**
      * Actualiza parcialmente un alumno existente por su id.
      * @param id                del alumno a actualizar.
      * @param /*alumnoUpadteDto con los datos a actualizar.
+     * @param ifMatch           ETag leído antes de modificar, opcional.
      * @return ResponseEntity con el alumno actualizado.
      * @throws AlumnoNotFoundException   si no existe el alumno (404)
      * @throws AlumnoBadRequestException si los datos son inválidos (400)
+     * @throws AlumnoPreconditionFailedException si el If-Match no coincide (412)
      */
     @Operation(summary = "Actualiza un alumno parcialmente", description = "Actualiza parcialmente un alumno existente con los datos proporcionados")
     @Parameters({
@@ -159,12 +278,64 @@ public class AlumnosRestController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Alumno actualizado"),
             @ApiResponse(responseCode = "400", description = "Datos inválidos para actualizar el alumno"),
-            @ApiResponse(responseCode = "404", description = "Alumno no encontrado")
+            @ApiResponse(responseCode = "404", description = "Alumno no encontrado"),
+            @ApiResponse(responseCode = "412", description = "El If-Match no coincide con la versión actual del alumno")
     })
     @PatchMapping("/{id}")
-    public ResponseEntity<AlumnoResponseDto> updatePartial(@PathVariable Long id, @Valid @RequestBody AlumnoUpdateDto alumnoUpdateDto) {
+    public ResponseEntity<AlumnoResponseDto> updatePartial(@PathVariable Long id, @Valid @RequestBody AlumnoUpdateDto alumnoUpdateDto,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Actualizando parcialmente alumno con id: {} con alumno: {}", id, alumnoUpdateDto);
-        return ResponseEntity.ok(alumnosService.update(id, alumnoUpdateDto));
+        comprobarIfMatch(id, ifMatch);
+        AlumnoResponseDto alumno = alumnosService.update(id, alumnoUpdateDto);
+        return ETagUtils.ok(alumno, eTag(alumno), alumno.getUpdatedAt());
+    }
+
+    /**
+     * Actualiza a la vez todos los alumnos de una asignatura y/o grado, por ejemplo para cambiar de grado a una clase.
+     * @param asignatura nombre de la asignatura de los alumnos a actualizar
+     * @param grado      grado de los alumnos a actualizar
+     * @param alumnoUpdateDto campos a cambiar, los que no vienen no se tocan
+     * @return ResponseEntity con el número de alumnos actualizados.
+     * @throws AlumnoBulkRequestException si no hay filtros o campos a cambiar (400)
+     */
+    @Operation(summary = "Actualiza varios alumnos a la vez", description = "Actualiza parcialmente todos los alumnos no borrados que cumplen los filtros")
+    @Parameters({
+            @Parameter(name = "asignatura", description = "Asignatura de los alumnos", example = "Programacion"),
+            @Parameter(name = "grado", description = "Grado de los alumnos", example = "1 DAW")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Alumnos actualizados"),
+            @ApiResponse(responseCode = "400", description = "Sin filtros o sin campos a cambiar")
+    })
+    @PatchMapping
+    public ResponseEntity<AlumnoBulkUpdateResponseDto> updatePartialAll(@RequestParam(required = false) Optional<String> asignatura,
+                                                                        @RequestParam(required = false) Optional<String> grado,
+                                                                        @Valid @RequestBody AlumnoUpdateDto alumnoUpdateDto) {
+        log.info("Actualizando alumnos de asignatura: {}, grado: {} con: {}", asignatura, grado, alumnoUpdateDto);
+        return ResponseEntity.ok(alumnosService.updateAll(asignatura, grado, alumnoUpdateDto));
+    }
+
+    /**
+     * Borra (borrado lógico) a la vez todos los alumnos de una asignatura y/o grado.
+     * @param asignatura nombre de la asignatura de los alumnos a borrar
+     * @param grado      grado de los alumnos a borrar
+     * @return ResponseEntity con el número de alumnos borrados.
+     * @throws AlumnoBulkRequestException si no hay filtros (400)
+     */
+    @Operation(summary = "Borra varios alumnos a la vez", description = "Marca como borrados todos los alumnos que cumplen los filtros")
+    @Parameters({
+            @Parameter(name = "asignatura", description = "Asignatura de los alumnos", example = "Programacion"),
+            @Parameter(name = "grado", description = "Grado de los alumnos", example = "1 DAW")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Alumnos borrados"),
+            @ApiResponse(responseCode = "400", description = "Sin filtros")
+    })
+    @DeleteMapping
+    public ResponseEntity<AlumnoBulkUpdateResponseDto> deleteAll(@RequestParam(required = false) Optional<String> asignatura,
+                                                                 @RequestParam(required = false) Optional<String> grado) {
+        log.info("Borrando alumnos de asignatura: {}, grado: {}", asignatura, grado);
+        return ResponseEntity.ok(alumnosService.deleteAll(asignatura, grado));
     }
 
     /**
@@ -188,6 +359,19 @@ public class AlumnosRestController {
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
 
+    // ETag fuerte del alumno: cambia con cada actualización (updatedAt) y si cambia su asignatura
+    private static String eTag(AlumnoResponseDto alumno) {
+        return ETagUtils.of("alumno", alumno.getId(), alumno.getUpdatedAt(), alumno.getAsignatura());
+    }
+
+    // Sin If-Match se actualiza siempre, como hasta ahora
+    private void comprobarIfMatch(Long id, String ifMatch) {
+        if (ifMatch != null && !ETagUtils.matches(ifMatch, eTag(alumnosService.findById(id)))) {
+            log.warn("If-Match {} no coincide con la versión actual del alumno {}", ifMatch, id);
+            throw new AlumnoPreconditionFailedException(id);
+        }
+    }
+
     /**
      * Manejador de excepciones de Validacion: 400 Bad Request
      *
@@ -0,0 +1,19 @@
+package es.nicolas.rest.alumnos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Error de una fila en la carga masiva de alumnos")
+public class AlumnoBulkErrorDto {
+    @Schema(description = "Número de fila en el cuerpo de la petición, empezando en 1", example = "3")
+    private long fila;
+    @Schema(description = "Motivo por el que no se ha creado", example = "apellido: El apellido no puede estar vacío.")
+    private String mensaje;
+}
@@ -0,0 +1,23 @@
+package es.nicolas.rest.alumnos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Resultado de la carga masiva de alumnos")
+public class AlumnoBulkResponseDto {
+    @Schema(description = "Filas recibidas", example = "1000")
+    private long total;
+    @Schema(description = "Alumnos creados", example = "998")
+    private long creados;
+    @Schema(description = "Filas que no se han podido crear y el motivo")
+    private List<AlumnoBulkErrorDto> errores;
+}
@@ -0,0 +1,17 @@
+package es.nicolas.rest.alumnos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Resultado de una actualización o borrado masivo de alumnos")
+public class AlumnoBulkUpdateResponseDto {
+    @Schema(description = "Alumnos afectados", example = "25")
+    private long afectados;
+}
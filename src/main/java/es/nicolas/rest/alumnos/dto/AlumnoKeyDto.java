@@ -0,0 +1,21 @@
+package es.nicolas.rest.alumnos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Claves de un alumno afectado por una operación masiva")
+public class AlumnoKeyDto {
+    @Schema(description = "ID del alumno", example = "1")
+    private Long id;
+    @Schema(description = "UUID del alumno", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID uuid;
+}
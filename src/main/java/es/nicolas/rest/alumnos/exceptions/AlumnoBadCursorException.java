@@ -0,0 +1,12 @@
+package es.nicolas.rest.alumnos.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Excepción lanzada cuando el cursor de paginación no es válido para la consulta (ERROR - 400 Bad Request)
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class AlumnoBadCursorException extends AlumnoException {
+    public AlumnoBadCursorException(String message) {
+        super(message);
+    }
+}
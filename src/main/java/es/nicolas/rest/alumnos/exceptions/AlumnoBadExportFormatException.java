@@ -0,0 +1,12 @@
+package es.nicolas.rest.alumnos.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Excepción lanzada cuando se pide la exportación en un formato no soportado (ERROR - 400 Bad Request)
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class AlumnoBadExportFormatException extends AlumnoException {
+    public AlumnoBadExportFormatException(String formato) {
+        super("Formato de exportación no soportado: " + formato + ". Formatos válidos: ndjson, csv");
+    }
+}
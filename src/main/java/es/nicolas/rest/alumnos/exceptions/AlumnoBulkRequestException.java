@@ -0,0 +1,12 @@
+package es.nicolas.rest.alumnos.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Excepción lanzada cuando una operación masiva no indica filtros o cambios (ERROR - 400 Bad Request)
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class AlumnoBulkRequestException extends AlumnoException {
+    public AlumnoBulkRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package es.nicolas.rest.alumnos.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Excepción lanzada cuando el If-Match no coincide con la versión actual del alumno (ERROR - 412 Precondition Failed)
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class AlumnoPreconditionFailedException extends AlumnoException {
+    public AlumnoPreconditionFailedException(Long id) {
+        super("El alumno con id " + id + " ha cambiado desde que se leyó.");
+    }
+}
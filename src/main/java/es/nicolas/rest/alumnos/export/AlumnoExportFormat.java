@@ -0,0 +1,26 @@
+package es.nicolas.rest.alumnos.export;
+
+import es.nicolas.rest.alumnos.exceptions.AlumnoBadExportFormatException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+// Formatos en los que se puede exportar el listado de alumnos
+@Getter
+@RequiredArgsConstructor
+public enum AlumnoExportFormat {
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+    CSV(new MediaType("text", "csv", java.nio.charset.StandardCharsets.UTF_8), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    public static AlumnoExportFormat from(String formato) {
+        for (AlumnoExportFormat f : values()) {
+            if (f.extension.equalsIgnoreCase(formato)) {
+                return f;
+            }
+        }
+        throw new AlumnoBadExportFormatException(formato);
+    }
+}
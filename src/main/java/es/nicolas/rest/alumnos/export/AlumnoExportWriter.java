@@ -0,0 +1,82 @@
+package es.nicolas.rest.alumnos.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Escribe alumnos de uno en uno en el formato de exportación, sin acumularlos en memoria.
+ * Se debe cerrar (o hacer flush) al terminar para vaciar el buffer.
+ */
+public class AlumnoExportWriter implements AutoCloseable {
+    // Caracteres con los que empieza una fórmula en Excel, LibreOffice o Google Sheets (también tabulador y retorno)
+    private static final String INICIO_FORMULA = "=+-@\t\r";
+    private static final String[] CABECERA_CSV = {"id", "nombre", "apellido", "grado", "createdAt", "updatedAt", "uuid", "asignatura"};
+
+    private final AlumnoExportFormat formato;
+    private final ObjectWriter jsonWriter;
+    private final Writer writer;
+    private long filas = 0;
+
+    public AlumnoExportWriter(AlumnoExportFormat formato, ObjectMapper objectMapper, OutputStream out) {
+        this.formato = formato;
+        this.jsonWriter = objectMapper.writerFor(AlumnoResponseDto.class);
+        this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+
+    public void write(AlumnoResponseDto alumno) throws IOException {
+        if (formato == AlumnoExportFormat.NDJSON) {
+            writer.write(jsonWriter.writeValueAsString(alumno));
+            writer.write("\n");
+        } else {
+            if (filas == 0) {
+                writeCabeceraCsv();
+            }
+            writer.write(String.join(",",
+                    csv(alumno.getId()), csv(alumno.getNombre()), csv(alumno.getApellido()), csv(alumno.getGrado()),
+                    csv(alumno.getCreatedAt()), csv(alumno.getUpdatedAt()), csv(alumno.getUuid()), csv(alumno.getAsignatura())));
+            writer.write("\r\n");
+        }
+        filas++;
+    }
+
+    public long getFilas() {
+        return filas;
+    }
+
+    // Un CSV vacío también lleva la cabecera
+    @Override
+    public void close() throws IOException {
+        if (formato == AlumnoExportFormat.CSV && filas == 0) {
+            writeCabeceraCsv();
+        }
+        // No cerramos el stream de salida, es de la respuesta HTTP
+        writer.flush();
+    }
+
+    private void writeCabeceraCsv() throws IOException {
+        writer.write(String.join(",", CABECERA_CSV));
+        writer.write("\r\n");
+    }
+
+    // Entrecomilla el campo si lleva separadores, comillas o saltos de línea (RFC 4180).
+    // Los textos que empiezan por =, +, - o @ una hoja de cálculo los ejecutaría como fórmula:
+    // se les antepone una comilla simple para que se lean como texto
+    static String csv(Object valor) {
+        String texto = Objects.toString(valor, "");
+        if (valor instanceof String && !texto.isEmpty() && INICIO_FORMULA.indexOf(texto.charAt(0)) >= 0) {
+            texto = "'" + texto;
+        }
+        if (texto.contains(",") || texto.contains("\"") || texto.contains("\n") || texto.contains("\r")) {
+            return "\"" + texto.replace("\"", "\"\"") + "\"";
+        }
+        return texto;
+    }
+}
@@ -1,6 +1,8 @@
 package es.nicolas.rest.alumnos.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import es.nicolas.rest.asignaturas.models.Asignatura;
+import es.nicolas.utils.persistence.IdGeneration;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import lombok.*;
@@ -19,13 +21,20 @@ import java.util.UUID;
 @Entity
 // Si no se especifica, el nombre de la tabla será el mismo que el de la clase
 @Schema(name = "Alumnos")
-@Table(name="ALUMNOS")
+// Índices sobre las columnas de búsqueda normalizadas (búsquedas por prefijo sin recorrer la tabla)
+@Table(name="ALUMNOS", indexes = {
+        @Index(name = "idx_alumnos_nombre_busqueda", columnList = "nombre_busqueda"),
+        @Index(name = "idx_alumnos_apellido_busqueda", columnList = "apellido_busqueda")
+})
 public class Alumno {
     @Schema(description = "ID del alumno", example = "1")
     // Indica que este campo es la clave primaria de la entidad
     @Id
     // Establece la estrategia de generación de valores para la clave primaria
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Secuencia con bloques de ids en memoria: permite agrupar los INSERT en batches JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alumnos_seq")
+    @SequenceGenerator(name = "alumnos_seq", sequenceName = "alumnos_seq",
+            allocationSize = IdGeneration.ALLOCATION_SIZE, initialValue = IdGeneration.INITIAL_VALUE)
     private Long id;
     // Por defecto, los campos son obligatorios (nullable = true)
     @Column(nullable = false, length = 30)
@@ -34,6 +43,20 @@ public class Alumno {
     @Column(nullable = false, length = 30)
     @Schema(description = "Apellido del alumno", example = "Pérez")
     private String apellido;
+    // Columnas de búsqueda: nombre y apellido en minúsculas, las calcula la base de datos
+    // y no se escriben nunca desde JPA. Permiten buscar sin aplicar lower() a cada fila
+    @Column(insertable = false, updatable = false, columnDefinition = "VARCHAR(30) GENERATED ALWAYS AS (LOWER(nombre))")
+    @Schema(hidden = true)
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private String nombreBusqueda;
+    @Column(insertable = false, updatable = false, columnDefinition = "VARCHAR(30) GENERATED ALWAYS AS (LOWER(apellido))")
+    @Schema(hidden = true)
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private String apellidoBusqueda;
     @Column(nullable = false, length = 10)
     @Schema(description = "Grado del alumno", example = "1 DAW")
     private String grado;
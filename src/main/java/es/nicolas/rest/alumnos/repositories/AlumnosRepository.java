@@ -1,21 +1,26 @@
 package es.nicolas.rest.alumnos.repositories;
 
+import es.nicolas.rest.alumnos.dto.AlumnoKeyDto;
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
 import es.nicolas.rest.alumnos.models.Alumno;
-import es.nicolas.rest.asignaturas.models.Asignatura;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository // <-- No obligatorio
-public interface AlumnosRepository extends JpaRepository<Alumno, Long>, JpaSpecificationExecutor<Alumno> {
+public interface AlumnosRepository extends JpaRepository<Alumno, Long>, JpaSpecificationExecutor<Alumno>, AlumnosRepositoryCustom {
 
 //    Page<Alumno> findByNombre(String nombre, Pageable pageable);
 
@@ -39,21 +44,72 @@ public interface AlumnosRepository extends JpaRepository<Alumno, Long>, JpaSpeci
 
     // Actualizar la tarjeta con isDeleted a true
     @Modifying // Para indicar que es una consulta de modificación
-    @Query("UPDATE Alumno a SET a.isDeleted = true WHERE a.id =:id")
+    @Query("UPDATE Alumno a SET a.isDeleted = true, a.updatedAt = CURRENT_TIMESTAMP WHERE a.id =:id")
     void updateIsDeletedToTrueById(Long id);
 
+    // Alumnos no borrados de una asignatura y/o grado (nulos = sin filtro), el filtro de las operaciones masivas
+    String ACTIVOS_POR_ASIGNATURA_Y_GRADO = "a.isDeleted = false " +
+            "AND (:asignatura IS NULL OR a.asignatura.id IN " +
+            "(SELECT s.id FROM Asignatura s WHERE LOWER(s.nombre) = LOWER(:asignatura))) " +
+            "AND (:grado IS NULL OR LOWER(a.grado) = LOWER(:grado))";
+
+    // Solo las claves de los afectados por una operación masiva, para notificar y quitarlos de la caché
+    @Query("SELECT new es.nicolas.rest.alumnos.dto.AlumnoKeyDto(a.id, a.uuid) FROM Alumno a WHERE "
+            + ACTIVOS_POR_ASIGNATURA_Y_GRADO)
+    List<AlumnoKeyDto> findKeysActivosByAsignaturaAndGrado(String asignatura, String grado);
+
+    // Actualizaciones masivas por los ids leídos con findKeysActivosByAsignaturaAndGrado, sin cargar los alumnos
+    // ni volver a aplicar el filtro: cambian exactamente las filas que se van a notificar y quitar de la caché.
+    // clearAutomatically para que el contexto de persistencia no guarde los valores anteriores
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Alumno a SET a.isDeleted = true, a.updatedAt = :ahora WHERE a.id IN :ids")
+    int updateIsDeletedToTrueByIdIn(Collection<Long> ids, LocalDateTime ahora);
+
+    // Los campos que vienen a null no se cambian
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Alumno a SET a.nombre = COALESCE(:nombre, a.nombre), a.apellido = COALESCE(:apellido, a.apellido), " +
+            "a.grado = COALESCE(:grado, a.grado), a.updatedAt = :ahora WHERE a.id IN :ids")
+    int updateCamposByIdIn(Collection<Long> ids, String nombre, String apellido, String grado, LocalDateTime ahora);
+
+    // Purga: ids de los alumnos borrados (soft delete) antes de la fecha límite, por orden de id (keyset)
+    @Query("SELECT a.id FROM Alumno a WHERE a.isDeleted = true AND a.updatedAt < :limite AND a.id > :desdeId ORDER BY a.id")
+    List<Long> findIdsBorradosAntesDe(LocalDateTime limite, Long desdeId, Pageable pageable);
+
     @Query("SELECT a FROM Alumno a WHERE a.asignatura.usuario.id = :usuarioId")
     Page<Alumno> findByUsuarioId(Long usuarioId, Pageable pageable);
 
     @Query("SELECT a FROM Alumno a WHERE a.asignatura.usuario.id = :usuarioId")
     List<Alumno> findByUsuarioId(Long usuarioId);
 
+    // Proyección al DTO en una sola consulta, sin cargar asignatura, usuario ni roles
+    @Query(value = "SELECT new es.nicolas.rest.alumnos.dto.AlumnoResponseDto(a.id, a.nombre, a.apellido, a.grado, " +
+            "a.createdAt, a.updatedAt, a.uuid, s.nombre) FROM Alumno a JOIN a.asignatura s WHERE s.usuario.id = :usuarioId",
+            countQuery = "SELECT COUNT(a) FROM Alumno a WHERE a.asignatura.usuario.id = :usuarioId")
+    Page<AlumnoResponseDto> findResponseDtoByUsuarioId(Long usuarioId, Pageable pageable);
+
+    // Precarga de la caché: alumnos no borrados ya como DTO, en el orden de la paginación (los más recientes primero)
+    @Query("SELECT new es.nicolas.rest.alumnos.dto.AlumnoResponseDto(a.id, a.nombre, a.apellido, a.grado, " +
+            "a.createdAt, a.updatedAt, a.uuid, s.nombre) FROM Alumno a JOIN a.asignatura s WHERE a.isDeleted = false")
+    Slice<AlumnoResponseDto> findResponseDtoNoBorrados(Pageable pageable);
+
+    // Búsqueda aproximada: los alumnos no borrados de los ids que devuelve el índice y que no estaban en la caché,
+    // también los que no tienen asignatura, como en el resto de proyecciones
+    @Query("SELECT new es.nicolas.rest.alumnos.dto.AlumnoResponseDto(a.id, a.nombre, a.apellido, a.grado, " +
+            "a.createdAt, a.updatedAt, a.uuid, s.nombre) FROM Alumno a LEFT JOIN a.asignatura s WHERE a.id IN :ids AND a.isDeleted = false")
+    List<AlumnoResponseDto> findResponseDtoByIdIn(Collection<Long> ids);
+
     // Obtiene si existe un alumno con el id del usuario
     @Query("SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END FROM Alumno a WHERE a.asignatura.usuario.id = :id")
     Boolean existsByUsuarioId(Long id);
 
     Object findByNombreEqualsIgnoreCase(String nombre);
 
-    // Añadido para consulta GraphQL
-    List<Alumno> findByAsignatura(Asignatura asignatura);
+    // Añadido para consulta GraphQL: los alumnos de una asignatura con lo que esta carga siempre (usuario y roles)
+    @EntityGraph(attributePaths = {"asignatura", "asignatura.usuario", "asignatura.usuario.roles"})
+    List<Alumno> findByAsignaturaId(Long asignaturaId);
+
+    // Para GraphQL: trae en la misma consulta la asignatura y lo que esta carga siempre (usuario y roles)
+    @EntityGraph(attributePaths = {"asignatura", "asignatura.usuario", "asignatura.usuario.roles"})
+    @Query("SELECT a FROM Alumno a")
+    List<Alumno> findAllConAsignatura();
 }
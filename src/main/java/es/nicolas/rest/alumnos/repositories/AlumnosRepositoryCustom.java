@@ -0,0 +1,33 @@
+package es.nicolas.rest.alumnos.repositories;
+
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import es.nicolas.rest.alumnos.models.Alumno;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+/**
+ * Consultas de alumnos que devuelven directamente el DTO de respuesta
+ * con una sola sentencia (alumno + nombre de la asignatura), sin cargar entidades
+ */
+public interface AlumnosRepositoryCustom {
+
+    Page<AlumnoResponseDto> findAllResponseDto(Specification<Alumno> spec, Pageable pageable);
+
+    // Sin la consulta COUNT
+    Slice<AlumnoResponseDto> findSliceResponseDto(Specification<Alumno> spec, Pageable pageable);
+
+    // Paginación keyset: las filas siguientes a la posición en el orden indicado, sin OFFSET.
+    // Las claves de la posición de cada fila son las propiedades de la ordenación
+    Window<AlumnoResponseDto> scrollResponseDto(Specification<Alumno> spec, Sort sort, int limit, KeysetScrollPosition position);
+
+    // Recorre todos los resultados con un cursor JDBC de fetchSize filas.
+    // Debe consumirse y cerrarse dentro de una transacción
+    Stream<AlumnoResponseDto> streamResponseDto(Specification<Alumno> spec, Sort sort, int fetchSize);
+}
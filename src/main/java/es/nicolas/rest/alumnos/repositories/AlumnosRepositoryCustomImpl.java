@@ -0,0 +1,146 @@
+package es.nicolas.rest.alumnos.repositories;
+
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import es.nicolas.rest.alumnos.models.Alumno;
+import es.nicolas.rest.asignaturas.models.Asignatura;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Implementación del fragmento AlumnosRepositoryCustom.
+ * La proyección con constructor evita cargar la asignatura y, a través de ella,
+ * el usuario y sus roles (EAGER) por cada alumno de la página
+ */
+@RequiredArgsConstructor
+public class AlumnosRepositoryCustomImpl implements AlumnosRepositoryCustom {
+    private final EntityManager entityManager;
+
+    @Override
+    public Page<AlumnoResponseDto> findAllResponseDto(Specification<Alumno> spec, Pageable pageable) {
+        TypedQuery<AlumnoResponseDto> query = proyeccion(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        // El COUNT solo se lanza si no se puede deducir el total de la propia página
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public Slice<AlumnoResponseDto> findSliceResponseDto(Specification<Alumno> spec, Pageable pageable) {
+        TypedQuery<AlumnoResponseDto> query = proyeccion(spec, pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query.getResultList(), pageable, false);
+        }
+        // Pedimos una fila de más para saber si hay página siguiente
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+        List<AlumnoResponseDto> content = query.getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public Window<AlumnoResponseDto> scrollResponseDto(Specification<Alumno> spec, Sort sort, int limit, KeysetScrollPosition position) {
+        Specification<Alumno> criterio = position.isInitial() ? spec : spec.and(despuesDe(sort, position.getKeys()));
+        // Pedimos una fila de más para saber si hay ventana siguiente
+        List<AlumnoResponseDto> content = proyeccion(criterio, sort)
+                .setMaxResults(limit + 1)
+                .getResultList();
+        boolean hasNext = content.size() > limit;
+        List<AlumnoResponseDto> ventana = hasNext ? content.subList(0, limit) : content;
+        return Window.from(ventana, i -> ScrollPosition.forward(claves(ventana.get(i), sort)), hasNext);
+    }
+
+    // (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ..., con < en las claves descendentes
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Specification<Alumno> despuesDe(Sort sort, Map<String, Object> claves) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> alternativas = new ArrayList<>();
+            List<Predicate> iguales = new ArrayList<>();
+            for (Sort.Order order : sort) {
+                Path<Comparable> path = root.get(order.getProperty());
+                Comparable valor = (Comparable) claves.get(order.getProperty());
+                Predicate siguiente = order.isAscending()
+                        ? criteriaBuilder.greaterThan(path, valor)
+                        : criteriaBuilder.lessThan(path, valor);
+                List<Predicate> alternativa = new ArrayList<>(iguales);
+                alternativa.add(siguiente);
+                alternativas.add(criteriaBuilder.and(alternativa.toArray(Predicate[]::new)));
+                iguales.add(criteriaBuilder.equal(path, valor));
+            }
+            return criteriaBuilder.or(alternativas.toArray(Predicate[]::new));
+        };
+    }
+
+    private static Map<String, Object> claves(AlumnoResponseDto alumno, Sort sort) {
+        BeanWrapperImpl propiedades = new BeanWrapperImpl(alumno);
+        Map<String, Object> claves = new LinkedHashMap<>();
+        sort.forEach(order -> claves.put(order.getProperty(), propiedades.getPropertyValue(order.getProperty())));
+        return claves;
+    }
+
+    @Override
+    public Stream<AlumnoResponseDto> streamResponseDto(Specification<Alumno> spec, Sort sort, int fetchSize) {
+        // Al ser DTOs no se acumulan entidades en el contexto de persistencia: la memoria no crece con la tabla
+        return proyeccion(spec, sort)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    private TypedQuery<AlumnoResponseDto> proyeccion(Specification<Alumno> spec, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AlumnoResponseDto> query = criteriaBuilder.createQuery(AlumnoResponseDto.class);
+        Root<Alumno> root = query.from(Alumno.class);
+        Join<Alumno, Asignatura> asignatura = root.join("asignatura", JoinType.LEFT);
+        // Mismo orden que el constructor de AlumnoResponseDto
+        query.select(criteriaBuilder.construct(AlumnoResponseDto.class,
+                root.get("id"),
+                root.get("nombre"),
+                root.get("apellido"),
+                root.get("grado"),
+                root.get("createdAt"),
+                root.get("updatedAt"),
+                root.get("uuid"),
+                asignatura.get("nombre")));
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<Alumno> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Alumno> root = query.from(Alumno.class);
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(criteriaBuilder.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
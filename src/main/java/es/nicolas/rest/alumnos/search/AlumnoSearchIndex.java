@@ -0,0 +1,199 @@
+package es.nicolas.rest.alumnos.search;
+
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import es.nicolas.rest.alumnos.mappers.AlumnoMapper;
+import es.nicolas.rest.alumnos.models.Alumno;
+import es.nicolas.rest.alumnos.repositories.AlumnosRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de trigramas en memoria sobre nombre y apellido de los alumnos.
+ * Permite búsquedas aproximadas, sin distinguir mayúsculas ni tildes ("perez" encuentra "Pérez"),
+ * y ordenadas por parecido sin consultar la base de datos.
+ * Se construye al arrancar, antes de que la aplicación se marque como lista (readiness), solo con los alumnos
+ * no borrados, y el servicio lo mantiene al día en cada alta, modificación o borrado.
+ * De cada alumno solo guarda el id y su nombre y apellido normalizados: las búsquedas devuelven ids
+ * y el servicio trae los alumnos de la caché o de la base de datos, así no duplica la caché ni se queda
+ * con datos que ya no se muestran.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class AlumnoSearchIndex implements ApplicationRunner {
+    // Parecido mínimo para que un alumno aparezca en los resultados
+    static final double MIN_SIMILITUD = 0.3;
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Filas que trae cada viaje del cursor al construir el índice
+    private static final int FETCH_SIZE = 1000;
+
+    private final AlumnosRepository alumnosRepository;
+    private final AlumnoMapper alumnoMapper;
+
+    // Trigrama -> ids de los alumnos que lo contienen
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    // Id -> texto indexado del alumno y cuántos trigramas tiene
+    private final Map<Long, Documento> documentos = new ConcurrentHashMap<>();
+
+    private record Documento(String nombre, String apellido, int trigramas) {
+    }
+
+    /**
+     * Resultado de una búsqueda: id del alumno y parecido entre 0 y 1
+     */
+    public record Resultado(Long id, double similitud) {
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void run(ApplicationArguments args) {
+        reconstruir();
+    }
+
+    /**
+     * Construye el índice recorriendo los alumnos no borrados ya como DTO con un cursor,
+     * sin cargar entidades ni sus asignaturas. Debe llamarse dentro de una transacción
+     */
+    public void reconstruir() {
+        log.info("Construyendo el índice de búsqueda de alumnos");
+        synchronized (this) {
+            postings.clear();
+            documentos.clear();
+            try (var alumnos = alumnosRepository.streamResponseDto(
+                    (root, query, criteriaBuilder) -> criteriaBuilder.isFalse(root.get("isDeleted")),
+                    Sort.by("id"), FETCH_SIZE)) {
+                alumnos.forEach(this::indexar);
+            }
+        }
+        log.info("Índice de búsqueda de alumnos construido con {} alumnos", documentos.size());
+    }
+
+    /**
+     * Indexa un alumno nuevo o reemplaza el que tenía el mismo id
+     */
+    public void indexar(Alumno alumno) {
+        indexar(alumnoMapper.toAlumnoResponseDto(alumno));
+    }
+
+    public void indexar(AlumnoResponseDto alumno) {
+        indexar(alumno.getId(), alumno.getNombre(), alumno.getApellido());
+    }
+
+    private synchronized void indexar(Long id, String nombre, String apellido) {
+        eliminar(id);
+        String nombreNormalizado = nombre == null ? "" : normalizar(nombre);
+        String apellidoNormalizado = apellido == null ? "" : normalizar(apellido);
+        Set<String> trigramas = trigramas(nombreNormalizado + " " + apellidoNormalizado);
+        documentos.put(id, new Documento(nombreNormalizado, apellidoNormalizado, trigramas.size()));
+        trigramas.forEach(t -> postings.computeIfAbsent(t, k -> ConcurrentHashMap.newKeySet()).add(id));
+    }
+
+    /**
+     * Cambia el nombre y/o el apellido del alumno indexado con ese id, si lo está
+     *
+     * @param nombre   nombre nuevo, null para dejar el que tenía
+     * @param apellido apellido nuevo, null para dejar el que tenía
+     */
+    public synchronized void actualizar(Long id, String nombre, String apellido) {
+        Documento documento = documentos.get(id);
+        if (documento != null && (nombre != null || apellido != null)) {
+            indexar(id, nombre != null ? nombre : documento.nombre(), apellido != null ? apellido : documento.apellido());
+        }
+    }
+
+    public synchronized void eliminar(Long id) {
+        Documento anterior = documentos.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        // Los trigramas se vuelven a sacar del texto indexado en lugar de guardarlos por alumno
+        trigramas(anterior.nombre() + " " + anterior.apellido()).forEach(t -> postings.computeIfPresent(t, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        }));
+    }
+
+    /**
+     * Busca alumnos parecidos al texto indicado
+     *
+     * @param texto  texto a buscar en nombre y apellido
+     * @param limite número máximo de resultados
+     * @return ids de los alumnos ordenados de más a menos parecido
+     */
+    public List<Resultado> buscar(String texto, int limite) {
+        Set<String> consulta = trigramas(texto);
+        if (consulta.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        // Trigramas en común de cada candidato con la consulta
+        Map<Long, Integer> comunes = new HashMap<>();
+        for (String trigrama : consulta) {
+            Set<Long> ids = postings.get(trigrama);
+            if (ids != null) {
+                ids.forEach(id -> comunes.merge(id, 1, Integer::sum));
+            }
+        }
+        List<Resultado> resultados = new ArrayList<>();
+        comunes.forEach((id, enComun) -> {
+            Documento documento = documentos.get(id);
+            if (documento == null) {
+                return; // borrado mientras buscábamos
+            }
+            // Coeficiente de Dice: penaliza tanto lo que falta de la consulta como lo que sobra del alumno
+            double similitud = 2.0 * enComun / (consulta.size() + documento.trigramas());
+            // Proporción de la consulta encontrada: "perez" debe encontrar "Juan Pérez" aunque el nombre alargue el alumno
+            double cobertura = (double) enComun / consulta.size();
+            double parecido = Math.max(similitud, cobertura * 0.9);
+            if (parecido >= MIN_SIMILITUD) {
+                resultados.add(new Resultado(id, parecido));
+            }
+        });
+        resultados.sort(Comparator.comparingDouble(Resultado::similitud).reversed()
+                .thenComparing(Resultado::id));
+        return resultados.size() > limite ? List.copyOf(resultados.subList(0, limite)) : resultados;
+    }
+
+    public int size() {
+        return documentos.size();
+    }
+
+    /**
+     * Normaliza el texto: minúsculas y sin tildes ni diéresis (á -> a, ü -> u, ñ -> n)
+     */
+    static String normalizar(String texto) {
+        String sinMarcas = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Trigramas de cada palabra del texto normalizado, con dos espacios delante y uno detrás
+     * para que el principio de la palabra pese más y las palabras cortas también tengan trigramas
+     */
+    static Set<String> trigramas(String texto) {
+        Set<String> trigramas = new HashSet<>();
+        if (texto == null) {
+            return trigramas;
+        }
+        for (String palabra : SEPARADORES.split(normalizar(texto))) {
+            if (palabra.isEmpty()) {
+                continue;
+            }
+            String relleno = "  " + palabra + " ";
+            for (int i = 0; i + 3 <= relleno.length(); i++) {
+                trigramas.add(relleno.substring(i, i + 3));
+            }
+        }
+        return trigramas;
+    }
+}
@@ -1,17 +1,36 @@
 package es.nicolas.rest.alumnos.services;
 
+import es.nicolas.rest.alumnos.dto.AlumnoBulkResponseDto;
+import es.nicolas.rest.alumnos.dto.AlumnoBulkUpdateResponseDto;
 import es.nicolas.rest.alumnos.dto.AlumnoCreateDto;
 import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
 import es.nicolas.rest.alumnos.dto.AlumnoUpdateDto;
+import es.nicolas.rest.alumnos.export.AlumnoExportFormat;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
 import java.util.Optional;
 
 public interface AlumnosService {
 
     Page<AlumnoResponseDto> findAll(Optional<String> nombre, Optional<String> apellido, Optional<Boolean> isDeleted, Pageable pageable);
 
+    Slice<AlumnoResponseDto> findAllSlice(Optional<String> nombre, Optional<String> apellido, Optional<Boolean> isDeleted, Pageable pageable);
+
+    Window<AlumnoResponseDto> findAllAfter(Optional<String> nombre, Optional<String> apellido, Optional<Boolean> isDeleted, String after, int size, Sort sort);
+
+    long exportar(Optional<String> nombre, Optional<String> apellido, Optional<Boolean> isDeleted,
+                  AlumnoExportFormat formato, OutputStream out) throws IOException;
+
+    List<AlumnoResponseDto> search(String texto, int limite);
+
     AlumnoResponseDto findById(Long id);
 
     Page<AlumnoResponseDto> findByUsuarioId(Long usuarioId, Pageable pageable);
@@ -22,10 +41,16 @@ public interface AlumnosService {
     AlumnoResponseDto save(AlumnoCreateDto alumnoCreateDto);
     AlumnoResponseDto save(AlumnoCreateDto alumnoCreateDto, Long usuarioId);
 
+    AlumnoBulkResponseDto saveAll(InputStream body) throws IOException;
+
     AlumnoResponseDto update(Long id, AlumnoUpdateDto alumnoUpdateDto);
     AlumnoResponseDto update(Long id, AlumnoUpdateDto alumnoUpdateDto,  Long usuarioId);
 
+    AlumnoBulkUpdateResponseDto updateAll(Optional<String> asignatura, Optional<String> grado, AlumnoUpdateDto cambios);
+
     void deleteById(Long id);
     void deleteById(Long id, Long usuarioId);
 
+    AlumnoBulkUpdateResponseDto deleteAll(Optional<String> asignatura, Optional<String> grado);
+
 }
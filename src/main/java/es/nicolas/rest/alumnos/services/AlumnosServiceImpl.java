@@ -1,47 +1,107 @@
 package es.nicolas.rest.alumnos.services;
 
+import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import es.nicolas.rest.alumnos.cache.AlumnoQueryCache;
+import es.nicolas.rest.alumnos.dto.AlumnoBulkErrorDto;
+import es.nicolas.rest.alumnos.dto.AlumnoBulkResponseDto;
+import es.nicolas.rest.alumnos.dto.AlumnoBulkUpdateResponseDto;
 import es.nicolas.rest.alumnos.dto.AlumnoCreateDto;
+import es.nicolas.rest.alumnos.dto.AlumnoKeyDto;
 import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
 import es.nicolas.rest.alumnos.dto.AlumnoUpdateDto;
+import es.nicolas.rest.alumnos.export.AlumnoExportFormat;
+import es.nicolas.rest.alumnos.export.AlumnoExportWriter;
 import es.nicolas.rest.alumnos.mappers.AlumnoMapper;
 import es.nicolas.rest.alumnos.models.Alumno;
 import es.nicolas.rest.alumnos.repositories.AlumnosRepository;
+import es.nicolas.rest.alumnos.search.AlumnoSearchIndex;
+import es.nicolas.rest.alumnos.exceptions.AlumnoBadCursorException;
 import es.nicolas.rest.alumnos.exceptions.AlumnoBadUuidException;
+import es.nicolas.rest.alumnos.exceptions.AlumnoBulkRequestException;
 import es.nicolas.rest.alumnos.exceptions.AlumnoNotFoundException;
+import es.nicolas.rest.asignaturas.dictionary.AsignaturaNameDictionary;
 import es.nicolas.rest.asignaturas.models.Asignatura;
-import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
-import es.nicolas.rest.asignaturas.services.AsignaturaService;
+import es.nicolas.config.cache.SingleFlight;
 import es.nicolas.config.websockets.WebSocketConfig;
 import es.nicolas.config.websockets.WebSocketHandler;
-import es.nicolas.websockets.notifications.dto.AlumnoNotificationResponse;
+import es.nicolas.utils.pagination.CursorUtils;
+import es.nicolas.utils.transaction.AfterCommit;
 import es.nicolas.websockets.notifications.mappers.AlumnoNotificationMapper;
 import es.nicolas.websockets.notifications.models.Notification;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 @CacheConfig(cacheNames = {"alumnos"})
 @Slf4j
 @Service
 public class AlumnosServiceImpl implements AlumnosService, InitializingBean {
+    // Campos por los que se permite paginar por cursor y su tipo, para reconstruir las claves
+    private static final Map<String, Class<?>> CURSOR_SORT_KEYS = Map.of(
+            "id", Long.class,
+            "nombre", String.class,
+            "apellido", String.class,
+            "grado", String.class,
+            "createdAt", LocalDateTime.class,
+            "updatedAt", LocalDateTime.class
+    );
+    // Ids por sentencia en las actualizaciones masivas
+    private static final int BULK_UPDATE_CHUNK = 1000;
+    // Carácter de escape para los comodines de LIKE en las búsquedas
+    private static final char ESCAPE_LIKE = '\\';
+
     private final AlumnosRepository alumnosRepository;
     private final AlumnoMapper alumnoMapper;
-    private final AsignaturaService asignaturaService;
-    private final AsignaturasRespository asignaturasRespository;
+    private final AsignaturaNameDictionary asignaturaNameDictionary;
+    private final CursorUtils cursorUtils;
+    private final AlumnoSearchIndex alumnoSearchIndex;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final AlumnoQueryCache alumnoQueryCache;
+    private final SingleFlight singleFlight;
+
+    // Filas que trae cada viaje a la base de datos al exportar
+    @Value("${alumnos.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    // Alumnos que se guardan en cada transacción en la carga masiva
+    @Value("${alumnos.bulk.chunk-size:500}")
+    private int bulkChunkSize;
 
     @Override
     public AlumnoResponseDto findByUsuarioId(Long usuarioId, Long idAlumno) {
@@ -61,8 +121,7 @@ public class AlumnosServiceImpl implements AlumnosService, InitializingBean {
      * @param nombreAsignatura Nombre de la Asignatura
      */
     private Asignatura checkedAsignatura(String nombreAsignatura) {
-        var a = asignaturasRespository.findByNombreEqualsIgnoreCase(nombreAsignatura);
-        return a.get();
+        return asignaturaNameDictionary.findByNombre(nombreAsignatura);
     }
 
     @Override
@@ -100,6 +159,184 @@ public class AlumnosServiceImpl implements AlumnosService, InitializingBean {
         onChange(Notification.Tipo.DELETE, alumnoDeleted);
     }
 
+    /**
+     * Carga masiva de alumnos desde un array JSON o NDJSON (un alumno por línea).
+     * Se leen en streaming y se guardan por lotes, cada lote en su transacción y con una sola notificación.
+     * Si un lote falla se reintenta fila a fila, así una fila errónea no tumba la carga entera
+     *
+     * @param body cuerpo de la petición con los AlumnoCreateDto
+     * @return resumen con los creados y los errores por fila
+     */
+    @Override
+    public AlumnoBulkResponseDto saveAll(InputStream body) throws IOException {
+        log.info("Carga masiva de alumnos en lotes de {}", bulkChunkSize);
+        List<AlumnoBulkErrorDto> errores = new ArrayList<>();
+        List<FilaBulk> lote = new ArrayList<>(bulkChunkSize);
+        long fila = 0;
+        long creados = 0;
+
+        try (MappingIterator<AlumnoCreateDto> filas = objectMapper.readerFor(AlumnoCreateDto.class).readValues(body)) {
+            while (true) {
+                long numero = fila + 1;
+                AlumnoCreateDto alumnoCreateDto;
+                try {
+                    if (!filas.hasNextValue()) {
+                        break;
+                    }
+                    alumnoCreateDto = filas.nextValue();
+                } catch (JsonParseException e) {
+                    // JSON mal formado: ya no se puede saber dónde empieza la siguiente fila
+                    errores.add(new AlumnoBulkErrorDto(numero, "JSON mal formado, se detiene la carga: " + e.getOriginalMessage()));
+                    break;
+                } catch (JsonMappingException e) {
+                    fila = numero;
+                    errores.add(new AlumnoBulkErrorDto(numero, "Fila no válida: " + e.getOriginalMessage()));
+                    continue;
+                }
+                fila = numero;
+
+                String error = validarFila(alumnoCreateDto);
+                if (error == null) {
+                    Optional<Asignatura> asignatura = asignaturaNameDictionary.buscar(alumnoCreateDto.getAsignatura());
+                    if (asignatura.isPresent()) {
+                        lote.add(new FilaBulk(numero, alumnoCreateDto, asignatura.get()));
+                    } else {
+                        error = "Asignatura no encontrada: " + alumnoCreateDto.getAsignatura();
+                    }
+                }
+                if (error != null) {
+                    errores.add(new AlumnoBulkErrorDto(numero, error));
+                }
+
+                if (lote.size() >= bulkChunkSize) {
+                    creados += guardarLote(lote, errores);
+                    lote.clear();
+                }
+            }
+        }
+        creados += guardarLote(lote, errores);
+
+        log.info("Carga masiva terminada: {} filas, {} creados, {} errores", fila, creados, errores.size());
+        return AlumnoBulkResponseDto.builder()
+                .total(fila)
+                .creados(creados)
+                .errores(errores)
+                .build();
+    }
+
+    // Fila pendiente de guardar, con su número para poder informar del error
+    private record FilaBulk(long fila, AlumnoCreateDto alumno, Asignatura asignatura) {
+    }
+
+    private String validarFila(AlumnoCreateDto alumnoCreateDto) {
+        if (alumnoCreateDto == null) {
+            return "Fila vacía";
+        }
+        Set<ConstraintViolation<AlumnoCreateDto>> violaciones = validator.validate(alumnoCreateDto);
+        if (violaciones.isEmpty()) {
+            return null;
+        }
+        return violaciones.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private int guardarLote(List<FilaBulk> lote, List<AlumnoBulkErrorDto> errores) {
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        List<Alumno> guardados;
+        try {
+            guardados = transactionTemplate.execute(status -> alumnosRepository.saveAll(
+                    lote.stream().map(f -> alumnoMapper.toAlumno(f.alumno(), f.asignatura())).toList()));
+        } catch (RuntimeException e) {
+            log.warn("Error al guardar un lote de {} alumnos, se reintenta fila a fila: {}", lote.size(), e.getMessage());
+            // Entidades nuevas: las del lote fallido pueden tener ya un id asignado en la transacción deshecha
+            guardados = new ArrayList<>();
+            for (FilaBulk f : lote) {
+                try {
+                    guardados.add(transactionTemplate.execute(status ->
+                            alumnosRepository.save(alumnoMapper.toAlumno(f.alumno(), f.asignatura()))));
+                } catch (RuntimeException ex) {
+                    errores.add(new AlumnoBulkErrorDto(f.fila(), "No se ha podido guardar: " + NestedExceptionUtils.getMostSpecificCause(ex).getMessage()));
+                }
+            }
+        }
+        onChangeAll(Notification.Tipo.CREATE, guardados);
+        return guardados.size();
+    }
+
+    /**
+     * Actualiza a la vez todos los alumnos no borrados de una asignatura y/o grado.
+     * Se leen sus claves y se actualizan por id con UPDATE ... WHERE id IN, en lotes, en lugar de un findById
+     * y un save por alumno. Así cambian exactamente los alumnos que se notifican y se quitan de la caché,
+     * aunque otra escritura cambie el filtro entre las dos sentencias
+     *
+     * @param cambios campos a cambiar, los que vienen a null no se tocan
+     * @return número de alumnos actualizados
+     * @throws AlumnoBulkRequestException si no hay filtros o no hay nada que cambiar
+     */
+    @Override
+    public AlumnoBulkUpdateResponseDto updateAll(Optional<String> asignatura, Optional<String> grado, AlumnoUpdateDto cambios) {
+        log.info("Actualizando alumnos de asignatura: {}, grado: {} con: {}", asignatura, grado, cambios);
+        if (cambios.getNombre() == null && cambios.getApellido() == null && cambios.getGrado() == null) {
+            throw new AlumnoBulkRequestException("No se ha indicado ningún campo a cambiar (nombre, apellido o grado)");
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        List<AlumnoKeyDto> afectados = clavesAfectadas(asignatura, grado);
+        int actualizados = transactionTemplate.execute(status -> enLotes(afectados, ids ->
+                alumnosRepository.updateCamposByIdIn(ids, cambios.getNombre(), cambios.getApellido(), cambios.getGrado(), ahora)));
+        evictAlumnos(afectados);
+        onChangeAll(Notification.Tipo.UPDATE, afectados, cambios);
+        return new AlumnoBulkUpdateResponseDto(actualizados);
+    }
+
+    /**
+     * Borrado lógico a la vez de todos los alumnos no borrados de una asignatura y/o grado
+     *
+     * @return número de alumnos borrados
+     * @throws AlumnoBulkRequestException si no hay filtros
+     */
+    @Override
+    public AlumnoBulkUpdateResponseDto deleteAll(Optional<String> asignatura, Optional<String> grado) {
+        log.info("Borrando alumnos de asignatura: {}, grado: {}", asignatura, grado);
+        LocalDateTime ahora = LocalDateTime.now();
+        List<AlumnoKeyDto> afectados = clavesAfectadas(asignatura, grado);
+        int borrados = transactionTemplate.execute(status -> enLotes(afectados, ids ->
+                alumnosRepository.updateIsDeletedToTrueByIdIn(ids, ahora)));
+        evictAlumnos(afectados);
+        onChangeAll(Notification.Tipo.DELETE, afectados, null);
+        return new AlumnoBulkUpdateResponseDto(borrados);
+    }
+
+    // Sin filtros una operación masiva afectaría a toda la tabla: no se permite
+    private List<AlumnoKeyDto> clavesAfectadas(Optional<String> asignatura, Optional<String> grado) {
+        if (asignatura.isEmpty() && grado.isEmpty()) {
+            throw new AlumnoBulkRequestException("Las operaciones masivas necesitan al menos un filtro (asignatura o grado)");
+        }
+        return alumnosRepository.findKeysActivosByAsignaturaAndGrado(asignatura.orElse(null), grado.orElse(null));
+    }
+
+    // Lanza la actualización en sentencias de como mucho BULK_UPDATE_CHUNK ids, todas en la transacción en curso
+    private int enLotes(List<AlumnoKeyDto> alumnos, ToIntFunction<List<Long>> actualizacion) {
+        List<Long> ids = alumnos.stream().map(AlumnoKeyDto::getId).toList();
+        int actualizados = 0;
+        for (int i = 0; i < ids.size(); i += BULK_UPDATE_CHUNK) {
+            actualizados += actualizacion.applyAsInt(ids.subList(i, Math.min(i + BULK_UPDATE_CHUNK, ids.size())));
+        }
+        return actualizados;
+    }
+
+    // Al borrar por id la entrada deja de estar también bajo su uuid (MultiKeyCache)
+    private void evictAlumnos(List<AlumnoKeyDto> alumnos) {
+        Cache cache = cacheManager.getCache("alumnos");
+        if (cache == null) {
+            return;
+        }
+        alumnos.forEach(alumno -> cache.evict(alumno.getId()));
+    }
+
     // Dependencias para WebSockets
     private final WebSocketConfig webSocketConfig;
     private final ObjectMapper objectMapper;
@@ -140,24 +377,155 @@ public class AlumnosServiceImpl implements AlumnosService, InitializingBean {
 //        }
 
         log.info("Buscando alumnos por nombre: {}, apellido: {}, isDeleted: {}", nombre, apellido, isDeleted);
-        // Busqyeda por nombre
+        Specification<Alumno> criterio = criterio(nombre, apellido, isDeleted);
+        // Proyección directa al DTO: una consulta por página (más el COUNT), cacheada hasta la siguiente escritura
+        return alumnoQueryCache.get("page", pageable,
+                () -> alumnosRepository.findAllResponseDto(criterio, pageable), nombre, apellido, isDeleted);
+    }
+
+    // Igual que findAll pero sin la consulta COUNT, para clientes con scroll infinito
+    @Override
+    public Slice<AlumnoResponseDto> findAllSlice(Optional<String> nombre, Optional<String> apellido, Optional<Boolean> isDeleted, Pageable pageable) {
+        log.info("Buscando alumnos sin total por nombre: {}, apellido: {}, isDeleted: {}", nombre, apellido, isDeleted);
+        return alumnoQueryCache.get("slice", pageable,
+                () -> alumnosRepository.findSliceResponseDto(criterio(nombre, apellido, isDeleted), pageable),
+                nombre, apellido, isDeleted);
+    }
+
+    /**
+     * Exporta todos los alumnos que cumplen los filtros, escribiéndolos según se leen de la base de datos.
+     * La transacción mantiene abierto el cursor JDBC mientras dura la exportación
+     *
+     * @param formato formato de salida
+     * @param out     stream donde se escriben los alumnos, no se cierra
+     * @return número de alumnos exportados
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportar(Optional<String> nombre, Optional<String> apellido, Optional<Boolean> isDeleted,
+                         AlumnoExportFormat formato, OutputStream out) throws IOException {
+        log.info("Exportando alumnos en {} por nombre: {}, apellido: {}, isDeleted: {}", formato, nombre, apellido, isDeleted);
+        try (Stream<AlumnoResponseDto> alumnos = alumnosRepository.streamResponseDto(
+                criterio(nombre, apellido, isDeleted), Sort.by("id"), exportFetchSize);
+             AlumnoExportWriter writer = new AlumnoExportWriter(formato, objectMapper, out)) {
+            for (Iterator<AlumnoResponseDto> it = alumnos.iterator(); it.hasNext(); ) {
+                writer.write(it.next());
+            }
+            log.info("Exportados {} alumnos", writer.getFilas());
+            return writer.getFilas();
+        }
+    }
+
+    /**
+     * Busca alumnos con paginación por cursor (keyset): cada página cuesta lo mismo
+     * sin importar lo profunda que sea, porque no hay OFFSET ni COUNT
+     *
+     * @param after cursor de la última fila de la página anterior, vacío para la primera
+     * @param size  tamaño de página
+     * @param sort  ordenación, se añade el id como desempate si no viene
+     * @return ventana de alumnos con la posición de cada fila
+     * @throws AlumnoBadCursorException si el cursor o la ordenación no son válidos
+     */
+    @Override
+    public Window<AlumnoResponseDto> findAllAfter(Optional<String> nombre, Optional<String> apellido, Optional<Boolean> isDeleted, String after, int size, Sort sort) {
+        log.info("Buscando alumnos por cursor: {}, nombre: {}, apellido: {}, isDeleted: {}", after, nombre, apellido, isDeleted);
+        // El id desempata las filas con el mismo valor en la clave de ordenación
+        Sort keysetSort = sort.getOrderFor("id") != null ? sort
+                : sort.and(Sort.by(sort.stream().findFirst().map(Sort.Order::getDirection).orElse(Sort.Direction.ASC), "id"));
+        KeysetScrollPosition position = keysetPosition(after, keysetSort);
+        // La misma proyección al DTO que la paginación por páginas, sin cargar la asignatura de cada alumno
+        return alumnosRepository.scrollResponseDto(criterio(nombre, apellido, isDeleted), keysetSort, size, position);
+    }
+
+    private KeysetScrollPosition keysetPosition(String after, Sort keysetSort) {
+        Map<String, Class<?>> keyTypes = new LinkedHashMap<>();
+        for (Sort.Order order : keysetSort) {
+            Class<?> type = CURSOR_SORT_KEYS.get(order.getProperty());
+            if (type == null) {
+                throw new AlumnoBadCursorException("No se puede paginar por cursor ordenando por: " + order.getProperty());
+            }
+            keyTypes.put(order.getProperty(), type);
+        }
+        try {
+            return cursorUtils.decode(after, keyTypes);
+        } catch (IllegalArgumentException e) {
+            throw new AlumnoBadCursorException("Cursor no válido: " + after);
+        }
+    }
+
+    // Criterio de búsqueda común a la paginación por páginas y por cursor
+    private Specification<Alumno> criterio(Optional<String> nombre, Optional<String> apellido, Optional<Boolean> isDeleted) {
+        // Busqueda por nombre, sobre la columna normalizada e indexada
         Specification<Alumno> specNombreAlumno = (root, query, criteriaBuilder) ->
-                nombre.map(n -> criteriaBuilder.like(criteriaBuilder.lower(root.get("nombre")), "%" + n.toLowerCase() + "%"))
+                nombre.map(n -> criteriaBuilder.like(root.<String>get("nombreBusqueda"), patronBusqueda(n), ESCAPE_LIKE))
                         .orElseGet(() -> criteriaBuilder.isTrue(criteriaBuilder.literal(true))); // si no hay numero no filtramos
 
         // Busqueda por apellido
         Specification<Alumno> specApellidoAlumno = (root, query, criteriaBuilder) ->
                 //{Join<Alumno, Alumno> alumnoJoin = root.join("alumno"); Si tuvieramos que tomar datos de otra tabla, hariamos un "JOIN<nomeTabla, nomeTabla>"
-                apellido.map(t -> criteriaBuilder.like(criteriaBuilder.lower(root.get("apellido")), "%" + t.toLowerCase() + "%"))
+                apellido.map(t -> criteriaBuilder.like(root.<String>get("apellidoBusqueda"), patronBusqueda(t), ESCAPE_LIKE))
                         .orElseGet(() -> criteriaBuilder.isTrue(criteriaBuilder.literal(true)));
 
         Specification<Alumno> specIsDeleted = (root, query, criteriaBuilder) ->
                 isDeleted.map(d -> criteriaBuilder.equal(root.get("isDeleted"), d))
                         .orElseGet(() -> criteriaBuilder.isTrue(criteriaBuilder.literal(true)));
 
-        Specification<Alumno> criterio = Specification.allOf(specNombreAlumno, specApellidoAlumno, specIsDeleted);
-        return alumnosRepository.findAll(criterio, pageable)
-                .map(alumnoMapper::toAlumnoResponseDto);
+        return Specification.allOf(specNombreAlumno, specApellidoAlumno, specIsDeleted);
+    }
+
+    /**
+     * Crea el patrón LIKE de búsqueda sobre las columnas normalizadas.
+     * Por defecto se busca por prefijo ("nic" -> 'nic%'), que se resuelve con el índice de la columna;
+     * un '*' final se acepta y significa lo mismo. Buscar por contenido recorre la tabla entera,
+     * así que hay que pedirlo de forma explícita empezando el término por '*' ("*nic" -> '%nic%').
+     * Los comodines de LIKE del término se escapan para buscarlos de forma literal.
+     *
+     * @param termino término recibido del cliente
+     * @return patrón LIKE en minúsculas
+     */
+    private String patronBusqueda(String termino) {
+        boolean contiene = termino.startsWith("*");
+        String sinComodines = termino.substring(contiene ? 1 : 0);
+        if (sinComodines.endsWith("*")) {
+            sinComodines = sinComodines.substring(0, sinComodines.length() - 1);
+        }
+        String valor = sinComodines.toLowerCase()
+                .replace(String.valueOf(ESCAPE_LIKE), String.valueOf(ESCAPE_LIKE) + ESCAPE_LIKE)
+                .replace("%", ESCAPE_LIKE + "%")
+                .replace("_", ESCAPE_LIKE + "_");
+        return contiene ? "%" + valor + "%" : valor + "%";
+    }
+
+    // Búsqueda aproximada en memoria, sin tildes y ordenada por parecido.
+    // El índice solo da los ids: los alumnos salen de la caché y los que falten de una sola consulta
+    @Override
+    public List<AlumnoResponseDto> search(String texto, int limite) {
+        log.info("Buscando alumnos parecidos a: {}", texto);
+        List<Long> ids = alumnoSearchIndex.buscar(texto, limite).stream()
+                .map(AlumnoSearchIndex.Resultado::id)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, AlumnoResponseDto> encontrados = new HashMap<>();
+        Cache cache = cacheManager.getCache("alumnos");
+        if (cache != null) {
+            ids.forEach(id -> {
+                AlumnoResponseDto alumno = cache.get(id, AlumnoResponseDto.class);
+                if (alumno != null) {
+                    encontrados.put(id, alumno);
+                }
+            });
+        }
+        List<Long> pendientes = ids.stream().filter(id -> !encontrados.containsKey(id)).toList();
+        if (!pendientes.isEmpty()) {
+            alumnosRepository.findResponseDtoByIdIn(pendientes).forEach(alumno -> encontrados.put(alumno.getId(), alumno));
+        }
+        // En el orden del índice, sin los que se hayan borrado mientras tanto
+        return ids.stream()
+                .map(encontrados::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     // Cachea con el id como key
@@ -165,38 +533,55 @@ public class AlumnosServiceImpl implements AlumnosService, InitializingBean {
     @Override
     public AlumnoResponseDto findById(Long id) {
         log.info("Buscando alumno por id: {}", id);
-        return alumnoMapper.toAlumnoResponseDto(alumnosRepository.findById(id)
-                .orElseThrow(() -> new AlumnoNotFoundException(id)));
+        // Los fallos de caché simultáneos del mismo alumno comparten una sola consulta
+        return singleFlight.load("alumnos", id, () -> alumnoMapper.toAlumnoResponseDto(alumnosRepository.findById(id)
+                .orElseThrow(() -> new AlumnoNotFoundException(id))));
     }
 
-    // Cachea con el uuid como key
-    @Cacheable(key = "#uuid")
+    // Cachea con el uuid normalizado como key: es un alias de la misma entrada que el id,
+    // así que los @CachePut y @CacheEvict por id también la actualizan o la borran
+    @Cacheable(key = "T(es.nicolas.rest.alumnos.services.AlumnosServiceImpl).claveUuid(#uuid)")
     @Override
     public AlumnoResponseDto findByUuid(String uuid) {
         log.info("Buscando alumno por uuid: {}", uuid);
         try {
             var myUUID = UUID.fromString(uuid);
-            return alumnoMapper.toAlumnoResponseDto(alumnosRepository.findByUuid(myUUID)
-                    .orElseThrow(() -> new AlumnoNotFoundException(myUUID)));
+            return singleFlight.load("alumnos", myUUID, () -> alumnoMapper.toAlumnoResponseDto(alumnosRepository.findByUuid(myUUID)
+                    .orElseThrow(() -> new AlumnoNotFoundException(myUUID))));
         } catch (IllegalArgumentException e) {
             throw new AlumnoBadUuidException(uuid);
         }
     }
 
+    /**
+     * Clave de caché de un uuid en la forma en que se registra su alias (UUID.toString, en minúsculas),
+     * para que el mismo uuid escrito en mayúsculas o sin ceros a la izquierda acierte en la caché
+     *
+     * @param uuid uuid tal como llega del cliente
+     * @return el uuid normalizado, o tal cual si no es válido (findByUuid lo rechaza)
+     */
+    public static String claveUuid(String uuid) {
+        try {
+            return UUID.fromString(uuid).toString();
+        } catch (IllegalArgumentException e) {
+            return uuid;
+        }
+    }
+
     @Override
     public Page<AlumnoResponseDto> findByUsuarioId(Long idUsuario, Pageable pageable) {
         log.info("Buscando alumnos del usuario con id: {}", idUsuario);
-        return alumnosRepository.findByUsuarioId(idUsuario, pageable)
-                .map(alumnoMapper::toAlumnoResponseDto);
+        return alumnosRepository.findResponseDtoByUsuarioId(idUsuario, pageable);
     }
 
-    // Cachea con el id del resultado de la operacion como key
+    // Cachea con el id del resultado de la operacion como key, al confirmar la transacción
+    @Transactional
     @CachePut(key = "#result.id")
     @Override
     public AlumnoResponseDto save(AlumnoCreateDto alumnoCreateDto) {
         log.info("Guardando alumno: {}", alumnoCreateDto);
         //Creamos un nuevo alumno con los datos que nos vienen y la guardamos
-        var asignatura = asignaturaService.findByNombre(alumnoCreateDto.getAsignatura());
+        var asignatura = asignaturaNameDictionary.findByNombre(alumnoCreateDto.getAsignatura());
         Alumno alumnoSaved = alumnosRepository.save(alumnoMapper.toAlumno(alumnoCreateDto, asignatura));
         // Enviamos la notificacion a los clientes mediante ws
         onChange(Notification.Tipo.CREATE, alumnoSaved);
@@ -204,6 +589,7 @@ public class AlumnosServiceImpl implements AlumnosService, InitializingBean {
     }
 
 
+    @Transactional
     @CachePut(key = "#result.id")
     @Override
     public AlumnoResponseDto update(Long id, AlumnoUpdateDto alumnoUpdateDto) {
@@ -219,6 +605,7 @@ public class AlumnosServiceImpl implements AlumnosService, InitializingBean {
     }
 
     // El key es opcional, si no se pone, usa todos los parametros del metodo
+    @Transactional
     @CacheEvict(key = "#id")
     @Override
     public void deleteById(Long id) {
@@ -236,6 +623,61 @@ public class AlumnosServiceImpl implements AlumnosService, InitializingBean {
     void onChange(Notification.Tipo tipo, Alumno data) {
         log.debug("Servicio de alumnos onChange con tipo: {} y dato: {}", tipo, data);
 
+        // Las páginas cacheadas y el índice de búsqueda cambian con los mismos eventos que se notifican,
+        // y solo cuando el cambio está confirmado: si la transacción se deshace no ha pasado nada
+        var notificacion = alumnoNotificationMapper.toAlumnoNotificationDto(data);
+        AfterCommit.run(() -> {
+            alumnoQueryCache.invalidar();
+            actualizarIndice(tipo, data);
+            notificar(tipo, notificacion, "WebSocketAlumno-" + data.getId());
+        });
+    }
+
+    // Una sola notificación con todos los alumnos afectados por una operación masiva
+    void onChangeAll(Notification.Tipo tipo, List<Alumno> data) {
+        if (data.isEmpty()) {
+            return;
+        }
+        log.debug("Servicio de alumnos onChangeAll con tipo: {} y {} alumnos", tipo, data.size());
+
+        var notificaciones = data.stream().map(alumnoNotificationMapper::toAlumnoNotificationDto).toList();
+        AfterCommit.run(() -> {
+            alumnoQueryCache.invalidar();
+            data.forEach(alumno -> actualizarIndice(tipo, alumno));
+            notificar(tipo, notificaciones, "WebSocketAlumnos-lote-" + data.getFirst().getId());
+        });
+    }
+
+    // Operaciones masivas sobre un filtro: solo se conocen las claves de los afectados, que es lo que se notifica.
+    // El índice de búsqueda cambia el nombre y el apellido que vengan en los cambios (null en los borrados)
+    void onChangeAll(Notification.Tipo tipo, List<AlumnoKeyDto> claves, AlumnoUpdateDto cambios) {
+        if (claves.isEmpty()) {
+            return;
+        }
+        log.debug("Servicio de alumnos onChangeAll con tipo: {} y {} claves", tipo, claves.size());
+
+        AfterCommit.run(() -> {
+            alumnoQueryCache.invalidar();
+            claves.forEach(clave -> {
+                if (tipo == Notification.Tipo.DELETE) {
+                    alumnoSearchIndex.eliminar(clave.getId());
+                } else {
+                    alumnoSearchIndex.actualizar(clave.getId(), cambios.getNombre(), cambios.getApellido());
+                }
+            });
+            notificar(tipo, claves, "WebSocketAlumnos-lote-" + claves.getFirst().getId());
+        });
+    }
+
+    private void actualizarIndice(Notification.Tipo tipo, Alumno data) {
+        if (tipo == Notification.Tipo.DELETE) {
+            alumnoSearchIndex.eliminar(data.getId());
+        } else {
+            alumnoSearchIndex.indexar(data);
+        }
+    }
+
+    private <T> void notificar(Notification.Tipo tipo, T data, String nombreHilo) {
         if (webSocketService == null) {
             log.warn("No se ha podido enviar la notificacion a los clientes ws, no se ha encontrado el servicio");
             webSocketService = this.webSocketConfig.webSocketAlumnosHandler();
@@ -243,10 +685,10 @@ public class AlumnosServiceImpl implements AlumnosService, InitializingBean {
 
 
         try {
-            Notification<AlumnoNotificationResponse> notificacion = new Notification<>(
+            Notification<T> notificacion = new Notification<>(
                     "ALUMNOS",
                     tipo,
-                    alumnoNotificationMapper.toAlumnoNotificationDto(data),
+                    data,
                     LocalDateTime.now().toString()
             );
 
@@ -261,10 +703,10 @@ public class AlumnosServiceImpl implements AlumnosService, InitializingBean {
                     log.error("Error al enviar mensaje a través del servicio WebSocket", e);
                 }
             });
-            senderThread.setName("WebSocketAlumno-" + data.getId());
+            senderThread.setName(nombreHilo);
             senderThread.setDaemon(true); // Para que no impida que la app se cierre
             senderThread.start();
-            log.info("Hilo de websocket iniciando: {}", data.getId());
+            log.info("Hilo de websocket iniciando: {}", nombreHilo);
         } catch (JsonProcessingException e) {
             log.error("Error al convertir la notificación a JSON", e);
         }
@@ -0,0 +1,77 @@
+package es.nicolas.rest.asignaturas.cache;
+
+import es.nicolas.config.cache.CacheReloader;
+import es.nicolas.rest.alumnos.models.Alumno;
+import es.nicolas.rest.asignaturas.dto.AsignaturaVersionDto;
+import es.nicolas.rest.asignaturas.models.Asignatura;
+import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Recarga en segundo plano las asignaturas de la caché que han pasado su TTL blando.
+ * La caché las guarda por id (findById).
+ * Primero compara la versión de la cacheada con la de la base de datos (una consulta de agregados, findVersionById)
+ * y si no ha cambiado la conserva. Solo si ha cambiado la carga con sus alumnos y su usuario,
+ * porque se recarga fuera de cualquier sesión y se serializa con ellos
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class AsignaturaCacheReloader implements CacheReloader {
+    private final AsignaturasRespository asignaturasRespository;
+
+    @Override
+    public String cacheName() {
+        return "asignaturas";
+    }
+
+    @Override
+    public Object reload(Object key) {
+        log.debug("Recargando asignatura {} en la caché", key);
+        return switch (key) {
+            case Long id -> asignaturasRespository.findWithAlumnosById(id).orElse(null);
+            default -> null;
+        };
+    }
+
+    @Override
+    public Object reload(Object key, Object anterior) {
+        if (key instanceof Long id && anterior instanceof Asignatura cacheada) {
+            Optional<AsignaturaVersionDto> actual = asignaturasRespository.findVersionById(id);
+            if (actual.isEmpty()) {
+                return null;
+            }
+            if (actual.get().equals(version(cacheada))) {
+                log.debug("La asignatura {} de la caché no ha cambiado", id);
+                return cacheada;
+            }
+        }
+        return reload(key);
+    }
+
+    // Versión de la asignatura cacheada, null si sus alumnos no están cargados y no se puede saber
+    private static AsignaturaVersionDto version(Asignatura asignatura) {
+        if (asignatura.getAlumnos() == null || !Hibernate.isInitialized(asignatura.getAlumnos())) {
+            return null;
+        }
+        return AsignaturaVersionDto.builder()
+                .updatedAt(asignatura.getUpdatedAt())
+                .asignaturas(1L)
+                .alumnosUpdatedAt(asignatura.getAlumnos().stream()
+                        .map(Alumno::getUpdatedAt)
+                        .filter(Objects::nonNull)
+                        .max(LocalDateTime::compareTo)
+                        .orElse(null))
+                .alumnos((long) asignatura.getAlumnos().size())
+                .usuariosUpdatedAt(asignatura.getUsuario() == null ? null : asignatura.getUsuario().getUpdatedAt())
+                .usuarios(asignatura.getUsuario() == null ? 0L : 1L)
+                .build();
+    }
+}
@@ -1,8 +1,11 @@
 package es.nicolas.rest.asignaturas.controllers;
 
 import es.nicolas.rest.asignaturas.dto.AsignaturaRequestDto;
+import es.nicolas.rest.asignaturas.dto.AsignaturaVersionDto;
+import es.nicolas.rest.asignaturas.exceptions.AsignaturaPreconditionFailedException;
 import es.nicolas.rest.asignaturas.models.Asignatura;
 import es.nicolas.rest.asignaturas.services.AsignaturaService;
+import es.nicolas.utils.etag.ETagUtils;
 import es.nicolas.utils.pagination.PageResponse;
 import es.nicolas.utils.pagination.PaginationLinksUtils;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,7 +15,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
@@ -20,8 +25,10 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Slf4j
@@ -40,22 +47,46 @@ public class AsignaturasRestController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "asc")  String direction,
-            HttpServletRequest request
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            HttpServletRequest request,
+            WebRequest webRequest
     ){
         log.info("Buscando asignaturas por nombre: {}, isDeleted: {}", nombre, isDeleted);
+        // Si no ha cambiado nada desde el If-None-Match o el If-Modified-Since, 304 sin consultar ni serializar
+        AsignaturaVersionDto version = asignaturaService.findVersion();
+        String eTag = eTag("asignaturas", version);
+        if (sinCambios(webRequest, eTag, version)) {
+            return noModificado(eTag, version);
+        }
         Sort sort = direction.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         Pageable pageable = PageRequest.of(page, size, sort);
         UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromUriString(request.getRequestURL().toString());
+        // Sin total: nos ahorramos la consulta COUNT
+        if (!withTotal) {
+            Slice<Asignatura> sliceResult = asignaturaService.findAllSlice(nombre, isDeleted, pageable);
+            return validadores(ResponseEntity.ok(), eTag, version)
+                    .header("link", paginationLinksUtils.createLinkHeader(sliceResult, uriBuilder))
+                    .body(PageResponse.of(sliceResult, sortBy, direction));
+        }
         Page <Asignatura> pageResult = asignaturaService.findAll(nombre, isDeleted, pageable);
-        return ResponseEntity.ok()
+        return validadores(ResponseEntity.ok(), eTag, version)
                 .header("link", paginationLinksUtils.createLinkHeader(pageResult, uriBuilder))
                 .body(PageResponse.of(pageResult, sortBy, direction));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Asignatura> getById(@PathVariable Long id){
+    public ResponseEntity<Asignatura> getById(@PathVariable Long id, WebRequest webRequest){
         log.info("Buscando asignatura por id: {}", id);
-        return ResponseEntity.ok(asignaturaService.findById(id));
+        // Si no existe no hay validadores: findById responde 404
+        Optional<AsignaturaVersionDto> version = asignaturaService.findVersionById(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.ok(asignaturaService.findById(id));
+        }
+        String eTag = eTag("asignatura:" + id, version.get());
+        if (sinCambios(webRequest, eTag, version.get())) {
+            return noModificado(eTag, version.get());
+        }
+        return validadores(ResponseEntity.ok(), eTag, version.get()).body(asignaturaService.findById(id));
     }
 
     @PostMapping
@@ -66,10 +97,19 @@ public class AsignaturasRestController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Asignatura> update(@PathVariable Long id,@Valid @RequestBody AsignaturaRequestDto asignaturaRequestDto) {
+    public ResponseEntity<Asignatura> update(@PathVariable Long id,@Valid @RequestBody AsignaturaRequestDto asignaturaRequestDto,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Actualizando asignatura con id: {}", id);
+        // Sin If-Match se actualiza siempre, como hasta ahora
+        if (ifMatch != null && !ETagUtils.matches(ifMatch, eTag(id))) {
+            log.warn("If-Match {} no coincide con la versión actual de la asignatura {}", ifMatch, id);
+            throw new AsignaturaPreconditionFailedException(id);
+        }
         Asignatura updatedAsignatura = asignaturaService.update(id, asignaturaRequestDto);
-        return ResponseEntity.ok(updatedAsignatura);
+        return asignaturaService.findVersionById(id)
+                .map(version -> validadores(ResponseEntity.ok(), eTag("asignatura:" + id, version), version))
+                .orElseGet(ResponseEntity::ok)
+                .body(updatedAsignatura);
     }
 
     @DeleteMapping("/{id}")
@@ -79,6 +119,44 @@ public class AsignaturasRestController {
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
 
+    // La asignatura se devuelve con sus alumnos y su usuario: el ETag depende de la fecha de modificación
+    // más reciente y del número de filas de los tres, leídos de la base de datos sin cargar nada.
+    // El número de filas cubre los borrados, que no dejan fecha de modificación
+    private static String eTag(String recurso, AsignaturaVersionDto version) {
+        return ETagUtils.of(recurso,
+                version.getUpdatedAt(), version.getAsignaturas(),
+                version.getAlumnosUpdatedAt(), version.getAlumnos(),
+                version.getUsuariosUpdatedAt(), version.getUsuarios());
+    }
+
+    // ETag actual de la asignatura, null si no existe
+    private String eTag(Long id) {
+        return asignaturaService.findVersionById(id)
+                .map(version -> eTag("asignatura:" + id, version))
+                .orElse(null);
+    }
+
+    private static boolean sinCambios(WebRequest webRequest, String eTag, AsignaturaVersionDto version) {
+        LocalDateTime lastModified = version.lastModified();
+        return lastModified == null
+                ? webRequest.checkNotModified(eTag)
+                : webRequest.checkNotModified(eTag, ETagUtils.lastModified(lastModified).toEpochMilli());
+    }
+
+    private static <T> ResponseEntity<T> noModificado(String eTag, AsignaturaVersionDto version) {
+        return validadores(ResponseEntity.status(HttpStatus.NOT_MODIFIED), eTag, version).build();
+    }
+
+    // ETag y, si hay fecha de modificación, Last-Modified
+    private static ResponseEntity.BodyBuilder validadores(ResponseEntity.BodyBuilder builder, String eTag,
+                                                          AsignaturaVersionDto version) {
+        LocalDateTime lastModified = version.lastModified();
+        if (lastModified != null) {
+            builder.lastModified(ETagUtils.lastModified(lastModified));
+        }
+        return builder.eTag(eTag);
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ProblemDetail handleValidationExceptions(
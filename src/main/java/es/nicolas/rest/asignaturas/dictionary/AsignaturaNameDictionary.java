@@ -0,0 +1,93 @@
+package es.nicolas.rest.asignaturas.dictionary;
+
+import es.nicolas.rest.asignaturas.exceptions.AsignaturaNotFoundException;
+import es.nicolas.rest.asignaturas.models.Asignatura;
+import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Diccionario en memoria nombre de asignatura -> asignatura, sin distinguir mayúsculas
+ * ("programacion" y "Programacion" son la misma, igual que en findByNombreEqualsIgnoreCase).
+ * Es una copia inmutable que se sustituye entera en cada alta, modificación o borrado (copy-on-write),
+ * así las lecturas al crear alumnos no bloquean ni pasan por la base de datos ni por el proxy de la caché.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class AsignaturaNameDictionary {
+    private final AsignaturasRespository asignaturasRespository;
+
+    // Nombre en minúsculas -> asignatura
+    private volatile Map<String, Asignatura> asignaturas = Map.of();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        Map<String, Asignatura> nuevas = new HashMap<>();
+        asignaturasRespository.findAll().forEach(a -> nuevas.put(clave(a.getNombre()), a));
+        asignaturas = Map.copyOf(nuevas);
+        log.info("Diccionario de asignaturas construido con {} asignaturas", nuevas.size());
+    }
+
+    /**
+     * Busca una asignatura por nombre sin distinguir mayúsculas.
+     * Si no está en el diccionario se consulta la base de datos y se añade
+     *
+     * @param nombre nombre de la asignatura
+     * @return la asignatura o vacío si no existe
+     */
+    public Optional<Asignatura> buscar(String nombre) {
+        if (nombre == null) {
+            return Optional.empty();
+        }
+        Asignatura asignatura = asignaturas.get(clave(nombre));
+        if (asignatura != null) {
+            return Optional.of(asignatura);
+        }
+        Optional<Asignatura> encontrada = asignaturasRespository.findByNombreEqualsIgnoreCase(nombre);
+        encontrada.ifPresent(this::guardar);
+        return encontrada;
+    }
+
+    /**
+     * @throws AsignaturaNotFoundException si no existe
+     */
+    public Asignatura findByNombre(String nombre) {
+        return buscar(nombre).orElseThrow(() -> new AsignaturaNotFoundException(nombre));
+    }
+
+    /**
+     * Añade o sustituye una asignatura. Si ha cambiado de nombre se quita el anterior
+     */
+    public synchronized void guardar(Asignatura asignatura) {
+        Map<String, Asignatura> nuevas = new HashMap<>(asignaturas);
+        nuevas.values().removeIf(a -> a.getId().equals(asignatura.getId()));
+        nuevas.put(clave(asignatura.getNombre()), asignatura);
+        asignaturas = Map.copyOf(nuevas);
+    }
+
+    public synchronized void eliminar(Long id) {
+        Map<String, Asignatura> nuevas = new HashMap<>(asignaturas);
+        if (nuevas.values().removeIf(a -> a.getId().equals(id))) {
+            asignaturas = Map.copyOf(nuevas);
+        }
+    }
+
+    public int size() {
+        return asignaturas.size();
+    }
+
+    private static String clave(String nombre) {
+        return nombre.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,18 @@
+package es.nicolas.rest.asignaturas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Número de alumnos de una asignatura, para decidir cuáles precargar sin cargar sus alumnos
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AsignaturaTamanoDto {
+    private Long id;
+    private Long alumnos;
+}
@@ -0,0 +1,38 @@
+package es.nicolas.rest.asignaturas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Lo que determina la representación de una o varias asignaturas, leído de la base de datos con una consulta
+ * de agregados: fecha de modificación más reciente y número de filas de las asignaturas, de sus alumnos
+ * y de sus usuarios. Cambia con cualquier escritura confirmada, la haga el nodo que la haga.
+ */
+@Builder(toBuilder = true)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AsignaturaVersionDto {
+    private LocalDateTime updatedAt;
+    private Long asignaturas;
+    private LocalDateTime alumnosUpdatedAt;
+    private Long alumnos;
+    private LocalDateTime usuariosUpdatedAt;
+    private Long usuarios;
+
+    /**
+     * @return la fecha de modificación más reciente de las asignaturas, sus alumnos y sus usuarios, null si no hay
+     */
+    public LocalDateTime lastModified() {
+        return Stream.of(updatedAt, alumnosUpdatedAt, usuariosUpdatedAt)
+                .filter(Objects::nonNull)
+                .max(LocalDateTime::compareTo)
+                .orElse(null);
+    }
+}
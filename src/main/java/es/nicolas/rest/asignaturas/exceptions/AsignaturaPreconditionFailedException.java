@@ -0,0 +1,12 @@
+package es.nicolas.rest.asignaturas.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class AsignaturaPreconditionFailedException extends AsignaturaException {
+
+    public AsignaturaPreconditionFailedException(Long id) {
+        super("La asignatura con id " + id + " ha cambiado desde que se leyó");
+    }
+}
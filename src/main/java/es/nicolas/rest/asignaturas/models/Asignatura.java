@@ -3,6 +3,7 @@ package es.nicolas.rest.asignaturas.models;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import es.nicolas.rest.alumnos.models.Alumno;
 import es.nicolas.rest.user.models.User;
+import es.nicolas.utils.persistence.IdGeneration;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -19,7 +20,10 @@ import java.util.List;
 @Table(name="ASIGNATURAS")
 public class Asignatura {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Secuencia con bloques de ids en memoria: permite agrupar los INSERT en batches JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "asignaturas_seq")
+    @SequenceGenerator(name = "asignaturas_seq", sequenceName = "asignaturas_seq",
+            allocationSize = IdGeneration.ALLOCATION_SIZE, initialValue = IdGeneration.INITIAL_VALUE)
     private Long id;
 
     @Column(unique = true, nullable = false, length = 20)
@@ -1,11 +1,16 @@
 package es.nicolas.rest.asignaturas.repositories;
 
+import es.nicolas.rest.asignaturas.dto.AsignaturaTamanoDto;
+import es.nicolas.rest.asignaturas.dto.AsignaturaVersionDto;
 import es.nicolas.rest.asignaturas.models.Asignatura;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 public interface AsignaturasRespository extends JpaRepository<Asignatura, Long>, JpaSpecificationExecutor<Asignatura> {
@@ -21,11 +26,50 @@ public interface AsignaturasRespository extends JpaRepository<Asignatura, Long>,
     // Actualizar la asignatura con isDeleted a true
     // Usar @Modifying y @Query en el servicio
     @Modifying
-    @Query("update Asignatura a set a.isDeleted=true where a.id =:id")
+    @Query("update Asignatura a set a.isDeleted=true, a.updatedAt=CURRENT_TIMESTAMP where a.id =:id")
     void updateIsDeletedToTrueById(Long id);
 
     // obtiene si existe una asignatura con id del alumno
     @Query("SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END FROM Alumno a where a.asignatura.id =:id")
     Boolean existsByAlumnoById(Long id);
 
+    // Validadores de caché HTTP (ETag y Last-Modified) de una asignatura: se calculan con agregados
+    // sin cargar la asignatura, sus alumnos ni su usuario
+    @Query("SELECT new es.nicolas.rest.asignaturas.dto.AsignaturaVersionDto(a.updatedAt, 1L, " +
+            "(SELECT MAX(al.updatedAt) FROM Alumno al WHERE al.asignatura = a), " +
+            "(SELECT COUNT(al) FROM Alumno al WHERE al.asignatura = a), " +
+            "(SELECT MAX(u.updatedAt) FROM User u WHERE u.asignatura = a), " +
+            "(SELECT COUNT(u) FROM User u WHERE u.asignatura = a)) " +
+            "FROM Asignatura a WHERE a.id = :id")
+    Optional<AsignaturaVersionDto> findVersionById(Long id);
+
+    // Validadores de caché HTTP del listado: cubren todas las asignaturas, alumnos y usuarios con asignatura
+    @Query("SELECT new es.nicolas.rest.asignaturas.dto.AsignaturaVersionDto(MAX(a.updatedAt), COUNT(a), " +
+            "(SELECT MAX(al.updatedAt) FROM Alumno al WHERE al.asignatura IS NOT NULL), " +
+            "(SELECT COUNT(al) FROM Alumno al WHERE al.asignatura IS NOT NULL), " +
+            "(SELECT MAX(u.updatedAt) FROM User u WHERE u.asignatura IS NOT NULL), " +
+            "(SELECT COUNT(u) FROM User u WHERE u.asignatura IS NOT NULL)) " +
+            "FROM Asignatura a")
+    AsignaturaVersionDto findVersion();
+
+    // Precarga de la caché: número de alumnos de cada asignatura, las modificadas más recientemente primero
+    @Query("SELECT new es.nicolas.rest.asignaturas.dto.AsignaturaTamanoDto(a.id, COUNT(al)) " +
+            "FROM Asignatura a LEFT JOIN a.alumnos al GROUP BY a.id, a.updatedAt ORDER BY a.updatedAt DESC, a.id")
+    List<AsignaturaTamanoDto> findTamanos();
+
+    // Precarga de la caché: las asignaturas elegidas con lo que se serializa de ellas (alumnos y usuario)
+    @EntityGraph(attributePaths = {"alumnos", "usuario", "usuario.roles"})
+    List<Asignatura> findWithAlumnosByIdIn(Collection<Long> ids);
+
+    // Recarga de la caché: una asignatura con sus alumnos y su usuario, por id, solo si ha cambiado (findVersionById)
+    @EntityGraph(attributePaths = {"alumnos", "usuario", "usuario.roles"})
+    Optional<Asignatura> findWithAlumnosById(Long id);
+
+    // Purga: ids de las asignaturas borradas (soft delete) antes de la fecha límite que ya no tienen alumnos
+    // ni titular, por orden de id (keyset)
+    @Query("SELECT a.id FROM Asignatura a WHERE a.isDeleted = true AND a.updatedAt < :limite AND a.id > :desdeId " +
+            "AND NOT EXISTS (SELECT al.id FROM Alumno al WHERE al.asignatura = a) " +
+            "AND NOT EXISTS (SELECT u.id FROM User u WHERE u.asignatura = a) ORDER BY a.id")
+    List<Long> findIdsBorradasSinReferenciasAntesDe(LocalDateTime limite, Long desdeId, Pageable pageable);
+
 }
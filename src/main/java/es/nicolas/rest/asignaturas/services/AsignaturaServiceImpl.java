@@ -1,11 +1,17 @@
 package es.nicolas.rest.asignaturas.services;
 
+import es.nicolas.config.cache.SingleFlight;
+import es.nicolas.rest.asignaturas.dictionary.AsignaturaNameDictionary;
 import es.nicolas.rest.asignaturas.dto.AsignaturaRequestDto;
+import es.nicolas.rest.asignaturas.dto.AsignaturaVersionDto;
 import es.nicolas.rest.asignaturas.exceptions.AsignaturaConflictException;
 import es.nicolas.rest.asignaturas.exceptions.AsignaturaNotFoundException;
 import es.nicolas.rest.asignaturas.mappers.AsignaturasMapper;
 import es.nicolas.rest.asignaturas.models.Asignatura;
 import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
+import es.nicolas.utils.etag.WriteVersions;
+import es.nicolas.utils.pagination.SliceQueryUtils;
+import es.nicolas.utils.transaction.AfterCommit;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +21,7 @@ import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
@@ -27,10 +34,26 @@ import java.util.*;
 public class AsignaturaServiceImpl implements  AsignaturaService{
     private final AsignaturasRespository asignaturasRespository;
     private final AsignaturasMapper asignaturasMapper;
+    private final SliceQueryUtils sliceQueryUtils;
+    private final AsignaturaNameDictionary asignaturaNameDictionary;
+    private final WriteVersions writeVersions;
+    private final SingleFlight singleFlight;
 
     @Override
     public Page<Asignatura> findAll(Optional<String> nombre, Optional<Boolean> isDeleted, Pageable pageable) {
         log.info("Bucando asignaturas por nombre: {}, isDeleted: {}", nombre, isDeleted);
+        Specification<Asignatura> criterio = criterio(nombre, isDeleted);
+        return  asignaturasRespository.findAll(criterio, pageable);
+    }
+
+    // Igual que findAll pero sin la consulta COUNT
+    @Override
+    public Slice<Asignatura> findAllSlice(Optional<String> nombre, Optional<Boolean> isDeleted, Pageable pageable) {
+        log.info("Bucando asignaturas sin total por nombre: {}, isDeleted: {}", nombre, isDeleted);
+        return sliceQueryUtils.findSlice(Asignatura.class, criterio(nombre, isDeleted), pageable);
+    }
+
+    private Specification<Asignatura> criterio(Optional<String> nombre, Optional<Boolean> isDeleted) {
         // Criterio de busqueda por numero y luego por isDeleted
         Specification<Asignatura> specNombreAsignatura = (root, query, criteriaBuilder) ->
                 nombre.map(n -> criteriaBuilder.like(criteriaBuilder.lower(root.get("nombre")), "%" +
@@ -41,24 +64,40 @@ public class AsignaturaServiceImpl implements  AsignaturaService{
                 isDeleted.map(d -> criteriaBuilder.equal(root.get("isDeleted"), d))
                         .orElseGet(() -> criteriaBuilder.isTrue(criteriaBuilder.literal(true)));
 
-        Specification<Asignatura> criterio = Specification.allOf(specNombreAsignatura, specIsDeleted);
-        return  asignaturasRespository.findAll(criterio, pageable);
+        return Specification.allOf(specNombreAsignatura, specIsDeleted);
     }
 
     @Cacheable
     @Override
     public Asignatura findById(Long id) {
         log.info("Bucando asignaturas por id: {}", id);
+        // Los fallos de caché simultáneos de la misma asignatura comparten una sola consulta
+        return singleFlight.load("asignaturas", id, () -> buscar(id));
+    }
+
+    // Sin agrupar: la entidad que se va a modificar no se comparte con otras peticiones
+    private Asignatura buscar(Long id) {
         return asignaturasRespository.findById(id)
                 .orElseThrow(()-> new AsignaturaNotFoundException(id));
     }
 
+    // Sin distinguir mayúsculas, por el diccionario de nombres: se actualiza en cada alta, modificación
+    // o borrado confirmado. No se guarda en la caché "asignaturas", que solo podría quitar la entrada por id
     @Override
-    @Cacheable
     public Asignatura findByNombre(String nombre) {
         log.info("Bucando asignaturas por nombre: {}", nombre);
-        return asignaturasRespository.findByNombreEqualsIgnoreCase(nombre)
-                .orElseThrow(()-> new AsignaturaNotFoundException(nombre));
+        return asignaturaNameDictionary.findByNombre(nombre);
+    }
+
+    // Sin caché: los validadores HTTP tienen que ver las escrituras de cualquier nodo y las hechas fuera de la API
+    @Override
+    public AsignaturaVersionDto findVersion() {
+        return asignaturasRespository.findVersion();
+    }
+
+    @Override
+    public Optional<AsignaturaVersionDto> findVersionById(Long id) {
+        return asignaturasRespository.findVersionById(id);
     }
 
     @CachePut
@@ -68,15 +107,19 @@ public class AsignaturaServiceImpl implements  AsignaturaService{
         asignaturasRespository.findByNombreEqualsIgnoreCase(asignaturaRequestDto.getNombre()).ifPresent(asignatura -> {
             throw new AsignaturaConflictException("Error al guardar asignatura");
         });
-        Asignatura asignatura = asignaturasMapper.toAsignatura(asignaturaRequestDto);
-        return asignaturasRespository.save(asignatura);
+        Asignatura asignatura = asignaturasRespository.save(asignaturasMapper.toAsignatura(asignaturaRequestDto));
+        AfterCommit.run(() -> {
+            asignaturaNameDictionary.guardar(asignatura);
+            writeVersions.incrementar(WriteVersions.ASIGNATURAS);
+        });
+        return asignatura;
     }
 
     @CachePut
     @Override
     public Asignatura update(Long id, AsignaturaRequestDto asignaturaRequestDto) {
         log.info("Actualizando asignatura con id: {}", id);
-        var asignaturaExistente = findById(id);
+        var asignaturaExistente = buscar(id);
         // No debe existir dos asignaturas con el mismo nombre
         asignaturasRespository.findByNombreEqualsIgnoreCase(asignaturaRequestDto.getNombre()).ifPresent(asig-> {
             if(!asig.getId().equals(id)){
@@ -84,8 +127,13 @@ public class AsignaturaServiceImpl implements  AsignaturaService{
             }
         });
         // Actualizamos los datos
-        Asignatura asignaturaActualizada = asignaturasMapper.toAsignatura(asignaturaRequestDto, asignaturaExistente);
-        return asignaturasRespository.save(asignaturaActualizada);
+        Asignatura asignaturaActualizada = asignaturasRespository.save(
+                asignaturasMapper.toAsignatura(asignaturaRequestDto, asignaturaExistente));
+        AfterCommit.run(() -> {
+            asignaturaNameDictionary.guardar(asignaturaActualizada);
+            writeVersions.incrementar(WriteVersions.ASIGNATURAS);
+        });
+        return asignaturaActualizada;
     }
 
     @CacheEvict
@@ -93,7 +141,7 @@ public class AsignaturaServiceImpl implements  AsignaturaService{
     @Transactional // Necesario para que funcione el @Modifying en el repositorio
     public void deleteById(Long id) {
         log.info("Eliminando asignatura con id: {}", id);
-        Asignatura asignatura = findById(id); // Verifica si existe, lanza excepción si no
+        Asignatura asignatura = buscar(id); // Verifica si existe, lanza excepción si no
         // O lo marcamos como borrado, para evitar problemas de cascada, no podemos borrar titulares con tarjetas!!!
         // La otra forma es que comprobáramos si hay tarjetas para borrarlas antes
         if (asignaturasRespository.existsByAlumnoById(id)) {
@@ -102,6 +150,12 @@ public class AsignaturaServiceImpl implements  AsignaturaService{
             throw new AsignaturaConflictException(mensaje);
         } else {
             asignaturasRespository.deleteById(id);
+            // Diccionario y ETag cambian cuando el borrado está confirmado: antes un GET concurrente
+            // calcularía la versión nueva sobre los datos anteriores
+            AfterCommit.run(() -> {
+                asignaturaNameDictionary.eliminar(id);
+                writeVersions.incrementar(WriteVersions.ASIGNATURAS);
+            });
         }
 //        asignaturasRespository.deleteById(id);
     }
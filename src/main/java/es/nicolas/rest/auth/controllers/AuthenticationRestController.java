@@ -4,12 +4,16 @@ import es.nicolas.rest.auth.dto.JwtAuthResponse;
 import es.nicolas.rest.auth.dto.UserSignInRequest;
 import es.nicolas.rest.auth.dto.UserSignUpRequest;
 import es.nicolas.rest.auth.services.authentication.AuthenticationService;
+import es.nicolas.rest.user.models.User;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -49,6 +53,23 @@ public class AuthenticationRestController {
         return ResponseEntity.ok(authenticationService.signIn(userSignInRequest));
     }
 
+    /**
+     * Cierra la sesión del usuario actual: el token de la petición deja de valer
+     *
+     * @param user          usuario autenticado
+     * @param authorization cabecera con el token
+     * @return Respuesta vacía
+     */
+    @PostMapping("/signout")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Void> signOut(@AuthenticationPrincipal User user,
+                                        @RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        log.info("Cerrando sesion de usuario: {}", user.getUsername());
+        // El filtro ya ha comprobado que es "Bearer <token>"
+        authenticationService.signOut(authorization.substring(7));
+        return ResponseEntity.noContent().build();
+    }
+
 
     /**
      * Manejador de excepciones de Validación: 400 Bad Request
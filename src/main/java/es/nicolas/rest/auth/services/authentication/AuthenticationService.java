@@ -8,4 +8,6 @@ public interface AuthenticationService {
     JwtAuthResponse signUp(UserSignUpRequest request);
 
     JwtAuthResponse signIn(UserSignInRequest request);
+
+    void signOut(String token);
 }
@@ -77,4 +77,14 @@ public class AuthenticationServiceImpl implements AuthenticationService{
         var jwt = jwtService.generateToken(user);
         return JwtAuthResponse.builder().token(jwt).build();
     }
+
+    /**
+     * Cierra la sesión: revoca el token con el que se ha hecho la petición, los demás del usuario siguen valiendo
+     *
+     * @param token token de la petición
+     */
+    @Override
+    public void signOut(String token) {
+        jwtService.revoke(token);
+    }
 }
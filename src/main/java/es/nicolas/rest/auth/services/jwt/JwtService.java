@@ -8,4 +8,21 @@ public interface JwtService {
     String generateToken(UserDetails userDetails);
 
     boolean isTokenValid(String token, UserDetails userDetails);
+
+    /**
+     * Decodifica el token y comprueba su firma y caducidad, una sola vez por petición
+     *
+     * @param token token
+     * @return los datos del token
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException si no es válido o ha caducado
+     */
+    VerifiedToken verify(String token);
+
+    /**
+     * Revoca un token hasta que caduque
+     *
+     * @param token token
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException si no es válido o ya estaba revocado
+     */
+    void revoke(String token);
 }
@@ -1,28 +1,91 @@
 package es.nicolas.rest.auth.services.jwt;
 
 import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import es.nicolas.rest.user.models.Role;
+import es.nicolas.rest.user.models.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Genera y verifica los JWT con JwtTokenEngine. La verificación (firma y caducidad) se hace una vez por token:
+ * los tokens ya verificados se guardan en una caché acotada, por el SHA-256 del token para no guardar
+ * tokens en memoria, y cada entrada caduca a la vez que su token.
+ * Publica las métricas de la caché como cache.* con cache=jwt-verificados.
+ * Los tokens llevan el id y los roles del usuario (claims uid y roles) para poder autenticar sin base de datos
+ * (jwt.stateless) y se rechazan los emitidos antes de una revocación de su usuario (TokenRevocations)
+ * y los revocados uno a uno (TokenDenylist).
+ */
 @Slf4j
+@RequiredArgsConstructor
 @Service
 public class JwtServiceImpl implements JwtService {
-    @Value("${jwt.secret}")
-    private String justSigninKey;
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLES = "roles";
+
+    private final MeterRegistry meterRegistry;
+    private final JwtTokenEngine tokenEngine;
+    private final TokenRevocations tokenRevocations;
+    private final TokenDenylist tokenDenylist;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    // Tokens verificados distintos que se recuerdan a la vez
+    @Value("${jwt.cache.maximum-size:10000}")
+    private long maximoVerificados;
+
+    private Cache<String, VerifiedToken> verificados;
+
+    @PostConstruct
+    void init() {
+        verificados = Caffeine.newBuilder()
+                .maximumSize(maximoVerificados)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String clave, VerifiedToken token, long ahora) {
+                        return Math.max(0, Duration.between(Instant.now(), token.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String clave, VerifiedToken token, long ahora, long restante) {
+                        return restante;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String clave, VerifiedToken token, long ahora, long restante) {
+                        return restante;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verificados, "jwt-verificados");
+    }
+
     /**
      * Extrae el nombre de usuario del token
      *
@@ -31,8 +94,7 @@ public class JwtServiceImpl implements JwtService {
      */
     @Override
     public String extractUserName(String token) {
-        log.info("Extracting username from token " + token);
-        return extractClaim(token, DecodedJWT::getSubject);
+        return verify(token).username();
     }
 
     /**
@@ -43,7 +105,7 @@ public class JwtServiceImpl implements JwtService {
      */
     @Override
     public String generateToken(UserDetails userDetails) {
-        log.info("Generating token for user " + userDetails.getUsername());
+        log.info("Generating token for user {}", userDetails.getUsername());
         return generateToken(new  HashMap<>(), userDetails);
     }
 
@@ -56,23 +118,78 @@ public class JwtServiceImpl implements JwtService {
      */
     @Override
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        log.info("Validating token " + token + " for user " + userDetails.getUsername());
-        final String userName = extractUserName(token);
-        return userName.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        log.debug("Validando token para el usuario {}", userDetails.getUsername());
+        try {
+            return verify(token).username().equals(userDetails.getUsername());
+        } catch (JWTVerificationException e) {
+            return false;
+        }
     }
 
+    /**
+     * Verifica el token, o devuelve lo ya verificado si está en la caché y no ha caducado
+     *
+     * @param token token
+     * @return datos del token
+     * @throws JWTVerificationException si la firma no es válida, ha caducado, le falta el usuario o la caducidad
+     *                                  o se ha revocado
+     */
+    @Override
+    public VerifiedToken verify(String token) {
+        String clave = hash(token);
+        VerifiedToken verificado = verificados.getIfPresent(clave);
+        // La entrada caduca con el token, pero entre una cosa y otra puede haber pasado un instante
+        if (verificado == null || !verificado.expiresAt().isAfter(Instant.now())) {
+            verificado = verificar(token, clave);
+            verificados.put(clave, verificado);
+        }
+        // La revocación se comprueba siempre, también con los tokens que ya estaban en la caché
+        if (tokenRevocations.isRevocado(verificado.userId(), verificado.issuedAt())
+                || tokenDenylist.isRevocado(verificado.tokenId(), verificado.expiresAt())) {
+            throw new JWTVerificationException("Token revocado");
+        }
+        return verificado;
+    }
 
     /**
-     * Genera un token con datos extra
+     * Revoca el token hasta que caduque (logout)
      *
-     * @param token             token
-     * @param claimsResolvers   Detalles del usuario
-     * @return token
+     * @param token token
+     * @throws JWTVerificationException si no es válido o ya estaba revocado
      */
-    private <T> T extractClaim(String token, Function<DecodedJWT, T> claimsResolvers){
-        log.info("Extracting claims from token " + token);
-        final DecodedJWT decodedJWT = JWT.decode(token);
-        return claimsResolvers.apply(decodedJWT);
+    @Override
+    public void revoke(String token) {
+        VerifiedToken verificado = verify(token);
+        log.info("Revocando token de {}", verificado.username());
+        tokenDenylist.revocar(verificado.tokenId(), verificado.expiresAt());
+    }
+
+    private VerifiedToken verificar(String token, String hash) {
+        DecodedJWT decodedJWT = tokenEngine.verify(token);
+        if (decodedJWT.getSubject() == null || decodedJWT.getExpiresAtAsInstant() == null) {
+            throw new JWTVerificationException("El token no tiene usuario o caducidad");
+        }
+        List<String> roles = decodedJWT.getClaim(CLAIM_ROLES).asList(String.class);
+        try {
+            return new VerifiedToken(decodedJWT.getId() != null ? decodedJWT.getId() : hash,
+                    decodedJWT.getSubject(),
+                    decodedJWT.getClaim(CLAIM_USER_ID).asLong(),
+                    roles == null ? null : roles.stream().map(Role::valueOf).collect(Collectors.toUnmodifiableSet()),
+                    decodedJWT.getIssuedAtAsInstant(),
+                    decodedJWT.getExpiresAtAsInstant());
+        } catch (IllegalArgumentException e) {
+            throw new JWTVerificationException("El token tiene un rol desconocido", e);
+        }
+    }
+
+    // SHA-256 del token: la clave de la caché no permite reconstruirlo
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
     }
 
     /**
@@ -83,40 +200,23 @@ public class JwtServiceImpl implements JwtService {
      * @return token
      */
     private String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-        // Preparamos el token
-        Algorithm algorithm = Algorithm.HMAC512(getSigninKey());
+        // Preparamos el token, lo firma el motor con la clave actual
         Date now = new Date();
         Date expirationDate = new Date(now.getTime() + (1000 * expiration));
 
-        return JWT.create()
+        JWTCreator.Builder token = JWT.create()
                 .withHeader(createHeader())
+                .withJWTId(UUID.randomUUID().toString())
                 .withSubject(userDetails.getUsername())
                 .withIssuedAt(now)
                 .withExpiresAt(expirationDate)
-                .withClaim("extraClaims", extraClaims)
-                .sign(algorithm);
-    }
-
-    /**
-     * Comprueba si el token ha expirado
-     *
-     * @param token token
-     * @return true si ha expirado
-     */
-    private boolean isTokenExpired(String token) {
-        Date expirationDate = extractExpiration(token);
-        return expirationDate.before(new Date());
-    }
-
-
-    /**
-     * Extrae la fecha de expiración del token
-     *
-     * @param token token
-     * @return fecha de expiración
-     */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, DecodedJWT::getExpiresAt);
+                .withClaim("extraClaims", extraClaims);
+        // Lo que necesita el modo sin estado para construir el usuario autenticado
+        if (userDetails instanceof User user && user.getId() != null && user.getRoles() != null) {
+            token.withClaim(CLAIM_USER_ID, user.getId())
+                    .withClaim(CLAIM_ROLES, user.getRoles().stream().map(Role::name).sorted().toList());
+        }
+        return tokenEngine.sign(token);
     }
 
     /**
@@ -129,13 +229,4 @@ public class JwtServiceImpl implements JwtService {
         header.put("typ", "JWT");
         return header;
     }
-
-    /**
-     * Obtiene la clave de firma
-     *
-     * @return clave de firma
-     */
-    private byte[] getSigninKey() {
-        return Base64.getEncoder().encode(justSigninKey.getBytes());
-    }
 }
@@ -0,0 +1,76 @@
+package es.nicolas.rest.auth.services.jwt;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import es.nicolas.config.auth.JwtKeysProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Firma y verificación de los JWT con HMAC512. El Algorithm y un JWTVerifier por clave se crean una sola vez
+ * al arrancar (los dos son inmutables y seguros entre hilos), así firmar o verificar no reconstruye nada.
+ * Cada token lleva en la cabecera el kid de la clave con que se firmó y se verifica con esa misma clave,
+ * lo que permite rotarlas (JwtKeysProperties). Los tokens sin kid, anteriores a la rotación, se verifican
+ * con la clave actual.
+ */
+@Slf4j
+@Component
+public class JwtTokenEngine {
+    private final String keyId;
+    private final Algorithm firma;
+    // kid -> verificador de su clave
+    private final Map<String, JWTVerifier> verificadores;
+    private final JWTVerifier verificadorActual;
+
+    public JwtTokenEngine(JwtKeysProperties properties) {
+        this.keyId = properties.keyId();
+        this.firma = algoritmo(properties.secret());
+        this.verificadorActual = JWT.require(firma).build();
+        Map<String, JWTVerifier> porKid = new HashMap<>();
+        porKid.put(keyId, verificadorActual);
+        properties.previousKeys().forEach((kid, secreto) -> porKid.put(kid, JWT.require(algoritmo(secreto)).build()));
+        this.verificadores = Map.copyOf(porKid);
+        log.info("Claves JWT: firma con {}, se aceptan {}", keyId, verificadores.keySet());
+    }
+
+    /**
+     * Firma un token con la clave actual y su kid
+     *
+     * @param token token con sus claims
+     * @return token firmado
+     */
+    public String sign(JWTCreator.Builder token) {
+        return token.withKeyId(keyId).sign(firma);
+    }
+
+    /**
+     * Decodifica el token una sola vez y comprueba su firma y caducidad con la clave de su kid
+     *
+     * @param token token
+     * @return token decodificado y verificado
+     * @throws JWTVerificationException si no es válido, ha caducado o su kid no es de ninguna clave conocida
+     */
+    public DecodedJWT verify(String token) {
+        DecodedJWT decodificado = JWT.decode(token);
+        String kid = decodificado.getKeyId();
+        JWTVerifier verificador = kid == null ? verificadorActual : verificadores.get(kid);
+        if (verificador == null) {
+            throw new JWTVerificationException("El token está firmado con una clave desconocida: " + kid);
+        }
+        return verificador.verify(decodificado);
+    }
+
+    // La clave se deriva igual que antes de la rotación para que los tokens ya emitidos sigan siendo válidos
+    private static Algorithm algoritmo(String secreto) {
+        return Algorithm.HMAC512(Base64.getEncoder().encode(secreto.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,213 @@
+package es.nicolas.rest.auth.services.jwt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lista de tokens revocados uno a uno (logout), consultada en cada petición.
+ * Es una rueda de tiempos (hashed timing wheel): cada hueco guarda los tokens que caducan en un mismo tramo
+ * de jwt.denylist.tick, en un conjunto exacto con un filtro de Bloom delante. Casi todos los tokens no están
+ * revocados y el filtro lo responde sin mirar el conjunto; si dice que puede estar, decide el conjunto.
+ * Cuando pasa el tramo de un hueco sus tokens ya han caducado y el hueco se libera entero, así la memoria
+ * es proporcional a los tokens revocados que siguen vivos. Añadir y consultar no bloquean: los huecos se
+ * ocupan y liberan con compareAndSet y el filtro es un AtomicLongArray.
+ * Los tokens que caducan más allá de lo que cubre la rueda (emitidos con otro jwt.expiration) van aparte.
+ * Es de cada nodo, como TokenRevocations.
+ */
+@Slf4j
+@Component
+public class TokenDenylist {
+    private static final int FUNCIONES_HASH = 4;
+
+    private final long tick;
+    private final int bitsPorHueco;
+    private final AtomicReferenceArray<Hueco> rueda;
+    // Tokens que caducan fuera del alcance de la rueda: id -> caducidad
+    private final Map<String, Instant> fueraDeRueda = new ConcurrentHashMap<>();
+    private final Counter falsosPositivos;
+
+    /**
+     * Tokens revocados que caducan en el mismo tramo
+     *
+     * @param tramo tramo de caducidad (segundos desde epoch / tick)
+     */
+    private record Hueco(long tramo, AtomicLongArray filtro, Set<String> ids) {
+    }
+
+    /**
+     * @param expiration   duración máxima de un token en segundos, la rueda cubre al menos eso
+     * @param tick         duración de cada tramo de la rueda
+     * @param bitsPorHueco tamaño del filtro de Bloom de cada hueco
+     */
+    public TokenDenylist(@Value("${jwt.expiration}") long expiration,
+                         @Value("${jwt.denylist.tick:60s}") Duration tick,
+                         @Value("${jwt.denylist.bits-per-slot:8192}") int bitsPorHueco,
+                         MeterRegistry meterRegistry) {
+        this.tick = Math.max(1, tick.toSeconds());
+        // Múltiplo de 64, cada long del filtro son 64 bits
+        this.bitsPorHueco = Math.max(Long.SIZE, bitsPorHueco / Long.SIZE * Long.SIZE);
+        // Un hueco solo se reutiliza cuando ya no puede quedar vivo ningún token de su tramo anterior
+        this.rueda = new AtomicReferenceArray<>((int) ((expiration + this.tick - 1) / this.tick) + 2);
+        this.falsosPositivos = meterRegistry.counter("jwt.denylist.false.positives");
+        meterRegistry.gauge("jwt.denylist.size", this, TokenDenylist::size);
+    }
+
+    /**
+     * Revoca un token hasta que caduque
+     *
+     * @param id        identificador del token (VerifiedToken.tokenId)
+     * @param expiresAt caducidad del token
+     */
+    public void revocar(String id, Instant expiresAt) {
+        Instant ahora = Instant.now();
+        if (!expiresAt.isAfter(ahora)) {
+            return;
+        }
+        long tramo = tramo(expiresAt);
+        if (!enRueda(tramo, ahora)) {
+            fueraDeRueda.put(id, expiresAt);
+            return;
+        }
+        int indice = indice(tramo);
+        while (true) {
+            Hueco hueco = rueda.get(indice);
+            if (hueco != null && hueco.tramo() == tramo) {
+                // Primero el conjunto y después el filtro: quien vea el bit ya encuentra el id
+                hueco.ids().add(id);
+                marcar(hueco.filtro(), id);
+                return;
+            }
+            if (hueco != null && hueco.tramo() > tramo) {
+                // Su tramo ya ha pasado: el token ha caducado y no hace falta guardarlo
+                return;
+            }
+            // Hueco libre o de un tramo ya caducado: lo ocupamos para este tramo
+            Hueco nuevo = new Hueco(tramo, new AtomicLongArray(bitsPorHueco / Long.SIZE), ConcurrentHashMap.newKeySet());
+            rueda.compareAndSet(indice, hueco, nuevo);
+        }
+    }
+
+    /**
+     * @param id        identificador del token
+     * @param expiresAt caducidad del token
+     * @return true si el token está revocado
+     */
+    public boolean isRevocado(String id, Instant expiresAt) {
+        if (!fueraDeRueda.isEmpty() && fueraDeRueda.containsKey(id)) {
+            return true;
+        }
+        long tramo = tramo(expiresAt);
+        Hueco hueco = rueda.get(indice(tramo));
+        if (hueco == null || hueco.tramo() != tramo || !puedeContener(hueco.filtro(), id)) {
+            return false;
+        }
+        boolean revocado = hueco.ids().contains(id);
+        if (!revocado) {
+            falsosPositivos.increment();
+        }
+        return revocado;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.denylist.tick:60s}")
+    void expirar() {
+        int liberados = expirar(Instant.now());
+        if (liberados > 0) {
+            log.debug("Lista de tokens revocados: {} huecos caducados liberados", liberados);
+        }
+    }
+
+    /**
+     * Libera los huecos cuyos tokens ya han caducado
+     *
+     * @param ahora instante actual
+     * @return huecos liberados
+     */
+    public int expirar(Instant ahora) {
+        long actual = tramo(ahora);
+        int liberados = 0;
+        for (int i = 0; i < rueda.length(); i++) {
+            Hueco hueco = rueda.get(i);
+            if (hueco != null && hueco.tramo() < actual && rueda.compareAndSet(i, hueco, null)) {
+                liberados++;
+            }
+        }
+        fueraDeRueda.values().removeIf(expiresAt -> expiresAt.isBefore(ahora));
+        return liberados;
+    }
+
+    /**
+     * @return tokens revocados que se guardan
+     */
+    public int size() {
+        int total = fueraDeRueda.size();
+        for (int i = 0; i < rueda.length(); i++) {
+            Hueco hueco = rueda.get(i);
+            total += hueco == null ? 0 : hueco.ids().size();
+        }
+        return total;
+    }
+
+    private long tramo(Instant instante) {
+        return Math.floorDiv(instante.getEpochSecond(), tick);
+    }
+
+    private int indice(long tramo) {
+        return (int) Math.floorMod(tramo, (long) rueda.length());
+    }
+
+    // Cabe si su hueco no puede estar ocupado por un tramo anterior todavía vivo
+    private boolean enRueda(long tramo, Instant ahora) {
+        return tramo - tramo(ahora) < rueda.length() - 1;
+    }
+
+    private void marcar(AtomicLongArray filtro, String id) {
+        long h1 = hash(id);
+        long h2 = mezclar(h1) | 1;
+        for (int i = 0; i < FUNCIONES_HASH; i++) {
+            int bit = (int) Math.floorMod(h1 + i * h2, (long) bitsPorHueco);
+            long mascara = 1L << (bit % Long.SIZE);
+            filtro.getAndAccumulate(bit / Long.SIZE, mascara, (actual, m) -> actual | m);
+        }
+    }
+
+    private boolean puedeContener(AtomicLongArray filtro, String id) {
+        long h1 = hash(id);
+        long h2 = mezclar(h1) | 1;
+        for (int i = 0; i < FUNCIONES_HASH; i++) {
+            int bit = (int) Math.floorMod(h1 + i * h2, (long) bitsPorHueco);
+            if ((filtro.get(bit / Long.SIZE) & (1L << (bit % Long.SIZE))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a de 64 bits: sin reservar memoria, a diferencia de pasar el id a bytes
+    private static long hash(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Finalizador de SplitMix64, la segunda función del doble hashing
+    private static long mezclar(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,56 @@
+package es.nicolas.rest.auth.services.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Lista de revocación de tokens en memoria: por cada usuario, la fecha "not before" antes de la cual
+ * sus tokens ya no valen (logout, cambio de roles, borrado). Cuesta una entrada por usuario revocado
+ * y cada entrada se olvida pasada la duración máxima de un token, cuando ya no queda ninguno anterior vivo.
+ * Los JWT guardan la fecha de emisión en segundos: también se rechazan los emitidos en el mismo segundo
+ * que la revocación.
+ * Es de cada nodo: con varios nodos la revocación solo vale en el que la recibe.
+ */
+@Slf4j
+@Component
+public class TokenRevocations {
+    // Id de usuario -> not before
+    private final Cache<Long, Instant> notBefore;
+
+    public TokenRevocations(@Value("${jwt.expiration}") long expiration, MeterRegistry meterRegistry) {
+        this.notBefore = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(expiration))
+                .build();
+        meterRegistry.gauge("jwt.revocations", notBefore, Cache::estimatedSize);
+    }
+
+    /**
+     * Invalida todos los tokens del usuario emitidos hasta ahora
+     *
+     * @param userId id del usuario
+     */
+    public void revocar(Long userId) {
+        log.info("Revocando los tokens del usuario {}", userId);
+        notBefore.put(userId, Instant.now());
+    }
+
+    /**
+     * @param userId   id del usuario del token, null si el token no lo lleva
+     * @param issuedAt fecha de emisión del token, null si no la lleva
+     * @return true si el token se emitió antes de una revocación de su usuario
+     */
+    public boolean isRevocado(Long userId, Instant issuedAt) {
+        if (userId == null) {
+            return false;
+        }
+        Instant limite = notBefore.getIfPresent(userId);
+        return limite != null && (issuedAt == null || !issuedAt.isAfter(limite));
+    }
+}
@@ -0,0 +1,26 @@
+package es.nicolas.rest.auth.services.jwt;
+
+import es.nicolas.rest.user.models.Role;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Datos de un token cuya firma y caducidad ya se han comprobado
+ *
+ * @param tokenId   identificador del token: su jti o, si no lo lleva, el SHA-256 del token
+ * @param username  usuario del token (subject)
+ * @param userId    id del usuario, null en los tokens emitidos sin él
+ * @param roles     roles del usuario al emitir el token, null en los tokens emitidos sin ellos
+ * @param issuedAt  fecha de emisión, puede ser null
+ * @param expiresAt fecha de caducidad
+ */
+public record VerifiedToken(String tokenId, String username, Long userId, Set<Role> roles, Instant issuedAt, Instant expiresAt) {
+
+    /**
+     * @return true si lleva lo necesario para autenticar sin leer el usuario de la base de datos
+     */
+    public boolean isStateless() {
+        return userId != null && roles != null;
+    }
+}
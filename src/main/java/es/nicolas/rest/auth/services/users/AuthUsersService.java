@@ -6,4 +6,11 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 public interface AuthUsersService extends UserDetailsService {
     @Override
     UserDetails loadUserByUsername(String username);
+
+    /**
+     * Olvida el usuario cacheado para que la siguiente petición lo lea de nuevo (cambio de roles, borrado...)
+     *
+     * @param username nombre de usuario
+     */
+    void evict(String username);
 }
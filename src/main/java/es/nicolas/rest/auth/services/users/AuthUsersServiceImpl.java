@@ -2,18 +2,58 @@ package es.nicolas.rest.auth.services.users;
 
 import es.nicolas.rest.auth.repositories.AuthUsersRepository;
 import es.nicolas.rest.user.exceptions.UserNotFound;
+import es.nicolas.rest.user.models.User;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.util.Set;
+
+/**
+ * Usuarios para la autenticación, cacheados por username con un TTL corto (caché usuarios-auth):
+ * en el estado estable autenticar una petición no consulta la base de datos.
+ * UserServiceImpl los quita de la caché al actualizarlos o borrarlos, así los cambios de roles
+ * y los borrados se aplican en la siguiente petición.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
+@CacheConfig(cacheNames = {"usuarios-auth"})
 public class AuthUsersServiceImpl implements AuthUsersService{
     private final AuthUsersRepository authUsersRepository;
 
     @Override
+    @Cacheable(key = "#username")
     public UserDetails loadUserByUsername(String username) {
         return authUsersRepository.findByUsername(username)
+                .map(AuthUsersServiceImpl::paraAutenticar)
                 .orElseThrow(() -> new UserNotFound("Usuario con username " + username + " no encontrado"));
     }
+
+    @Override
+    @CacheEvict(key = "#username")
+    public void evict(String username) {
+        log.debug("Quitando de la caché de autenticación al usuario {}", username);
+    }
+
+    // Copia sin la asignatura ni nada que dependa de la sesión de Hibernate: es lo que queda cacheado
+    // y lo que llega a los controladores como @AuthenticationPrincipal
+    private static User paraAutenticar(User user) {
+        return User.builder()
+                .id(user.getId())
+                .nombre(user.getNombre())
+                .apellidos(user.getApellidos())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .password(user.getPassword())
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .isDeleted(user.getIsDeleted())
+                .roles(Set.copyOf(user.getRoles()))
+                .build();
+    }
 }
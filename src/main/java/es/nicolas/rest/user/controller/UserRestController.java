@@ -21,6 +21,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
@@ -58,6 +59,7 @@ public class UserRestController {
      * @param size      tamaño
      * @param sortBy    campo de ordenación
      * @param direction dirección de ordenación
+     * @param withTotal si es false no se calcula el total (sin COUNT), solo si hay página siguiente
      * @param request   petición
      * @return Respuesta con la página de usuarios
      */
@@ -71,6 +73,7 @@ public class UserRestController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "true") boolean withTotal,
             HttpServletRequest request
     ){
         log.info("findAll: username: {}, email: {}, isDeleted: {}, page: {}, size: {}, sortBy: {}, direction: {}",
@@ -78,6 +81,12 @@ public class UserRestController {
 
         Sort sort = direction.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromUriString(request.getRequestURL().toString());
+        if (!withTotal) {
+            Slice<UserResponse> sliceResult = userService.findAllSlice(username, email, isDeleted, PageRequest.of(page, size, sort));
+            return ResponseEntity.ok()
+                    .header("link", paginationLinksUtils.createLinkHeader(sliceResult, uriBuilder))
+                    .body(PageResponse.of(sliceResult, sortBy, direction));
+        }
         Page<UserResponse> pageResult = userService.findAll(username, email, isDeleted, PageRequest.of(page, size, sort));
         return ResponseEntity.ok()
                 .header("link", paginationLinksUtils.createLinkHeader(pageResult, uriBuilder))
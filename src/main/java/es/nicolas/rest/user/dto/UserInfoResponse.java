@@ -3,6 +3,7 @@ package es.nicolas.rest.user.dto;
 import es.nicolas.rest.user.models.Role;
 import lombok.*;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -23,6 +24,7 @@ public class UserInfoResponse {
 
     @Builder.Default
     private Boolean isDeleted = false;
+    private LocalDateTime updatedAt;
 
     @Builder.Default
     private List<String> alumnos = new ArrayList<>();
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.Set;
 
 @Data
@@ -21,4 +22,5 @@ public class UserResponse {
     private Set<Role> roles = Set.of(Role.USER);
     @Builder.Default
     private Boolean isDeleted = false;
+    private LocalDateTime updatedAt;
 }
\ No newline at end of file
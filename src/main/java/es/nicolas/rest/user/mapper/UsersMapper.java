@@ -44,6 +44,7 @@ public class UsersMapper {
                 .email(user.getEmail())
                 .roles(user.getRoles())
                 .isDeleted(user.getIsDeleted())
+                .updatedAt(user.getUpdatedAt())
                 .build();
     }
 
@@ -56,6 +57,7 @@ public class UsersMapper {
                 .email(user.getEmail())
                 .roles(user.getRoles())
                 .isDeleted(user.getIsDeleted())
+                .updatedAt(user.getUpdatedAt())
                 .alumnos(alumnos)
                 .build();
     }
@@ -1,6 +1,7 @@
 package es.nicolas.rest.user.models;
 
 import es.nicolas.rest.asignaturas.models.Asignatura;
+import es.nicolas.utils.persistence.IdGeneration;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -24,7 +25,10 @@ import java.util.stream.Collectors;
 @Table(name = "USUARIOS")
 public class User implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Secuencia con bloques de ids en memoria: permite agrupar los INSERT en batches JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuarios_seq")
+    @SequenceGenerator(name = "usuarios_seq", sequenceName = "usuarios_seq",
+            allocationSize = IdGeneration.ALLOCATION_SIZE, initialValue = IdGeneration.INITIAL_VALUE)
     private Long id;
 
     @Column(nullable = false)
@@ -1,12 +1,15 @@
 package es.nicolas.rest.user.repositories;
 
 import es.nicolas.rest.user.models.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,9 +19,22 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     Optional<User> findByUsernameEqualsIgnoreCaseOrEmailEqualsIgnoreCase(String username, String email);
 
     @Modifying
-    @Query("UPDATE User p SET p.isDeleted = true WHERE p.id = :id")
+    @Query("UPDATE User p SET p.isDeleted = true, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :id")
         // Consulta de actualizacion
     void updateIsDeletedToTrueById(Long id);
 
     List<User> findAllByIsDeletedFalse();
+
+    // Purga: ids de los usuarios borrados (soft delete) antes de la fecha límite, por orden de id (keyset)
+    @Query("SELECT u.id FROM User u WHERE u.isDeleted = true AND u.updatedAt < :limite AND u.id > :desdeId ORDER BY u.id")
+    List<Long> findIdsBorradosAntesDe(LocalDateTime limite, Long desdeId, Pageable pageable);
+
+    // Purga: usernames de los usuarios que se van a borrar, para quitarlos de la caché de autenticación
+    @Query("SELECT u.username FROM User u WHERE u.id IN :ids")
+    List<String> findUsernamesByIdIn(Collection<Long> ids);
+
+    // Los roles están en su propia tabla (user_roles) y hay que borrarlos antes que los usuarios
+    @Modifying
+    @Query(value = "DELETE FROM user_roles WHERE user_id IN (:ids)", nativeQuery = true)
+    int deleteRolesByUserIdIn(Collection<Long> ids);
 }
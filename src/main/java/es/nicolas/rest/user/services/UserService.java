@@ -6,6 +6,7 @@ import es.nicolas.rest.user.dto.UserResponse;
 import es.nicolas.rest.user.models.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,6 +14,8 @@ import java.util.Optional;
 public interface UserService {
     Page<UserResponse> findAll(Optional<String> username, Optional<String> email, Optional<Boolean> isDeleted, Pageable pageable);
 
+    Slice<UserResponse> findAllSlice(Optional<String> username, Optional<String> email, Optional<Boolean> isDeleted, Pageable pageable);
+
     UserInfoResponse findById(Long id);
 
     UserResponse save(UserRequest userRequest);
@@ -1,14 +1,21 @@
 package es.nicolas.rest.user.services;
 
+import es.nicolas.config.cache.SingleFlight;
 import es.nicolas.rest.alumnos.repositories.AlumnosRepository;
+import es.nicolas.rest.auth.services.jwt.TokenRevocations;
+import es.nicolas.rest.auth.services.users.AuthUsersService;
 import es.nicolas.rest.user.dto.UserInfoResponse;
 import es.nicolas.rest.user.dto.UserRequest;
 import es.nicolas.rest.user.dto.UserResponse;
 import es.nicolas.rest.user.exceptions.UserNameOrEmailExists;
 import es.nicolas.rest.user.exceptions.UserNotFound;
 import es.nicolas.rest.user.mapper.UsersMapper;
+import es.nicolas.rest.user.models.Role;
 import es.nicolas.rest.user.models.User;
 import es.nicolas.rest.user.repositories.UserRepository;
+import es.nicolas.utils.etag.WriteVersions;
+import es.nicolas.utils.pagination.SliceQueryUtils;
+import es.nicolas.utils.transaction.AfterCommit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheConfig;
@@ -17,12 +24,14 @@ import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 
 @Service
@@ -34,10 +43,29 @@ public class UserServiceImpl implements UserService{
     private final UserRepository userRepository;
     private final UsersMapper usersMapper;
     private final AlumnosRepository alumnosRepository;
+    private final SliceQueryUtils sliceQueryUtils;
+    private final WriteVersions writeVersions;
+    private final SingleFlight singleFlight;
+    private final AuthUsersService authUsersService;
+    private final TokenRevocations tokenRevocations;
 
     @Override
     public Page<UserResponse> findAll(Optional<String> username, Optional<String> email, Optional<Boolean> isDeleted, Pageable pageable) {
         log.info("Bucando todos los usuarios con username : {} y borrados: {}", username, isDeleted);
+        Specification<User> criterio = criterio(username, email, isDeleted);
+
+        return userRepository.findAll(criterio, pageable).map(usersMapper::toUserResponse);
+    }
+
+    // Igual que findAll pero sin la consulta COUNT
+    @Override
+    public Slice<UserResponse> findAllSlice(Optional<String> username, Optional<String> email, Optional<Boolean> isDeleted, Pageable pageable) {
+        log.info("Bucando usuarios sin total con username : {} y borrados: {}", username, isDeleted);
+        return sliceQueryUtils.findSlice(User.class, criterio(username, email, isDeleted), pageable)
+                .map(usersMapper::toUserResponse);
+    }
+
+    private Specification<User> criterio(Optional<String> username, Optional<String> email, Optional<Boolean> isDeleted) {
         // Criterio de búsqueda por nombre
         Specification<User> specUsernameUser = (root, query, criteriaBuilder) ->
                 username.map(m -> criteriaBuilder.like(criteriaBuilder.lower(root.get("username")), "%" +
@@ -55,24 +83,26 @@ public class UserServiceImpl implements UserService{
                 isDeleted.map(m -> criteriaBuilder.equal(root.get("isDeleted"), m))
                         .orElseGet(() -> criteriaBuilder.isTrue(criteriaBuilder.literal(true)));
 
-        Specification<User> criterio = Specification.allOf(specUsernameUser, specEmailUser, specIsDeleted);
-
-        return userRepository.findAll(criterio, pageable).map(usersMapper::toUserResponse);
+        return Specification.allOf(specUsernameUser, specEmailUser, specIsDeleted);
     }
 
     @Override
     @Cacheable
     public UserInfoResponse findById(Long id) {
         log.info("Bucando usuario con id: {}", id);
-        // Buscar el usuario
-        var user = userRepository.findById(id).orElseThrow(() -> new UserNotFound(id));
-        // Buscar los alumnos asociados al usuario
-        var alumnos = alumnosRepository.findByUsuarioId(id).stream()
-                .map(p -> p.getNombre()).toList();
-        return usersMapper.toUserInfoResponse(user, alumnos);
+        // Los fallos de caché simultáneos del mismo usuario comparten una sola carga
+        return singleFlight.load("users", id, () -> {
+            // Buscar el usuario
+            var user = userRepository.findById(id).orElseThrow(() -> new UserNotFound(id));
+            // Buscar los alumnos asociados al usuario
+            var alumnos = alumnosRepository.findByUsuarioId(id).stream()
+                    .map(p -> p.getNombre()).toList();
+            return usersMapper.toUserInfoResponse(user, alumnos);
+        });
     }
 
     @Override
+    @Transactional
     @CachePut(key = "#result.id")
     public UserResponse save(UserRequest userRequest) {
         log.info("Guardando usuario: {}", userRequest);
@@ -80,14 +110,18 @@ public class UserServiceImpl implements UserService{
                 .ifPresent(u -> {
                     throw new UserNameOrEmailExists("Ya existe un usuario con ese username o email");
                 });
-        return usersMapper.toUserResponse(userRepository.save(usersMapper.toUser(userRequest)));
+        UserResponse usuario = usersMapper.toUserResponse(userRepository.save(usersMapper.toUser(userRequest)));
+        // Los ETag no cambian hasta que el cambio está confirmado
+        AfterCommit.run(() -> writeVersions.incrementar(WriteVersions.USUARIOS));
+        return usuario;
     }
 
     @Override
+    @Transactional
     @CachePut(key = "#result.id")
     public UserResponse update(Long id, UserRequest userRequest) {
         log.info("Actualizando usuario: {}", userRequest);
-        userRepository.findById(id).orElseThrow(() -> new UserNotFound(id));
+        User actual = userRepository.findById(id).orElseThrow(() -> new UserNotFound(id));
         userRepository.findByUsernameEqualsIgnoreCaseOrEmailEqualsIgnoreCase(userRequest.getUsername(), userRequest.getEmail())
                 .ifPresent(u -> {
                     if (!u.getId().equals(id)) {
@@ -95,7 +129,19 @@ public class UserServiceImpl implements UserService{
                         throw new UserNameOrEmailExists("Ya existe un usuario con ese username o email");
                     }
                 });
-        return usersMapper.toUserResponse(userRepository.save(usersMapper.toUser(userRequest, id)));
+        // Leemos el username antes de guardar: el mismo objeto puede salir modificado del save
+        String usernameAnterior = actual.getUsername();
+        Set<Role> rolesAnteriores = Set.copyOf(actual.getRoles());
+        UserResponse usuario = usersMapper.toUserResponse(userRepository.save(usersMapper.toUser(userRequest, id)));
+        AfterCommit.run(() -> writeVersions.incrementar(WriteVersions.USUARIOS));
+        // Sus tokens llevan el username y los roles: si cambian dejan de valer
+        if (!usernameAnterior.equals(usuario.getUsername()) || !rolesAnteriores.equals(usuario.getRoles())) {
+            AfterCommit.run(() -> tokenRevocations.revocar(id));
+        }
+        // Roles o contraseña nuevos en la siguiente petición, también si ha cambiado de username
+        authUsersService.evict(usernameAnterior);
+        authUsersService.evict(usuario.getUsername());
+        return usuario;
     }
 
     @Override
@@ -112,6 +158,9 @@ public class UserServiceImpl implements UserService{
             log.info("Borrado fisico de usuario por id: {}", id);
             userRepository.delete(user);
         }
+        AfterCommit.run(() -> writeVersions.incrementar(WriteVersions.USUARIOS));
+        AfterCommit.run(() -> tokenRevocations.revocar(id));
+        authUsersService.evict(user.getUsername());
     }
 
     public List<User> findAllActiveUsers() {
@@ -0,0 +1,79 @@
+package es.nicolas.utils.etag;
+
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Collectors;
+
+/**
+ * ETags fuertes y Last-Modified a partir de la fecha de modificación o de las versiones de escritura,
+ * sin serializar el cuerpo de la respuesta.
+ * Con el ETag y el Last-Modified en el ResponseEntity, Spring responde 304 a los GET con
+ * If-None-Match o If-Modified-Since que coinciden, sin escribir el cuerpo.
+ */
+public final class ETagUtils {
+    // Las versiones de escritura están en memoria: distinguimos los ETags de cada arranque
+    private static final String ARRANQUE = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private ETagUtils() {
+    }
+
+    /**
+     * ETag de un recurso a partir de los datos que determinan su representación (id, updatedAt...)
+     */
+    public static String of(Object... partes) {
+        return "\"" + resumen(partes) + "\"";
+    }
+
+    /**
+     * ETag a partir de versiones de escritura en memoria ({@link WriteVersions}), válido solo en este arranque
+     */
+    public static String ofVersiones(String recurso, long... versiones) {
+        return of(ARRANQUE, recurso, Arrays.toString(versiones));
+    }
+
+    public static Instant lastModified(LocalDateTime updatedAt) {
+        return updatedAt.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * 200 con ETag y, si hay fecha de modificación, Last-Modified
+     */
+    public static <T> ResponseEntity<T> ok(T body, String eTag, LocalDateTime updatedAt) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(eTag);
+        if (updatedAt != null) {
+            builder.lastModified(lastModified(updatedAt));
+        }
+        return builder.body(body);
+    }
+
+    /**
+     * Comprueba la cabecera If-Match: "*" o alguno de los ETags de la lista.
+     * Los ETags débiles (W/) nunca coinciden, If-Match usa la comparación fuerte
+     *
+     * @param ifMatch valor de la cabecera If-Match
+     * @param eTag    ETag actual del recurso
+     */
+    public static boolean matches(String ifMatch, String eTag) {
+        return Arrays.stream(ifMatch.split(","))
+                .map(String::trim)
+                .anyMatch(candidato -> candidato.equals("*") || candidato.equals(eTag));
+    }
+
+    private static String resumen(Object... partes) {
+        String texto = Arrays.stream(partes).map(String::valueOf).collect(Collectors.joining("|"));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(texto.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
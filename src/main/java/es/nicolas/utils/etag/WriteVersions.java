@@ -0,0 +1,33 @@
+package es.nicolas.utils.etag;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión de escritura de cada tipo de recurso: los servicios la incrementan en cada alta, modificación o borrado.
+ * Sirve para saber si algo ha cambiado sin consultar la base de datos (cachés de consultas, ETags).
+ * Está en memoria, así que vuelve a empezar en cada arranque.
+ */
+@Component
+public class WriteVersions {
+    public static final String ALUMNOS = "alumnos";
+    public static final String ASIGNATURAS = "asignaturas";
+    public static final String USUARIOS = "usuarios";
+
+    private final Map<String, AtomicLong> versiones = new ConcurrentHashMap<>();
+
+    /**
+     * @return la nueva versión del recurso
+     */
+    public long incrementar(String recurso) {
+        return versiones.computeIfAbsent(recurso, r -> new AtomicLong()).incrementAndGet();
+    }
+
+    public long version(String recurso) {
+        AtomicLong version = versiones.get(recurso);
+        return version == null ? 0 : version.get();
+    }
+}
@@ -0,0 +1,78 @@
+package es.nicolas.utils.pagination;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Codifica y decodifica los cursores opacos de la paginación keyset.
+ * El cursor es el JSON de las claves de ordenación (y el id) de la última fila en Base64 URL.
+ */
+@RequiredArgsConstructor
+@Component
+public class CursorUtils {
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Crea el cursor de la siguiente página
+     *
+     * @param window ventana obtenida con una posición keyset
+     * @return cursor de la siguiente página o null si no hay más
+     */
+    public String encode(Window<?> window) {
+        if (window.isEmpty() || !window.hasNext()) {
+            return null;
+        }
+        if (!(window.positionAt(window.size() - 1) instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalArgumentException("La ventana no se ha obtenido con una posición keyset");
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(keyset.getKeys()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se ha podido codificar el cursor", e);
+        }
+    }
+
+    /**
+     * Obtiene la posición keyset a partir de un cursor
+     *
+     * @param cursor   cursor recibido del cliente, vacío o null para la primera página
+     * @param keyTypes claves que debe contener el cursor y su tipo
+     * @return posición desde la que continuar
+     * @throws IllegalArgumentException si el cursor no es válido o no corresponde a la ordenación
+     */
+    public KeysetScrollPosition decode(String cursor, Map<String, Class<?>> keyTypes) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> raw;
+        try {
+            raw = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), new TypeReference<>() {});
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cursor no válido: " + cursor, e);
+        }
+        if (raw == null || !raw.keySet().equals(keyTypes.keySet())) {
+            throw new IllegalArgumentException("El cursor no corresponde a la ordenación solicitada");
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keyTypes.forEach((key, type) -> {
+            // Las claves de ordenación nunca son null: un null solo puede venir de un cursor manipulado
+            Object valor = raw.get(key) == null ? null : objectMapper.convertValue(raw.get(key), type);
+            if (valor == null) {
+                throw new IllegalArgumentException("El cursor no tiene valor para la clave " + key);
+            }
+            keys.put(key, valor);
+        });
+        return ScrollPosition.forward(keys);
+    }
+}
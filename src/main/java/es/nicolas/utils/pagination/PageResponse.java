@@ -1,22 +1,29 @@
 package es.nicolas.utils.pagination;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 
 import java.util.List;
 
+// Los campos nulos no se serializan: en modo cursor o slice no hay totales
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record PageResponse<T>(
         List<T> content,
-        int totalPages,
-        long totalElements,
+        Integer totalPages,
+        Long totalElements,
         int pageSize,
-        int pageNumber,
+        Integer pageNumber,
         int totalPageElements,
         boolean empty,
         boolean first,
         boolean last,
         String sortBy,
-        String direction
+        String direction,
+        boolean hasNext,
+        String next
 ) {
     // Podemos hacer un mapper en este caso
     public static <T> PageResponse<T> of(Page<T> page, String sortBy, String direction){
@@ -31,7 +38,47 @@ public record PageResponse<T>(
                 page.isFirst(),
                 page.isLast(),
                 sortBy,
-                direction
+                direction,
+                page.hasNext(),
+                null
+        );
+    }
+
+    // Slice: sin COUNT, solo sabemos si hay página siguiente
+    public static <T> PageResponse<T> of(Slice<T> slice, String sortBy, String direction){
+        return new PageResponse<>(
+                slice.getContent(),
+                null,
+                null,
+                slice.getSize(),
+                slice.getNumber(),
+                slice.getNumberOfElements(),
+                slice.isEmpty(),
+                slice.isFirst(),
+                slice.isLast(),
+                sortBy,
+                direction,
+                slice.hasNext(),
+                null
+        );
+    }
+
+    // Paginación por cursor (keyset): no hay COUNT, solo el cursor de la siguiente página
+    public static <T> PageResponse<T> of(Window<T> window, int pageSize, boolean first, String sortBy, String direction, String next){
+        return new PageResponse<>(
+                window.getContent(),
+                null,
+                null,
+                pageSize,
+                null,
+                window.size(),
+                window.isEmpty(),
+                first,
+                !window.hasNext(),
+                sortBy,
+                direction,
+                window.hasNext(),
+                next
         );
     }
 }
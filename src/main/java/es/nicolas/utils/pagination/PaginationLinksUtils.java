@@ -1,6 +1,7 @@
 package es.nicolas.utils.pagination;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -10,7 +11,7 @@ public class PaginationLinksUtils {
         final StringBuilder linkHeader = new StringBuilder();
 
         if (page.hasNext()) {
-            String uri = constructUri(page.getNumber() - 1, page.getSize(), uriBuilder);
+            String uri = constructUri(page.getNumber() + 1, page.getSize(), uriBuilder);
             linkHeader.append(buildLinkHeader(uri, "next"));
         }
 
@@ -36,6 +37,39 @@ public class PaginationLinksUtils {
         return linkHeader.toString();
     }
 
+    // Sin total de páginas no hay enlace "last"
+    public String createLinkHeader(Slice<?> slice, UriComponentsBuilder uriBuilder) {
+        final StringBuilder linkHeader = new StringBuilder();
+
+        if (slice.hasNext()) {
+            String uri = constructUri(slice.getNumber() + 1, slice.getSize(), uriBuilder);
+            linkHeader.append(buildLinkHeader(uri, "next"));
+        }
+
+        if (slice.hasPrevious()) {
+            String uri = constructUri(slice.getNumber() - 1, slice.getSize(), uriBuilder);
+            appendCommaIfNecessary(linkHeader);
+            linkHeader.append(buildLinkHeader(uri, "prev"));
+        }
+
+        if (!slice.isFirst()) {
+            String uri = constructUri(0, slice.getSize(), uriBuilder);
+            appendCommaIfNecessary(linkHeader);
+            linkHeader.append(buildLinkHeader(uri, "first"));
+        }
+
+        return linkHeader.toString();
+    }
+
+    // En modo cursor solo existe el enlace a la siguiente página
+    public String createLinkHeader(String nextCursor, UriComponentsBuilder uriBuilder) {
+        if (nextCursor == null) {
+            return "";
+        }
+        String uri = uriBuilder.replaceQueryParam("after", nextCursor).build().encode().toUriString();
+        return buildLinkHeader(uri, "next");
+    }
+
     private String constructUri(int newPageNumber, int size, UriComponentsBuilder uriBuilder) {
         return uriBuilder.replaceQueryParam("page", newPageNumber).replaceQueryParam("size", size).build().encode().toUriString();
     }
@@ -45,7 +79,7 @@ public class PaginationLinksUtils {
     }
 
     private void appendCommaIfNecessary(final StringBuilder linkHeader) {
-        if (linkHeader.isEmpty()) {
+        if (!linkHeader.isEmpty()) {
             linkHeader.append(", ");
         }
     }
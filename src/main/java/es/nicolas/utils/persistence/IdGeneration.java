@@ -0,0 +1,28 @@
+package es.nicolas.utils.persistence;
+
+/**
+ * Parámetros comunes de los generadores de ids por secuencia de las entidades.
+ * <p>
+ * El tamaño de bloque es una constante y no una propiedad de configuración por dos motivos:
+ * <ul>
+ *     <li>Se usa en {@code @SequenceGenerator(allocationSize = ...)} y los atributos de una anotación
+ *     tienen que ser expresiones constantes en tiempo de compilación (JLS 9.7.1): no pueden leer
+ *     un {@code @Value} ni nada que se resuelva al arrancar.</li>
+ *     <li>Tiene que coincidir con el INCREMENT BY de la secuencia en la base de datos. El optimizador pooled
+ *     da por hecho que cada nextval reserva exactamente ALLOCATION_SIZE ids: un nodo arrancado con otro valor
+ *     que la secuencia ya creada repetiría ids de otro nodo. Que sea una constante obliga a cambiarlo
+ *     en un despliegue, junto con un {@code ALTER SEQUENCE ... INCREMENT BY} en las bases de datos existentes
+ *     (con ddl-auto=create-drop Hibernate ya crea las secuencias con este valor).</li>
+ * </ul>
+ * El optimizador sí se configura al arrancar, con spring.jpa.properties.hibernate.id.optimizer.pooled.preferred.
+ */
+public final class IdGeneration {
+    // Ids que reserva cada llamada a la secuencia (optimizador pooled): un nextval cada ALLOCATION_SIZE inserts,
+    // igual que hibernate.jdbc.batch_size para que un batch completo no tenga que esperar a la secuencia
+    public static final int ALLOCATION_SIZE = 50;
+    // Primer valor de las secuencias: los ids anteriores quedan para los datos iniciales de data.sql
+    public static final int INITIAL_VALUE = 1000;
+
+    private IdGeneration() {
+    }
+}
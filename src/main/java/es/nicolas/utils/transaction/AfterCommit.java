@@ -0,0 +1,30 @@
+package es.nicolas.utils.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Efectos que solo deben verse cuando los datos ya están confirmados (cachés, notificaciones, versiones).
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Ejecuta la acción al confirmar la transacción en curso, o ya mismo si no hay ninguna.
+     * Si la transacción se deshace no se ejecuta
+     */
+    public static void run(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -12,8 +12,8 @@ public class AlumnoNotificationMapper {
                 alumno.getId(),
                 alumno.getNombre(),
                 alumno.getApellido(),
-                alumno.getAsignatura().getNombre(),
                 alumno.getGrado(),
+                alumno.getAsignatura().getNombre(),
                 alumno.getCreatedAt().toString(),
                 alumno.getUpdatedAt().toString(),
                 alumno.getUuid().toString()
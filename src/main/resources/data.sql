@@ -14,23 +14,28 @@ create table ALUMNOS (
 );
 */
 
-insert into asignaturas (nombre)
-values ('Programacion'), ( 'Base Datos'), ('Lenguaje de Marcas');
+-- Los ids se indican a mano para que no cambien: las secuencias empiezan en 1000
+-- (IdGeneration.INITIAL_VALUE), asi que los datos iniciales no chocan con los nuevos.
+-- En una base de datos que ya tenga datos de cuando los ids eran IDENTITY, hay que
+-- adelantar cada secuencia por encima del id maximo, por ejemplo:
+--   ALTER SEQUENCE alumnos_seq RESTART WITH <max(id) + 1000>;
+insert into asignaturas (id, nombre)
+values (1, 'Programacion'), (2, 'Base Datos'), (3, 'Lenguaje de Marcas');
 
-insert into alumnos (nombre, apellido, grado,asignatura_id, uuid)
-    values ('Bart', 'Benavente', '8 DAM', '1', UUID());
-insert into alumnos (nombre, apellido, grado, asignatura_id, uuid)
-    values ('Nicolas', 'Osorio', '2 DAW', '1', UUID());
-insert into alumnos (nombre, apellido, grado, asignatura_id, uuid)
-    values ('Cesar', 'Campos', '3 DAW','2', UUID());
-insert into alumnos (nombre, apellido, grado, asignatura_id, uuid)
-    values ('Dani', 'Delgado', '4 ASIR', '3', UUID());
+insert into alumnos (id, nombre, apellido, grado,asignatura_id, uuid)
+    values (1, 'Bart', 'Benavente', '8 DAM', '1', UUID());
+insert into alumnos (id, nombre, apellido, grado, asignatura_id, uuid)
+    values (2, 'Nicolas', 'Osorio', '2 DAW', '1', UUID());
+insert into alumnos (id, nombre, apellido, grado, asignatura_id, uuid)
+    values (3, 'Cesar', 'Campos', '3 DAW','2', UUID());
+insert into alumnos (id, nombre, apellido, grado, asignatura_id, uuid)
+    values (4, 'Dani', 'Delgado', '4 ASIR', '3', UUID());
 
 -- Datos de ejemplo USUARIOS
 -- Contraseña: Admin1
 -- No está asociado a ningún titulaar
-insert into USUARIOS (nombre, apellidos, username, email, password)
-    values ('Admin', 'Apellidadmin', 'admin', 'admin@prueba.net',
+insert into USUARIOS (id, nombre, apellidos, username, email, password)
+    values (1, 'Admin', 'Apellidadmin', 'admin', 'admin@prueba.net',
         '$2a$10$vPaqZvZkz6jhb7U7k/V/v.5vprfNdOnh4sxi/qpPRkYTzPmFlI9p2');
 
 insert into user_roles (user_id, roles)
@@ -39,16 +44,16 @@ insert into user_roles (user_id, roles)
     values (1, 'USER');
 
 -- Contraseña: User1
-insert into USUARIOS (nombre, apellidos, username, email, password, titular_id)
-    values ('User', 'Apelliduser', 'user', 'user#prueba.net',
+insert into USUARIOS (id, nombre, apellidos, username, email, password, titular_id)
+    values (2, 'User', 'Apelliduser', 'user', 'user#prueba.net',
         '$2a$10$e0MYzXyjpJS7Pd0RVvHwHeFX5cpA8AW8LZyWzUAnmK0jWAbHjg5eW', 2);
 insert into user_roles (user_id, roles)
     values (2, 'USER');
 
 
 -- Contraseña: Test1
-insert into USUARIOS (nombre, apellidos, username, email, password)
-values ('Test', 'Test Test', 'test', 'test@prueba.net',
+insert into USUARIOS (id, nombre, apellidos, username, email, password)
+values (3, 'Test', 'Test Test', 'test', 'test@prueba.net',
         '$2a$10$Pd1yyq2NowcsDf4Cpf/ZXObYFkcycswqHAqBndE1wWJvYwRxlb.Pu');
 insert into USER_ROLES (user_id, roles)
 values (2, 'USER');
\ No newline at end of file
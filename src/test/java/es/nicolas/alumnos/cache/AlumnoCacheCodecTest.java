@@ -0,0 +1,92 @@
+package es.nicolas.alumnos.cache;
+
+import es.nicolas.rest.alumnos.cache.AlumnoCacheCodec;
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlumnoCacheCodecTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AlumnoCacheCodec codec;
+
+    private final AlumnoResponseDto alumno = AlumnoResponseDto.builder()
+            .id(1L)
+            .nombre("Nicolás")
+            .apellido("Pérez")
+            .grado("1 DAW")
+            .createdAt(LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_456_789))
+            .updatedAt(LocalDateTime.of(2024, 1, 2, 12, 12, 12, 1_000))
+            .uuid(UUID.fromString("267ed00a-6c21-4c4a-8626-db28bcca7a26"))
+            .asignatura("Programación")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        codec = new AlumnoCacheCodec(meterRegistry);
+        ReflectionTestUtils.setField(codec, "tamanoDiccionario", 2);
+        ReflectionTestUtils.invokeMethod(codec, "init");
+    }
+
+    @Test
+    void encode_GuardaBytesYDecodeDevuelveElMismoAlumno() {
+        // Act
+        Object guardado = codec.encode(alumno);
+        // Assert
+        assertAll("encode_GuardaBytesYDecodeDevuelveElMismoAlumno",
+                () -> assertInstanceOf(byte[].class, guardado),
+                () -> assertEquals(alumno, codec.decode(guardado)),
+                // Cada lectura es una copia: modificarla no cambia lo guardado
+                () -> assertNotSame(codec.decode(guardado), codec.decode(guardado))
+        );
+    }
+
+    @Test
+    void encode_ConCamposANull_LosRespeta() {
+        // Arrange
+        var incompleto = AlumnoResponseDto.builder().id(2L).nombre("Ana").build();
+        // Act & Assert
+        assertEquals(incompleto, codec.decode(codec.encode(incompleto)));
+    }
+
+    @Test
+    void encode_GradoYAsignaturaVanAlDiccionario() {
+        // Act
+        byte[] primero = (byte[]) codec.encode(alumno);
+        byte[] segundo = (byte[]) codec.encode(alumno);
+        // Assert: solo dos cadenas en el diccionario, el valor no lleva sus textos
+        assertAll("encode_GradoYAsignaturaVanAlDiccionario",
+                () -> assertEquals(2, meterRegistry.get("cache.codec.dictionary.size").gauge().value()),
+                () -> assertEquals(primero.length, segundo.length),
+                () -> assertFalse(new String(primero).contains("1 DAW"))
+        );
+    }
+
+    @Test
+    void encode_ConElDiccionarioLleno_GuardaLasCadenasEnteras() {
+        // Arrange
+        codec.encode(alumno);
+        var otro = AlumnoResponseDto.builder().id(3L).grado("2 DAM").asignatura("Bases de datos").build();
+        // Act
+        Object guardado = codec.encode(otro);
+        // Assert
+        assertEquals(otro, codec.decode(guardado));
+    }
+
+    @Test
+    void encodeYDecode_DejanTalCualLoQueNoEsUnAlumno() {
+        // Act & Assert
+        assertAll("encodeYDecode_DejanTalCualLoQueNoEsUnAlumno",
+                () -> assertEquals("otro", codec.encode("otro")),
+                () -> assertNull(codec.encode(null)),
+                () -> assertEquals("otro", codec.decode("otro")),
+                () -> assertNull(codec.decode(null))
+        );
+    }
+}
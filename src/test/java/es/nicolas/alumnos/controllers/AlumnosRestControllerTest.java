@@ -1,9 +1,13 @@
 package es.nicolas.alumnos.controllers;
 
+import es.nicolas.rest.alumnos.dto.AlumnoBulkErrorDto;
+import es.nicolas.rest.alumnos.dto.AlumnoBulkResponseDto;
 import es.nicolas.rest.alumnos.dto.AlumnoCreateDto;
 import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
 import es.nicolas.rest.alumnos.dto.AlumnoUpdateDto;
 import es.nicolas.rest.alumnos.exceptions.AlumnoNotFoundException;
+import es.nicolas.rest.alumnos.exceptions.AlumnoPreconditionFailedException;
+import es.nicolas.rest.alumnos.export.AlumnoExportFormat;
 import es.nicolas.rest.alumnos.services.AlumnosService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +16,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.assertj.MockMvcTester;
@@ -20,6 +26,10 @@ import org.springframework.http.MediaType;
 
 
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -80,6 +90,35 @@ class AlumnosRestControllerTest {
         verify(alumnosService, times(1)).findAll(Optional.empty(), Optional.empty(), Optional.empty(), pageable);
     }
 
+    @Test
+    void getAllSinTotal() {
+        // Arrange
+        var alumnoResponses = List.of(alumnoResponse1, alumnoResponse2);
+        var pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
+        var slice = new SliceImpl<>(alumnoResponses, pageable, true);
+        when(alumnosService.findAllSlice(Optional.empty(), Optional.empty(), Optional.empty(), pageable)).thenReturn(slice);
+
+        // Act. Consultar el endpoint
+        var result = mockMvcTester.get()
+                .uri(ENDPOINT + "?withTotal=false")
+                .contentType(MediaType.APPLICATION_JSON)
+                .exchange();
+
+        // Assert
+        assertThat(result)
+                .hasStatusOk()
+                .bodyJson().satisfies(json -> {
+                    assertThat(json).extractingPath("$.content.length()").isEqualTo(alumnoResponses.size());
+                    assertThat(json).extractingPath("$.hasNext").isEqualTo(true);
+                    assertThat(json).doesNotHavePath("$.totalElements");
+                    assertThat(json).doesNotHavePath("$.totalPages");
+                });
+
+        // Verify
+        verify(alumnosService, times(1)).findAllSlice(Optional.empty(), Optional.empty(), Optional.empty(), pageable);
+        verify(alumnosService, never()).findAll(any(), any(), any(), any(Pageable.class));
+    }
+
     @Test
     void getAllByNombre(){
         // Arrange
@@ -259,6 +298,40 @@ class AlumnosRestControllerTest {
         verify(alumnosService, only()).save(any(AlumnoCreateDto.class));
     }
 
+    @Test
+    void createBulk() throws IOException {
+        // Arrange
+        String requestBody = """
+                {"nombre": "Giorgio", "apellido": "Bautista", "grado": "3 DAW", "asignatura": "Matematicas"}
+                {"nombre": "Mario", "apellido": "", "grado": "3 DAW", "asignatura": "Matematicas"}
+                """;
+
+        var resumen = AlumnoBulkResponseDto.builder()
+                .total(2)
+                .creados(1)
+                .errores(List.of(new AlumnoBulkErrorDto(2, "apellido: El apellido no puede estar vacío.")))
+                .build();
+
+        when(alumnosService.saveAll(any(InputStream.class))).thenReturn(resumen);
+
+        // Act
+        var result = mockMvcTester.post()
+                .uri(ENDPOINT + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(requestBody)
+                .exchange();
+
+        // Assert
+        assertThat(result)
+                .hasStatusOk()
+                .bodyJson()
+                .convertTo(AlumnoBulkResponseDto.class)
+                .isEqualTo(resumen);
+
+        // Verify
+        verify(alumnosService, only()).saveAll(any(InputStream.class));
+    }
+
 
     @Test
     void createWhenBadRequest() {
@@ -291,6 +364,58 @@ class AlumnosRestControllerTest {
     }
 
 
+    @Test
+    void getById_shouldReturnNotModified_whenETagMatches() {
+        // Arrange
+        Long alumnoId = alumnoResponse1.getId();
+        when(alumnosService.findById(alumnoId)).thenReturn(alumnoResponse1);
+        var primera = mockMvcTester.get()
+                .uri(ENDPOINT + "/" + alumnoId)
+                .exchange();
+        String eTag = primera.getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act
+        var result = mockMvcTester.get()
+                .uri(ENDPOINT + "/" + alumnoId)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange();
+
+        // Assert
+        assertThat(eTag).isNotBlank();
+        assertThat(result).hasStatus(HttpStatus.NOT_MODIFIED);
+        assertThat(result.getResponse().getContentAsByteArray()).isEmpty();
+        assertThat(result.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo(eTag);
+    }
+
+    @Test
+    void update_shouldThrowPreconditionFailed_whenIfMatchDoesNotMatch() {
+        // Arrange
+        Long id = alumnoResponse1.getId();
+        String requestBody = """
+                {
+                "grado": "4 DAW"
+                }
+                """;
+        when(alumnosService.findById(id)).thenReturn(alumnoResponse1);
+
+        // Act
+        var result = mockMvcTester.put()
+                .uri(ENDPOINT + "/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"otra-version\"")
+                .content(requestBody)
+                .exchange();
+
+        // Assert
+        assertThat(result)
+                .hasStatus(HttpStatus.PRECONDITION_FAILED)
+                .hasFailed().failure()
+                .isInstanceOf(AlumnoPreconditionFailedException.class);
+
+        // Verify
+        verify(alumnosService, never()).update(anyLong(), any(AlumnoUpdateDto.class));
+    }
+
     @Test
     void update() {
         // Arrange
@@ -438,4 +563,28 @@ class AlumnosRestControllerTest {
         // Verify
         verify(alumnosService, only()).deleteById(anyLong());
     }
-}
\ No newline at end of file
+
+    @Test
+    void export_ShouldStreamCsv_WithItsOwnTimeout() throws IOException {
+        // Arrange
+        doAnswer(inv -> {
+            inv.<OutputStream>getArgument(4).write("id,nombre\r\n1,Nicolas\r\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(alumnosService).exportar(any(), any(), any(), eq(AlumnoExportFormat.CSV), any(OutputStream.class));
+
+        // Act
+        var result = mockMvcTester.get()
+                .uri(ENDPOINT + "/export?format=csv")
+                .exchange();
+
+        // Assert: el timeout de la exportación es solo de esta petición
+        assertThat(result)
+                .hasStatusOk()
+                .hasHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"alumnos.csv\"")
+                .bodyText().isEqualTo("id,nombre\r\n1,Nicolas\r\n");
+        assertThat(result.getMvcResult().getRequest().getAsyncContext().getTimeout()).isEqualTo(600_000L);
+
+        // Verify
+        verify(alumnosService, only()).exportar(any(), any(), any(), eq(AlumnoExportFormat.CSV), any(OutputStream.class));
+    }
+}
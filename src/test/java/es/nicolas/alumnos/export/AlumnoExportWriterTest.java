@@ -0,0 +1,100 @@
+package es.nicolas.alumnos.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import es.nicolas.rest.alumnos.export.AlumnoExportFormat;
+import es.nicolas.rest.alumnos.export.AlumnoExportWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlumnoExportWriterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final AlumnoResponseDto alumno1 = AlumnoResponseDto.builder()
+            .id(1L)
+            .nombre("Juan")
+            .apellido("Pérez, \"el Rápido\"")
+            .grado("2 DAW")
+            .uuid(UUID.fromString("267ed00a-6c21-4c4a-8626-db28bcca7a26"))
+            .asignatura("Programacion")
+            .build();
+    private final AlumnoResponseDto alumno2 = AlumnoResponseDto.builder()
+            .id(2L)
+            .nombre("Ana")
+            .apellido("Gómez")
+            .grado("1 DAW")
+            .build();
+
+    @Test
+    void write_Ndjson_unaLineaPorAlumno() throws IOException {
+        // Arrange
+        var out = new ByteArrayOutputStream();
+        // Act
+        try (var writer = new AlumnoExportWriter(AlumnoExportFormat.NDJSON, objectMapper, out)) {
+            writer.write(alumno1);
+            writer.write(alumno2);
+        }
+        String[] lineas = out.toString(StandardCharsets.UTF_8).split("\n");
+        // Assert
+        assertAll("write_Ndjson_unaLineaPorAlumno",
+                () -> assertEquals(2, lineas.length),
+                () -> assertEquals(alumno1, objectMapper.readValue(lineas[0], AlumnoResponseDto.class)),
+                () -> assertEquals(alumno2, objectMapper.readValue(lineas[1], AlumnoResponseDto.class))
+        );
+    }
+
+    @Test
+    void write_Csv_cabeceraYCamposEscapados() throws IOException {
+        // Arrange
+        var out = new ByteArrayOutputStream();
+        // Act
+        try (var writer = new AlumnoExportWriter(AlumnoExportFormat.CSV, objectMapper, out)) {
+            writer.write(alumno1);
+            writer.write(alumno2);
+        }
+        String[] lineas = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        // Assert
+        assertAll("write_Csv_cabeceraYCamposEscapados",
+                () -> assertEquals(3, lineas.length),
+                () -> assertEquals("id,nombre,apellido,grado,createdAt,updatedAt,uuid,asignatura", lineas[0]),
+                () -> assertEquals("1,Juan,\"Pérez, \"\"el Rápido\"\"\",2 DAW,,,267ed00a-6c21-4c4a-8626-db28bcca7a26,Programacion", lineas[1]),
+                () -> assertEquals("2,Ana,Gómez,1 DAW,,,,", lineas[2])
+        );
+    }
+
+    @Test
+    void write_Csv_neutralizaLasFormulas() throws IOException {
+        // Arrange
+        AlumnoResponseDto malicioso = AlumnoResponseDto.builder()
+                .id(3L)
+                .nombre("=HYPERLINK(\"http://x\",\"y\")")
+                .apellido("+1")
+                .grado("-2")
+                .asignatura("@SUM(A1)")
+                .build();
+        var out = new ByteArrayOutputStream();
+        // Act
+        try (var writer = new AlumnoExportWriter(AlumnoExportFormat.CSV, objectMapper, out)) {
+            writer.write(malicioso);
+        }
+        String[] lineas = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        // Assert: el id es un número y no se toca
+        assertEquals("3,\"'=HYPERLINK(\"\"http://x\"\",\"\"y\"\")\",'+1,'-2,,,,'@SUM(A1)", lineas[1]);
+    }
+
+    @Test
+    void close_CsvVacio_escribeSoloLaCabecera() throws IOException {
+        // Arrange
+        var out = new ByteArrayOutputStream();
+        // Act
+        new AlumnoExportWriter(AlumnoExportFormat.CSV, objectMapper, out).close();
+        // Assert
+        assertEquals("id,nombre,apellido,grado,createdAt,updatedAt,uuid,asignatura\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -1,5 +1,6 @@
 package es.nicolas.alumnos.repositories;
 
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
 import es.nicolas.rest.alumnos.models.Alumno;
 import es.nicolas.rest.alumnos.repositories.AlumnosRepository;
 import es.nicolas.rest.asignaturas.models.Asignatura;
@@ -9,6 +10,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.jdbc.Sql;
 
 import java.time.LocalDateTime;
@@ -19,7 +25,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 // Ejecuta el script SQL antes de cada método de prueba
 @Sql(value = {"/reset.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
-@DataJpaTest
+// Sin bloques de ids en memoria, para que reset.sql pueda reiniciar las secuencias
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.id.optimizer.pooled.preferred=none")
 class AlumnosRepositoryTest {
     @Autowired
     private AlumnosRepository repository;
@@ -91,6 +98,71 @@ class AlumnosRepositoryTest {
     }
 
 
+    @Test
+    void findAll_PorColumnaDeBusqueda_returnsAlumnosSinDistinguirMayusculas() {
+        // Arrange: las columnas de búsqueda las calcula la base de datos en minúsculas
+        Specification<Alumno> prefijoApellido = (root, query, criteriaBuilder) ->
+                criteriaBuilder.like(root.get("apellidoBusqueda"), "d%");
+        testEntityManager.clear(); // las entidades en memoria no tienen el valor calculado
+        // Act
+        List<Alumno> alumnos = repository.findAll(prefijoApellido);
+        // Assert
+        assertAll("findAll_PorColumnaDeBusqueda_returnsAlumnosSinDistinguirMayusculas",
+                () -> assertEquals(1, alumnos.size()),
+                () -> assertEquals("Delgado", alumnos.getFirst().getApellido()),
+                () -> assertEquals("delgado", alumnos.getFirst().getApellidoBusqueda())
+        );
+    }
+
+    @Test
+    void findAllResponseDto_returnsPaginaDeDtos() {
+        // Arrange
+        Specification<Alumno> sinFiltros = (root, query, criteriaBuilder) -> null;
+        var pageable = PageRequest.of(0, 2, Sort.by("id").ascending());
+        // Act
+        var page = repository.findAllResponseDto(sinFiltros, pageable);
+        // Assert: los alumnos sin asignatura también salen gracias al LEFT JOIN
+        assertAll("findAllResponseDto_returnsPaginaDeDtos",
+                () -> assertEquals(2, page.getContent().size()),
+                () -> assertEquals(4, page.getTotalElements()),
+                () -> assertEquals("Nicolas", page.getContent().getFirst().getNombre()),
+                () -> assertNull(page.getContent().getFirst().getAsignatura())
+        );
+    }
+
+    @Test
+    void findResponseDtoByIdIn_returnsSoloLosNoBorrados() {
+        // Arrange
+        List<Long> ids = repository.findAll(Sort.by("id")).stream().map(Alumno::getId).toList();
+        repository.updateIsDeletedToTrueById(ids.get(1));
+        testEntityManager.clear();
+        // Act
+        var alumnos = repository.findResponseDtoByIdIn(ids.subList(0, 2));
+        // Assert: los alumnos sin asignatura también salen gracias al LEFT JOIN
+        assertAll("findResponseDtoByIdIn_returnsSoloLosNoBorrados",
+                () -> assertEquals(1, alumnos.size()),
+                () -> assertEquals("Nicolas", alumnos.getFirst().getNombre())
+        );
+    }
+
+    @Test
+    void scrollResponseDto_continuaDesdeLaUltimaFila() {
+        // Arrange: grado descendente y el id como desempate
+        Specification<Alumno> sinFiltros = (root, query, criteriaBuilder) -> null;
+        Sort sort = Sort.by(Sort.Order.desc("grado"), Sort.Order.desc("id"));
+        // Act
+        var primera = repository.scrollResponseDto(sinFiltros, sort, 2, ScrollPosition.keyset());
+        var segunda = repository.scrollResponseDto(sinFiltros, sort, 2,
+                (KeysetScrollPosition) primera.positionAt(primera.size() - 1));
+        // Assert: 4 ASIR, 3 DAW (id 3), 3 DAW (id 2), 2 DAW
+        assertAll("scrollResponseDto_continuaDesdeLaUltimaFila",
+                () -> assertEquals(List.of("Dani", "Cesar"), primera.map(AlumnoResponseDto::getNombre).getContent()),
+                () -> assertTrue(primera.hasNext()),
+                () -> assertEquals(List.of("Gabriel", "Nicolas"), segunda.map(AlumnoResponseDto::getNombre).getContent()),
+                () -> assertFalse(segunda.hasNext())
+        );
+    }
+
     @Test
     void findById_ExistingId_returnsOptionalWithAlumno() {
         // Act
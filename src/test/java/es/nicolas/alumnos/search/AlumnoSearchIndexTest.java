@@ -0,0 +1,155 @@
+package es.nicolas.alumnos.search;
+
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import es.nicolas.rest.alumnos.mappers.AlumnoMapper;
+import es.nicolas.rest.alumnos.repositories.AlumnosRepository;
+import es.nicolas.rest.alumnos.search.AlumnoSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlumnoSearchIndexTest {
+
+    private final AlumnoResponseDto alumno1 = AlumnoResponseDto.builder()
+            .id(1L)
+            .nombre("Juan")
+            .apellido("Pérez")
+            .build();
+    private final AlumnoResponseDto alumno2 = AlumnoResponseDto.builder()
+            .id(2L)
+            .nombre("Nicolás")
+            .apellido("Osorio")
+            .build();
+    private final AlumnoResponseDto alumno3 = AlumnoResponseDto.builder()
+            .id(3L)
+            .nombre("Ana")
+            .apellido("Peña")
+            .build();
+
+    @Mock
+    private AlumnosRepository alumnosRepository;
+    @Mock
+    private AlumnoMapper alumnoMapper;
+
+    private AlumnoSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AlumnoSearchIndex(alumnosRepository, alumnoMapper);
+        index.indexar(alumno1);
+        index.indexar(alumno2);
+        index.indexar(alumno3);
+    }
+
+    @Test
+    void buscar_SinTildes_encuentraAlumnoConTildes() {
+        // Act
+        List<AlumnoSearchIndex.Resultado> resultados = index.buscar("perez", 10);
+        // Assert
+        assertAll("buscar_SinTildes_encuentraAlumnoConTildes",
+                () -> assertFalse(resultados.isEmpty()),
+                () -> assertEquals(1L, resultados.getFirst().id())
+        );
+    }
+
+    @Test
+    void buscar_ConErrata_ordenaPorParecido() {
+        // Act
+        List<AlumnoSearchIndex.Resultado> resultados = index.buscar("nicolas osorip", 10);
+        // Assert
+        assertAll("buscar_ConErrata_ordenaPorParecido",
+                () -> assertEquals(2L, resultados.getFirst().id()),
+                () -> assertTrue(resultados.stream().allMatch(r -> r.similitud() <= resultados.getFirst().similitud()))
+        );
+    }
+
+    @Test
+    void buscar_RespetaElLimite() {
+        // Act
+        List<AlumnoSearchIndex.Resultado> resultados = index.buscar("pe", 1);
+        // Assert
+        assertEquals(1, resultados.size());
+    }
+
+    @Test
+    void buscar_SinParecido_devuelveListaVacia() {
+        // Act & Assert
+        assertTrue(index.buscar("xyzw", 10).isEmpty());
+    }
+
+    @Test
+    void indexar_MismoId_reemplazaAlAnterior() {
+        // Arrange
+        AlumnoResponseDto renombrado = AlumnoResponseDto.builder()
+                .id(1L)
+                .nombre("Juan")
+                .apellido("Gómez")
+                .build();
+        // Act
+        index.indexar(renombrado);
+        // Assert
+        assertAll("indexar_MismoId_reemplazaAlAnterior",
+                () -> assertEquals(3, index.size()),
+                () -> assertTrue(index.buscar("perez", 10).stream().noneMatch(r -> r.id().equals(1L))),
+                () -> assertEquals(1L, index.buscar("gomez", 10).getFirst().id())
+        );
+    }
+
+    @Test
+    void eliminar_QuitaAlAlumnoDeLosResultados() {
+        // Act
+        index.eliminar(1L);
+        // Assert
+        assertAll("eliminar_QuitaAlAlumnoDeLosResultados",
+                () -> assertEquals(2, index.size()),
+                () -> assertTrue(index.buscar("perez", 10).stream().noneMatch(r -> r.id().equals(1L)))
+        );
+    }
+
+    @Test
+    void actualizar_CambiaSoloElCampoIndicado() {
+        // Act: cambio masivo del apellido, el nombre se queda como estaba
+        index.actualizar(1L, null, "Gómez");
+        // Assert
+        assertAll("actualizar_CambiaSoloElCampoIndicado",
+                () -> assertTrue(index.buscar("perez", 10).stream().noneMatch(r -> r.id().equals(1L))),
+                () -> assertEquals(1L, index.buscar("juan gomez", 10).getFirst().id())
+        );
+    }
+
+    @Test
+    void actualizar_NoIndexaAlumnosQueNoEstaban() {
+        // Act
+        index.actualizar(9L, "Gabriel", "Gómez");
+        // Assert
+        assertAll("actualizar_NoIndexaAlumnosQueNoEstaban",
+                () -> assertEquals(3, index.size()),
+                () -> assertTrue(index.buscar("gabriel gomez", 10).isEmpty())
+        );
+    }
+
+    @Test
+    void reconstruir_IndexaLaProyeccionSinCargarEntidades() {
+        // Arrange
+        when(alumnosRepository.streamResponseDto(any(), any(), anyInt())).thenReturn(Stream.of(alumno2));
+        // Act
+        index.reconstruir();
+        // Assert
+        assertAll("reconstruir_IndexaLaProyeccionSinCargarEntidades",
+                () -> assertEquals(1, index.size()),
+                () -> assertEquals(2L, index.buscar("osorio", 10).getFirst().id())
+        );
+        verify(alumnosRepository, never()).findAll();
+        verifyNoInteractions(alumnoMapper);
+    }
+}
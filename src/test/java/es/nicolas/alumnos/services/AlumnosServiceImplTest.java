@@ -2,27 +2,43 @@ package es.nicolas.alumnos.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import es.nicolas.rest.alumnos.dto.AlumnoCreateDto;
+import es.nicolas.rest.alumnos.dto.AlumnoKeyDto;
 import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import es.nicolas.rest.alumnos.cache.AlumnoQueryCache;
 import es.nicolas.rest.alumnos.dto.AlumnoUpdateDto;
 import es.nicolas.rest.alumnos.exceptions.AlumnoBadUuidException;
+import es.nicolas.rest.alumnos.exceptions.AlumnoBulkRequestException;
 import es.nicolas.rest.alumnos.exceptions.AlumnoNotFoundException;
 import es.nicolas.rest.alumnos.mappers.AlumnoMapper;
 import es.nicolas.rest.alumnos.models.Alumno;
 import es.nicolas.rest.alumnos.repositories.AlumnosRepository;
+import es.nicolas.rest.alumnos.search.AlumnoSearchIndex;
 import es.nicolas.rest.alumnos.services.AlumnosServiceImpl;
 import es.nicolas.rest.asignaturas.models.Asignatura;
-import es.nicolas.rest.asignaturas.services.AsignaturaService;
+import es.nicolas.rest.asignaturas.dictionary.AsignaturaNameDictionary;
+import es.nicolas.config.cache.SingleFlight;
 import es.nicolas.config.websockets.WebSocketConfig;
 import es.nicolas.config.websockets.WebSocketHandler;
+import es.nicolas.utils.etag.WriteVersions;
 import es.nicolas.websockets.notifications.mappers.AlumnoNotificationMapper;
 import es.nicolas.websockets.notifications.models.Notification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
@@ -77,9 +93,9 @@ class AlumnosServiceImplTest {
     @InjectMocks
     private AlumnosServiceImpl alumnosService;
 
-    // Mock de AsignaturaService para inyectarlo en AlumnosServiceImpl
+    // Mock del diccionario de asignaturas para inyectarlo en AlumnosServiceImpl
     @Mock
-    private AsignaturaService asignaturaService;
+    private AsignaturaNameDictionary asignaturaNameDictionary;
 
     // Captor de argumentos
     // El captor es para que comprueba que los argumentos
@@ -100,6 +116,25 @@ class AlumnosServiceImplTest {
     @Mock
     private WebSocketHandler webSocketService;
 
+    @Mock
+    private AlumnoSearchIndex alumnoSearchIndex;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    // Caché de páginas real sobre mapas en memoria: cada test empieza vacío
+    @Spy
+    private AlumnoQueryCache alumnoQueryCache = new AlumnoQueryCache(new ConcurrentMapCacheManager(), new WriteVersions());
+
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry());
+
     @BeforeEach
     void setUp() {
         alumnoResponse1 = alumnoMapper.toAlumnoResponseDto(alumno1);
@@ -111,11 +146,11 @@ class AlumnosServiceImplTest {
         // Arrange
         List <Alumno> expectedAlumnos = Arrays.asList(alumno1, alumno2);
         Pageable pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
-        Page<Alumno> expectedPage = new PageImpl<>(expectedAlumnos);
+        Page<AlumnoResponseDto> expectedPage = new PageImpl<>(expectedAlumnos.stream().map(alumnoMapper::toAlumnoResponseDto).toList());
         // el WHEN es para definir el comportamiento del mock
         // en este caso cuando se llame al metodo findAll del repositorio
         // devuelva la lista de alumnos esperada, osea aisla el sevice del repositorio
-        when(alumnosRepository.findAll(any(Specification.class), any(Pageable.class)))
+        when(alumnosRepository.findAllResponseDto(any(Specification.class), any(Pageable.class)))
                 .thenReturn(expectedPage);
 
         // Act
@@ -131,7 +166,7 @@ class AlumnosServiceImplTest {
 
         // Verify
         // Verifica que el findAll del repositorio se haya llamado una sola vez
-        verify(alumnosRepository, times(1)).findAll(any(Specification.class), any(Pageable.class));
+        verify(alumnosRepository, times(1)).findAllResponseDto(any(Specification.class), any(Pageable.class));
     }
 
     @Test
@@ -141,9 +176,9 @@ class AlumnosServiceImplTest {
         List <Alumno> expectedAlumnos = List.of(alumno1);
         // Creamos el objeto Pageable
         Pageable pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
-        Page<Alumno> expectedPage = new PageImpl<>(expectedAlumnos);
+        Page<AlumnoResponseDto> expectedPage = new PageImpl<>(expectedAlumnos.stream().map(alumnoMapper::toAlumnoResponseDto).toList());
 
-        when(alumnosRepository.findAll(any(Specification.class), any(Pageable.class)))
+        when(alumnosRepository.findAllResponseDto(any(Specification.class), any(Pageable.class)))
                 .thenReturn(expectedPage);
 
         // Act
@@ -159,7 +194,7 @@ class AlumnosServiceImplTest {
 
         // Verify
         // Verifica que solo se ejecuta ese metodo
-        verify(alumnosRepository, only()).findAll(any(Specification.class), any(Pageable.class));
+        verify(alumnosRepository, only()).findAllResponseDto(any(Specification.class), any(Pageable.class));
     }
 
     @Test
@@ -169,8 +204,8 @@ class AlumnosServiceImplTest {
         List <Alumno> expectedAlumnos = List.of(alumno1);
         Pageable pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
 
-        Page<Alumno> expectedPage = new PageImpl<>(expectedAlumnos);
-        when(alumnosRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(expectedPage);
+        Page<AlumnoResponseDto> expectedPage = new PageImpl<>(expectedAlumnos.stream().map(alumnoMapper::toAlumnoResponseDto).toList());
+        when(alumnosRepository.findAllResponseDto(any(Specification.class), any(Pageable.class))).thenReturn(expectedPage);
 
         // Act
         Page<AlumnoResponseDto> actualPage =  alumnosService.findAll(Optional.empty(), apellido, Optional.empty(), pageable);
@@ -183,7 +218,7 @@ class AlumnosServiceImplTest {
         );
 
         // Verify
-        verify(alumnosRepository, only()).findAll(any(Specification.class), any(Pageable.class));
+        verify(alumnosRepository, only()).findAllResponseDto(any(Specification.class), any(Pageable.class));
     }
 
     @Test
@@ -194,9 +229,9 @@ class AlumnosServiceImplTest {
         List <Alumno> expectedAlumnos = List.of(alumno1);
         Pageable pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
 
-        Page<Alumno> expectedPage = new PageImpl<>(expectedAlumnos);
+        Page<AlumnoResponseDto> expectedPage = new PageImpl<>(expectedAlumnos.stream().map(alumnoMapper::toAlumnoResponseDto).toList());
 
-        when(alumnosRepository.findAll(any(Specification.class), any(Pageable.class)))
+        when(alumnosRepository.findAllResponseDto(any(Specification.class), any(Pageable.class)))
                 .thenReturn(expectedPage);
 
         // Act
@@ -210,7 +245,43 @@ class AlumnosServiceImplTest {
         );
 
         // Verify
-        verify(alumnosRepository, only()).findAll(any(Specification.class), any(Pageable.class));
+        verify(alumnosRepository, only()).findAllResponseDto(any(Specification.class), any(Pageable.class));
+    }
+
+    // Patrón LIKE que aplica findAll a la columna de búsqueda del nombre
+    @SuppressWarnings("unchecked")
+    private String patronDelNombre(String nombre) {
+        when(alumnosRepository.findAllResponseDto(any(Specification.class), any(Pageable.class))).thenReturn(Page.empty());
+        alumnosService.findAll(Optional.of(nombre), Optional.empty(), Optional.empty(), PageRequest.of(0, 10));
+        ArgumentCaptor<Specification<Alumno>> criterio = ArgumentCaptor.forClass(Specification.class);
+        verify(alumnosRepository).findAllResponseDto(criterio.capture(), any(Pageable.class));
+
+        Root<Alumno> root = mock(Root.class);
+        Path<String> nombreBusqueda = mock(Path.class);
+        CriteriaBuilder criteriaBuilder = mock(CriteriaBuilder.class);
+        doReturn(nombreBusqueda).when(root).get("nombreBusqueda");
+        criterio.getValue().toPredicate(root, mock(CriteriaQuery.class), criteriaBuilder);
+        ArgumentCaptor<String> patron = ArgumentCaptor.forClass(String.class);
+        verify(criteriaBuilder).like(eq(nombreBusqueda), patron.capture(), eq('\\'));
+        return patron.getValue();
+    }
+
+    @Test
+    void findAll_ShouldSearchByIndexedPrefix_ByDefault() {
+        // Act
+        String patron = patronDelNombre("Nic");
+
+        // Assert: 'nic%' se resuelve con el índice de nombre_busqueda
+        assertEquals("nic%", patron);
+    }
+
+    @Test
+    void findAll_ShouldSearchByContent_OnlyWhenTermStartsWithAsterisk() {
+        // Act
+        String patron = patronDelNombre("*Co_la*");
+
+        // Assert
+        assertEquals("%co\\_la%", patron);
     }
 
     @Test
@@ -278,6 +349,22 @@ class AlumnosServiceImplTest {
         verify(alumnosRepository, never()).findByUuid(any());
     }
 
+    @Test
+    void claveUuid_ShouldNormalizeToTheAliasKey() {
+        // Arrange
+        String uuid = "267ED00A-6C21-4C4A-8626-DB28BCCA7A26";
+
+        // Act
+        String clave = AlumnosServiceImpl.claveUuid(uuid);
+
+        // Assert
+        assertAll("claveUuid",
+                () -> assertEquals("267ed00a-6c21-4c4a-8626-db28bcca7a26", clave),
+                () -> assertEquals(UUID.fromString(uuid).toString(), clave),
+                () -> assertEquals("1234", AlumnosServiceImpl.claveUuid("1234"))
+        );
+    }
+
     @Test
     void save_ShouldReturnSavedTarjeta_WhenValidAlumnoCreateDtoProvided() throws IOException {
         // Arrange
@@ -314,7 +401,7 @@ class AlumnosServiceImplTest {
                 .asignatura(asignaturaEncontrada)
                 .build();
 
-        when(asignaturaService.findByNombre("Matematicas")).thenReturn(asignaturaEncontrada);
+        when(asignaturaNameDictionary.findByNombre("Matematicas")).thenReturn(asignaturaEncontrada);
 
         // Convertimos el alumno esperado a AlumnoResponseDto))
         AlumnoResponseDto expectedAlumnoResponse = alumnoMapper.toAlumnoResponseDto(expectedAlumno);
@@ -437,4 +524,161 @@ class AlumnosServiceImplTest {
         // Act
         alumnosService.onChange(Notification.Tipo.CREATE, alumno1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateAll_ShouldUpdateAndEvictAlumnos_WhenFilterProvided() {
+        // Arrange
+        AlumnoUpdateDto cambios = AlumnoUpdateDto.builder().nombre("Gabriel").grado("3 DAW").build();
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(alumnosRepository.findKeysActivosByAsignaturaAndGrado("Matematicas", null))
+                .thenReturn(List.of(new AlumnoKeyDto(1L, alumno1.getUuid())));
+        when(alumnosRepository.updateCamposByIdIn(eq(List.of(1L)), eq("Gabriel"), isNull(), eq("3 DAW"), any(LocalDateTime.class)))
+                .thenReturn(1);
+        when(cacheManager.getCache("alumnos")).thenReturn(cache);
+
+        // Act
+        var resultado = alumnosService.updateAll(Optional.of("Matematicas"), Optional.empty(), cambios);
+
+        // Assert
+        assertEquals(1, resultado.getAfectados());
+
+        // Verify: una sentencia por los ids leídos, sin cargar alumnos, y la caché por id (el uuid es un alias de la misma entrada).
+        // El índice solo cambia el nombre, el apellido se queda como estaba
+        verify(alumnosRepository, times(1)).updateCamposByIdIn(eq(List.of(1L)), eq("Gabriel"), isNull(), eq("3 DAW"), any(LocalDateTime.class));
+        verify(cache).evict(1L);
+        verify(alumnoSearchIndex).actualizar(eq(1L), eq("Gabriel"), isNull());
+        verify(alumnosRepository, never()).save(any(Alumno.class));
+    }
+
+    @Test
+    void search_ShouldReturnAlumnosFromCacheAndRepository_InIndexOrder() {
+        // Arrange: el 2 está en la caché, el 1 no y el 3 se ha borrado después de indexarlo
+        AlumnoResponseDto cacheado = AlumnoResponseDto.builder().id(2L).nombre("Nicolas").build();
+        AlumnoResponseDto leido = AlumnoResponseDto.builder().id(1L).nombre("Nicole").build();
+        when(alumnoSearchIndex.buscar("nico", 10)).thenReturn(List.of(
+                new AlumnoSearchIndex.Resultado(2L, 0.9),
+                new AlumnoSearchIndex.Resultado(1L, 0.8),
+                new AlumnoSearchIndex.Resultado(3L, 0.5)));
+        when(cacheManager.getCache("alumnos")).thenReturn(cache);
+        when(cache.get(anyLong(), eq(AlumnoResponseDto.class))).thenAnswer(inv -> inv.getArgument(0).equals(2L) ? cacheado : null);
+        when(alumnosRepository.findResponseDtoByIdIn(List.of(1L, 3L))).thenReturn(List.of(leido));
+
+        // Act
+        var resultado = alumnosService.search("nico", 10);
+
+        // Assert
+        assertAll("search_ShouldReturnAlumnosFromCacheAndRepository_InIndexOrder",
+                () -> assertEquals(List.of(cacheado, leido), resultado)
+        );
+
+        // Verify: una sola consulta con los que faltaban en la caché
+        verify(alumnosRepository, times(1)).findResponseDtoByIdIn(any());
+    }
+
+    @Test
+    void updateAll_ShouldThrowBulkRequest_WhenNoFieldsProvided() {
+        // Arrange
+        AlumnoUpdateDto cambios = AlumnoUpdateDto.builder().build();
+
+        // Act & Assert
+        assertThatThrownBy(() -> alumnosService.updateAll(Optional.of("Matematicas"), Optional.empty(), cambios))
+                .isInstanceOf(AlumnoBulkRequestException.class);
+
+        // Verify
+        verifyNoInteractions(alumnosRepository);
+    }
+
+    @Test
+    void deleteAll_ShouldSoftDeleteAlumnos_WhenFilterProvided() {
+        // Arrange
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(alumnosRepository.findKeysActivosByAsignaturaAndGrado(null, "2 DAW"))
+                .thenReturn(List.of(new AlumnoKeyDto(1L, alumno1.getUuid())));
+        when(alumnosRepository.updateIsDeletedToTrueByIdIn(eq(List.of(1L)), any(LocalDateTime.class))).thenReturn(1);
+        when(cacheManager.getCache("alumnos")).thenReturn(cache);
+
+        // Act
+        var resultado = alumnosService.deleteAll(Optional.empty(), Optional.of("2 DAW"));
+
+        // Assert
+        assertEquals(1, resultado.getAfectados());
+
+        // Verify
+        verify(alumnosRepository, times(1)).updateIsDeletedToTrueByIdIn(eq(List.of(1L)), any(LocalDateTime.class));
+        verify(cache).evict(1L);
+        verify(alumnoSearchIndex).eliminar(1L);
+        verify(alumnosRepository, never()).deleteById(anyLong());
+    }
+
+    @Test
+    void deleteAll_ShouldThrowBulkRequest_WhenNoFilterProvided() {
+        // Act & Assert
+        assertThatThrownBy(() -> alumnosService.deleteAll(Optional.empty(), Optional.empty()))
+                .isInstanceOf(AlumnoBulkRequestException.class);
+
+        // Verify
+        verify(alumnosRepository, never()).updateIsDeletedToTrueByIdIn(any(), any());
+    }
+
+    @Test
+    void deleteAll_ShouldUpdateSelectedIdsInChunks_AndCountUpdatedRows() {
+        // Arrange: 1500 claves leídas, una fila ya no existe al actualizar
+        List<AlumnoKeyDto> claves = java.util.stream.LongStream.rangeClosed(1, 1500)
+                .mapToObj(id -> new AlumnoKeyDto(id, UUID.randomUUID()))
+                .toList();
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(alumnosRepository.findKeysActivosByAsignaturaAndGrado("Matematicas", null)).thenReturn(claves);
+        when(alumnosRepository.updateIsDeletedToTrueByIdIn(anyList(), any(LocalDateTime.class))).thenReturn(1000, 499);
+        when(cacheManager.getCache("alumnos")).thenReturn(cache);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> lotes = ArgumentCaptor.forClass(List.class);
+
+        // Act
+        var resultado = alumnosService.deleteAll(Optional.of("Matematicas"), Optional.empty());
+
+        // Assert
+        verify(alumnosRepository, times(2)).updateIsDeletedToTrueByIdIn(lotes.capture(), any(LocalDateTime.class));
+        assertAll("deleteAll_ShouldUpdateSelectedIdsInChunks_AndCountUpdatedRows",
+                () -> assertEquals(1499, resultado.getAfectados()),
+                () -> assertEquals(1000, lotes.getAllValues().get(0).size()),
+                () -> assertEquals(1L, lotes.getAllValues().get(0).getFirst()),
+                () -> assertEquals(List.of(1001L, 1500L), List.of(lotes.getAllValues().get(1).getFirst(), lotes.getAllValues().get(1).getLast()))
+        );
+        verify(cache).evict(1500L);
+    }
+
+    @Test
+    void findAll_ShouldServeFromCache_WhenSameQueryRepeated() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("apellido"));
+        Page<AlumnoResponseDto> expectedPage = new PageImpl<>(List.of(alumnoResponse1));
+        when(alumnosRepository.findAllResponseDto(any(Specification.class), any(Pageable.class))).thenReturn(expectedPage);
+
+        // Act: el filtro no distingue mayúsculas
+        alumnosService.findAll(Optional.of("Nicolas"), Optional.empty(), Optional.empty(), pageable);
+        Page<AlumnoResponseDto> actualPage = alumnosService.findAll(Optional.of("nicolas"), Optional.empty(), Optional.empty(), pageable);
+
+        // Assert
+        assertEquals(expectedPage, actualPage);
+
+        // Verify
+        verify(alumnosRepository, times(1)).findAllResponseDto(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void findAll_ShouldQueryAgain_AfterWrite() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("apellido"));
+        when(alumnosRepository.findAllResponseDto(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(alumnoResponse1)));
+
+        // Act
+        alumnosService.findAll(Optional.empty(), Optional.empty(), Optional.empty(), pageable);
+        alumnosService.onChange(Notification.Tipo.UPDATE, alumno1);
+        alumnosService.findAll(Optional.empty(), Optional.empty(), Optional.empty(), pageable);
+
+        // Verify
+        verify(alumnosRepository, times(2)).findAllResponseDto(any(Specification.class), any(Pageable.class));
+        verify(alumnoQueryCache, times(1)).invalidar();
+    }
+}
@@ -0,0 +1,81 @@
+package es.nicolas.asignaturas.cache;
+
+import es.nicolas.rest.alumnos.models.Alumno;
+import es.nicolas.rest.asignaturas.cache.AsignaturaCacheReloader;
+import es.nicolas.rest.asignaturas.dto.AsignaturaVersionDto;
+import es.nicolas.rest.asignaturas.models.Asignatura;
+import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsignaturaCacheReloaderTest {
+    private final LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 2, 12, 12, 12);
+    private final Asignatura cacheada = Asignatura.builder()
+            .id(1L)
+            .nombre("Programacion")
+            .updatedAt(updatedAt)
+            .alumnos(List.of(Alumno.builder().id(1L).updatedAt(updatedAt.plusDays(1)).build()))
+            .build();
+    // Lo que devuelve la base de datos para la asignatura cacheada
+    private final AsignaturaVersionDto version = AsignaturaVersionDto.builder()
+            .updatedAt(updatedAt).asignaturas(1L)
+            .alumnosUpdatedAt(updatedAt.plusDays(1)).alumnos(1L)
+            .usuarios(0L)
+            .build();
+
+    @Mock
+    private AsignaturasRespository asignaturasRespository;
+
+    @InjectMocks
+    private AsignaturaCacheReloader reloader;
+
+    @Test
+    void reload_SinCambios_ConservaLaCacheadaSinCargarSusAlumnos() {
+        // Arrange
+        when(asignaturasRespository.findVersionById(1L)).thenReturn(Optional.of(version));
+
+        // Act
+        Object recargada = reloader.reload(1L, cacheada);
+
+        // Assert
+        assertSame(cacheada, recargada);
+        verify(asignaturasRespository, never()).findWithAlumnosById(anyLong());
+    }
+
+    @Test
+    void reload_ConCambios_CargaLaAsignaturaConSusAlumnos() {
+        // Arrange: se ha borrado un alumno, ninguna fecha cambia
+        Asignatura actual = Asignatura.builder().id(1L).nombre("Programacion").alumnos(List.of()).build();
+        when(asignaturasRespository.findVersionById(1L))
+                .thenReturn(Optional.of(version.toBuilder().alumnos(0L).build()));
+        when(asignaturasRespository.findWithAlumnosById(1L)).thenReturn(Optional.of(actual));
+
+        // Act
+        Object recargada = reloader.reload(1L, cacheada);
+
+        // Assert
+        assertSame(actual, recargada);
+    }
+
+    @Test
+    void reload_SiYaNoExiste_DevuelveNull() {
+        // Arrange
+        when(asignaturasRespository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertNull(reloader.reload(1L, cacheada));
+        verify(asignaturasRespository, never()).findWithAlumnosById(anyLong());
+    }
+}
@@ -1,10 +1,13 @@
 package es.nicolas.asignaturas.controllers;
 
 import es.nicolas.rest.asignaturas.dto.AsignaturaRequestDto;
+import es.nicolas.rest.asignaturas.dto.AsignaturaVersionDto;
 import es.nicolas.rest.asignaturas.exceptions.AsignaturaConflictException;
 import es.nicolas.rest.asignaturas.exceptions.AsignaturaNotFoundException;
 import es.nicolas.rest.asignaturas.models.Asignatura;
 import es.nicolas.rest.asignaturas.services.AsignaturaService;
+import es.nicolas.utils.etag.ETagUtils;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -12,11 +15,13 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.assertj.MockMvcTester;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,6 +43,19 @@ class AsignaturasRestControllerTest {
     @MockitoBean
     private AsignaturaService asignaturaService;
 
+    // Validadores leídos de la base de datos
+    private final AsignaturaVersionDto version = AsignaturaVersionDto.builder()
+            .updatedAt(LocalDateTime.of(2024, 1, 2, 12, 12, 12)).asignaturas(2L)
+            .alumnosUpdatedAt(LocalDateTime.of(2024, 1, 3, 12, 12, 12)).alumnos(5L)
+            .usuarios(0L)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        when(asignaturaService.findVersion()).thenReturn(version);
+        when(asignaturaService.findVersionById(anyLong())).thenReturn(Optional.of(version));
+    }
+
     @Test
     void getAll() {
         var asignaturas = List.of(asignatura1, asignatura2);
@@ -91,6 +109,73 @@ class AsignaturasRestControllerTest {
                 .findAll(nombre, Optional.empty(), pageable);
     }
 
+    @Test
+    void getAll_ShouldReturnNotModified_WhenETagMatches() {
+        var pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
+        when(asignaturaService.findAll(Optional.empty(), Optional.empty(), pageable))
+                .thenReturn(new PageImpl<>(List.of(asignatura1, asignatura2)));
+        String eTag = mockMvcTester.get()
+                .uri(ENDPOINT)
+                .exchange()
+                .getResponse().getHeader(HttpHeaders.ETAG);
+
+        var result = mockMvcTester.get()
+                .uri(ENDPOINT)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange();
+
+        assertThat(eTag).isNotBlank();
+        assertThat(result).hasStatus(HttpStatus.NOT_MODIFIED);
+        assertThat(result.getResponse().getContentAsByteArray()).isEmpty();
+
+        // Sin cambios no se vuelve a consultar
+        verify(asignaturaService, times(1)).findAll(Optional.empty(), Optional.empty(), pageable);
+    }
+
+    @Test
+    void getAll_ShouldReturnFullBody_WhenPersistedDataChanged() {
+        var pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
+        when(asignaturaService.findAll(Optional.empty(), Optional.empty(), pageable))
+                .thenReturn(new PageImpl<>(List.of(asignatura1, asignatura2)));
+        String eTag = mockMvcTester.get()
+                .uri(ENDPOINT)
+                .exchange()
+                .getResponse().getHeader(HttpHeaders.ETAG);
+        // Otro nodo, el job de purga o la base de datos borran un alumno: no cambia ninguna fecha, sí el número
+        when(asignaturaService.findVersion()).thenReturn(version.toBuilder().alumnos(4L).build());
+
+        var result = mockMvcTester.get()
+                .uri(ENDPOINT)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange();
+
+        assertThat(result).hasStatusOk();
+        assertThat(result.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(eTag);
+        verify(asignaturaService, times(2)).findAll(Optional.empty(), Optional.empty(), pageable);
+    }
+
+    @Test
+    void getById_ShouldSendLastModified_AndReturnNotModifiedSinceThen() {
+        Long id = 1L;
+        when(asignaturaService.findById(id)).thenReturn(asignatura1);
+        var primera = mockMvcTester.get()
+                .uri(ENDPOINT + "/" + id)
+                .exchange();
+        String lastModified = primera.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        var result = mockMvcTester.get()
+                .uri(ENDPOINT + "/" + id)
+                .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified)
+                .exchange();
+
+        // La fecha más reciente es la de los alumnos
+        assertThat(primera).hasStatusOk();
+        assertThat(primera.getResponse().getDateHeader(HttpHeaders.LAST_MODIFIED))
+                .isEqualTo(ETagUtils.lastModified(version.getAlumnosUpdatedAt()).toEpochMilli());
+        assertThat(result).hasStatus(HttpStatus.NOT_MODIFIED);
+        verify(asignaturaService, times(1)).findById(id);
+    }
+
     @Test
     void getById() {
         Long id  = 1L;
@@ -0,0 +1,106 @@
+package es.nicolas.asignaturas.dictionary;
+
+import es.nicolas.rest.asignaturas.dictionary.AsignaturaNameDictionary;
+import es.nicolas.rest.asignaturas.exceptions.AsignaturaNotFoundException;
+import es.nicolas.rest.asignaturas.models.Asignatura;
+import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsignaturaNameDictionaryTest {
+    private final Asignatura programacion = Asignatura.builder().id(1L).nombre("Programacion").build();
+    private final Asignatura lengua = Asignatura.builder().id(2L).nombre("Lengua").build();
+
+    @Mock
+    private AsignaturasRespository asignaturasRespository;
+
+    private AsignaturaNameDictionary diccionario;
+
+    @BeforeEach
+    void setUp() {
+        diccionario = new AsignaturaNameDictionary(asignaturasRespository);
+        when(asignaturasRespository.findAll()).thenReturn(List.of(programacion, lengua));
+        diccionario.reconstruir();
+    }
+
+    @Test
+    void buscar_SinDistinguirMayusculas_noConsultaLaBaseDeDatos() {
+        // Act & Assert
+        assertAll("buscar_SinDistinguirMayusculas_noConsultaLaBaseDeDatos",
+                () -> assertEquals(programacion, diccionario.findByNombre("programacion")),
+                () -> assertEquals(programacion, diccionario.findByNombre("PROGRAMACION")),
+                () -> assertEquals(2, diccionario.size())
+        );
+
+        // Verify
+        verify(asignaturasRespository, never()).findByNombreEqualsIgnoreCase(anyString());
+    }
+
+    @Test
+    void buscar_NoEncontrada_consultaLaBaseDeDatosYLaGuarda() {
+        // Arrange
+        Asignatura historia = Asignatura.builder().id(3L).nombre("Historia").build();
+        when(asignaturasRespository.findByNombreEqualsIgnoreCase("historia")).thenReturn(Optional.of(historia));
+
+        // Act
+        diccionario.findByNombre("historia");
+        var res = diccionario.findByNombre("Historia");
+
+        // Assert
+        assertEquals(historia, res);
+
+        // Verify: la segunda vez ya está en el diccionario
+        verify(asignaturasRespository, times(1)).findByNombreEqualsIgnoreCase(anyString());
+    }
+
+    @Test
+    void findByNombre_NoExiste_lanzaNotFound() {
+        // Arrange
+        when(asignaturasRespository.findByNombreEqualsIgnoreCase("Fisica")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(AsignaturaNotFoundException.class, () -> diccionario.findByNombre("Fisica"));
+    }
+
+    @Test
+    void guardar_ConOtroNombre_quitaElAnterior() {
+        // Arrange
+        Asignatura renombrada = Asignatura.builder().id(1L).nombre("Programacion II").build();
+        when(asignaturasRespository.findByNombreEqualsIgnoreCase("programacion")).thenReturn(Optional.empty());
+
+        // Act
+        diccionario.guardar(renombrada);
+
+        // Assert
+        assertAll("guardar_ConOtroNombre_quitaElAnterior",
+                () -> assertEquals(renombrada, diccionario.findByNombre("programacion ii")),
+                () -> assertTrue(diccionario.buscar("programacion").isEmpty()),
+                () -> assertEquals(2, diccionario.size())
+        );
+    }
+
+    @Test
+    void eliminar_QuitaLaAsignatura() {
+        // Arrange
+        when(asignaturasRespository.findByNombreEqualsIgnoreCase("lengua")).thenReturn(Optional.empty());
+
+        // Act
+        diccionario.eliminar(2L);
+
+        // Assert
+        assertAll("eliminar_QuitaLaAsignatura",
+                () -> assertTrue(diccionario.buscar("lengua").isEmpty()),
+                () -> assertEquals(1, diccionario.size())
+        );
+    }
+}
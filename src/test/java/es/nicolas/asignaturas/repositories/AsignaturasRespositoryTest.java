@@ -1,5 +1,7 @@
 package es.nicolas.asignaturas.repositories;
 
+import es.nicolas.rest.alumnos.models.Alumno;
+import es.nicolas.rest.asignaturas.dto.AsignaturaVersionDto;
 import es.nicolas.rest.asignaturas.models.Asignatura;
 import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,12 +11,15 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.jdbc.Sql;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @Sql(value = {"/reset.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
-@DataJpaTest
+// Sin bloques de ids en memoria, para que reset.sql pueda reiniciar las secuencias
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.id.optimizer.pooled.preferred=none")
 class AsignaturasRespositoryTest {
 
     private final Asignatura asignatura = Asignatura.builder().nombre("Programacion").build();
@@ -112,4 +117,32 @@ class AsignaturasRespositoryTest {
         Asignatura asignatura = repository.findById(1L).orElse(null);
         assertNotNull(asignatura);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findVersionById_CambiaConLosAlumnosDeLaAsignatura() {
+        AsignaturaVersionDto antes = repository.findVersionById(asignatura.getId()).orElseThrow();
+        LocalDateTime modificado = LocalDateTime.of(2030, 1, 2, 12, 12, 12);
+        entityManager.persist(Alumno.builder()
+                .nombre("Nicolas").apellido("Osorio").grado("2 DAW")
+                .createdAt(modificado).updatedAt(modificado)
+                .uuid(UUID.randomUUID())
+                .asignatura(asignatura)
+                .build());
+        entityManager.flush();
+
+        AsignaturaVersionDto despues = repository.findVersionById(asignatura.getId()).orElseThrow();
+        AsignaturaVersionDto todas = repository.findVersion();
+
+        assertAll("findVersionById_CambiaConLosAlumnosDeLaAsignatura",
+                () -> assertEquals(0L, antes.getAlumnos()),
+                () -> assertNull(antes.getAlumnosUpdatedAt()),
+                () -> assertEquals(1L, despues.getAlumnos()),
+                () -> assertEquals(modificado, despues.getAlumnosUpdatedAt()),
+                () -> assertEquals(modificado, despues.lastModified()),
+                () -> assertNotEquals(antes, despues),
+                () -> assertEquals(1L, todas.getAsignaturas()),
+                () -> assertEquals(1L, todas.getAlumnos()),
+                () -> assertTrue(repository.findVersionById(100L).isEmpty())
+        );
+    }
+}
@@ -1,21 +1,28 @@
 package es.nicolas.asignaturas.services;
 
+import es.nicolas.config.cache.SingleFlight;
+import es.nicolas.rest.asignaturas.dictionary.AsignaturaNameDictionary;
 import es.nicolas.rest.asignaturas.dto.AsignaturaRequestDto;
 import es.nicolas.rest.asignaturas.exceptions.AsignaturaConflictException;
 import es.nicolas.rest.asignaturas.mappers.AsignaturasMapper;
 import es.nicolas.rest.asignaturas.models.Asignatura;
 import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
 import es.nicolas.rest.asignaturas.services.AsignaturaServiceImpl;
+import es.nicolas.utils.etag.WriteVersions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.*;
 
@@ -37,6 +44,15 @@ class AsignaturaServiceImplTest {
     @Mock
     private AsignaturasMapper asignaturasMapper;
 
+    @Mock
+    private AsignaturaNameDictionary asignaturaNameDictionary;
+
+    @Mock
+    private WriteVersions writeVersions;
+
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry());
+
     @Test
     public void testFindAll(){
         var pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
@@ -55,7 +71,7 @@ class AsignaturaServiceImplTest {
 
     @Test
     public void testFindByNombre() {
-        when(asignaturasRespository.findByNombreEqualsIgnoreCase(anyString())).thenReturn(Optional.of(asignatura));
+        when(asignaturaNameDictionary.findByNombre("Programacion")).thenReturn(asignatura);
 
         var res = asignaturaServiceImpl.findByNombre("Programacion");
 
@@ -64,7 +80,8 @@ class AsignaturaServiceImplTest {
                 () -> assertEquals("Programacion", res.getNombre())
         );
 
-        verify(asignaturasRespository, times(1)).findByNombreEqualsIgnoreCase(anyString());
+        verify(asignaturaNameDictionary, times(1)).findByNombre("Programacion");
+        verify(asignaturasRespository, never()).findByNombreEqualsIgnoreCase(anyString());
     }
 
     @Test
@@ -98,6 +115,8 @@ class AsignaturaServiceImplTest {
         verify(asignaturasRespository, times(1)).findByNombreEqualsIgnoreCase(anyString());
         verify(asignaturasRespository, times(1)).save(any(Asignatura.class));
         verify(asignaturasMapper, times(1)).toAsignatura(any(AsignaturaRequestDto.class)); // Verificando el mapper
+        verify(asignaturaNameDictionary, times(1)).guardar(asignatura);
+        verify(writeVersions, times(1)).incrementar(WriteVersions.ASIGNATURAS);
     }
 
     @Test
@@ -114,6 +133,7 @@ class AsignaturaServiceImplTest {
 
         verify(asignaturasRespository, times(1)).findByNombreEqualsIgnoreCase(anyString());
         verify(asignaturasRespository, times(0)).save(any(Asignatura.class));
+        verify(asignaturaNameDictionary, never()).guardar(any());
     }
 
 //    @Test
@@ -170,6 +190,26 @@ class AsignaturaServiceImplTest {
         verify(asignaturasRespository, times(1)).findById(anyLong());
         verify(asignaturasRespository, times(1)).existsByAlumnoById(anyLong());
         verify(asignaturasRespository, times(1)).deleteById(anyLong());
+        verify(asignaturaNameDictionary, times(1)).eliminar(1L);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testDeleteByIdActualizaAlConfirmar() {
+        when(asignaturasRespository.findById(anyLong())).thenReturn(Optional.of(asignatura));
+        when(asignaturasRespository.existsByAlumnoById(anyLong())).thenReturn(false);
+
+        // Con una transacción en curso: nada cambia hasta el commit
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            asignaturaServiceImpl.deleteById(1L);
+
+            verifyNoInteractions(asignaturaNameDictionary, writeVersions);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(asignaturaNameDictionary, times(1)).eliminar(1L);
+        verify(writeVersions, times(1)).incrementar(WriteVersions.ASIGNATURAS);
+    }
+}
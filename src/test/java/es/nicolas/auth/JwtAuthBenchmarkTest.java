@@ -0,0 +1,106 @@
+package es.nicolas.auth;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import es.nicolas.config.auth.JwtKeysProperties;
+import es.nicolas.rest.auth.services.jwt.JwtServiceImpl;
+import es.nicolas.rest.auth.services.jwt.JwtTokenEngine;
+import es.nicolas.rest.auth.services.jwt.TokenDenylist;
+import es.nicolas.rest.auth.services.jwt.TokenRevocations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Microbenchmark del coste de autenticar una petición con JWT, antes y después de verificar una sola vez
+ * con caché. Solo mide el trabajo con el token y cuenta las cargas del usuario (cada una era una consulta).
+ * No se ejecuta con los tests normales: mvn test -Dtest=JwtAuthBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtAuthBenchmarkTest {
+    private static final int CALENTAMIENTO = 50_000;
+    private static final int ITERACIONES = 200_000;
+
+    private final UserDetails usuario = User.withUsername("nicolas").password("x").roles("USER").build();
+    private final AtomicInteger cargasUsuario = new AtomicInteger();
+
+    // Resultado para que el JIT no elimine el trabajo
+    private long sumidero;
+
+    private UserDetails cargarUsuario(String username) {
+        cargasUsuario.incrementAndGet();
+        return usuario;
+    }
+
+    // Lo que hacía el filtro: decodificar para el usuario, cargarlo dos veces y decodificar otras dos para validar
+    private boolean antes(String token) {
+        String userName = decodificar(token, DecodedJWT::getSubject);
+        UserDetails userDetails = cargarUsuario(userName);
+        cargarUsuario(userName);
+        return decodificar(token, DecodedJWT::getSubject).equals(userDetails.getUsername())
+                && !decodificar(token, DecodedJWT::getExpiresAt).before(new Date());
+    }
+
+    // Lo que hace ahora: una verificación (en caché tras la primera) y una carga del usuario
+    private boolean despues(JwtServiceImpl jwtService, String token) {
+        return cargarUsuario(jwtService.verify(token).username()) != null;
+    }
+
+    private static <T> T decodificar(String token, Function<DecodedJWT, T> claim) {
+        return claim.apply(JWT.decode(token));
+    }
+
+    private double nanosPorPeticion(Function<String, Boolean> peticion, String token) {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            sumidero += peticion.apply(token) ? 1 : 0;
+        }
+        cargasUsuario.set(0);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ITERACIONES; i++) {
+            sumidero += peticion.apply(token) ? 1 : 0;
+        }
+        return (System.nanoTime() - inicio) / (double) ITERACIONES;
+    }
+
+    @Test
+    void costePorPeticion() {
+        JwtTokenEngine tokenEngine = new JwtTokenEngine(new JwtKeysProperties("secreto-de-prueba", null, null));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtServiceImpl jwtService = new JwtServiceImpl(meterRegistry, tokenEngine, new TokenRevocations(3600, meterRegistry),
+                new TokenDenylist(3600, Duration.ofSeconds(60), 8192, meterRegistry));
+        ReflectionTestUtils.setField(jwtService, "expiration", 3600L);
+        ReflectionTestUtils.setField(jwtService, "maximoVerificados", 10_000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        String token = jwtService.generateToken(usuario);
+
+        double antes = nanosPorPeticion(this::antes, token);
+        int cargasAntes = cargasUsuario.get();
+        double despues = nanosPorPeticion(t -> despues(jwtService, t), token);
+        int cargasDespues = cargasUsuario.get();
+        // Sin caché: la primera petición de cada token paga la verificación de la firma
+        double sinCache = nanosPorPeticion(t -> tokenEngine.verify(t).getSubject() != null, token);
+
+        System.out.printf("""
+                        Autenticación JWT por petición (%d iteraciones):
+                          antes (3 decodificaciones sin verificar firma, %d cargas de usuario): %.0f ns
+                          después, token en caché (%d carga de usuario): %.0f ns
+                          después, primera vez de cada token (verificación HMAC512): %.0f ns
+                        """, ITERACIONES, cargasAntes / ITERACIONES, antes, cargasDespues / ITERACIONES, despues, sinCache);
+
+        assertAll("costePorPeticion",
+                () -> assertEquals(2L * ITERACIONES, cargasAntes),
+                () -> assertEquals(ITERACIONES, cargasDespues),
+                () -> assertTrue(sumidero > 0)
+        );
+    }
+}
@@ -0,0 +1,62 @@
+package es.nicolas.auth.services;
+
+import es.nicolas.rest.asignaturas.models.Asignatura;
+import es.nicolas.rest.auth.repositories.AuthUsersRepository;
+import es.nicolas.rest.auth.services.users.AuthUsersServiceImpl;
+import es.nicolas.rest.user.exceptions.UserNotFound;
+import es.nicolas.rest.user.models.Role;
+import es.nicolas.rest.user.models.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthUsersServiceImplTest {
+
+    @Mock
+    private AuthUsersRepository authUsersRepository;
+
+    @InjectMocks
+    private AuthUsersServiceImpl authUsersService;
+
+    @Test
+    void loadUserByUsername_DevuelveUnaCopiaSinLaAsignatura() {
+        // Arrange
+        User user = User.builder()
+                .id(1L)
+                .username("nicolas")
+                .password("hash")
+                .roles(new HashSet<>(Set.of(Role.USER, Role.ADMIN)))
+                .asignatura(Asignatura.builder().id(2L).nombre("Programacion").build())
+                .build();
+        when(authUsersRepository.findByUsername("nicolas")).thenReturn(Optional.of(user));
+        // Act
+        User cargado = (User) authUsersService.loadUserByUsername("nicolas");
+        // Assert
+        assertAll("loadUserByUsername_DevuelveUnaCopiaSinLaAsignatura",
+                () -> assertNotSame(user, cargado),
+                () -> assertEquals(1L, cargado.getId()),
+                () -> assertEquals("hash", cargado.getPassword()),
+                () -> assertEquals(user.getAuthorities(), cargado.getAuthorities()),
+                () -> assertNull(cargado.getAsignatura()),
+                () -> assertTrue(cargado.isEnabled())
+        );
+    }
+
+    @Test
+    void loadUserByUsername_SiNoExiste_LanzaUserNotFound() {
+        // Arrange
+        when(authUsersRepository.findByUsername("nadie")).thenReturn(Optional.empty());
+        // Act & Assert
+        assertThrows(UserNotFound.class, () -> authUsersService.loadUserByUsername("nadie"));
+    }
+}
@@ -0,0 +1,222 @@
+package es.nicolas.auth.services;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import es.nicolas.config.auth.JwtKeysProperties;
+import es.nicolas.rest.auth.services.jwt.JwtServiceImpl;
+import es.nicolas.rest.auth.services.jwt.JwtTokenEngine;
+import es.nicolas.rest.auth.services.jwt.TokenDenylist;
+import es.nicolas.rest.auth.services.jwt.TokenRevocations;
+import es.nicolas.rest.auth.services.jwt.VerifiedToken;
+import es.nicolas.rest.user.models.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceImplTest {
+    private static final String SECRET = "secreto-de-prueba";
+    private static final String ANTERIOR = "secreto-anterior";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserDetails usuario = User.withUsername("nicolas").password("x").roles("USER").build();
+    private TokenRevocations tokenRevocations;
+    private JwtServiceImpl jwtService;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocations = new TokenRevocations(3600, meterRegistry);
+        jwtService = new JwtServiceImpl(meterRegistry, new JwtTokenEngine(new JwtKeysProperties(SECRET, "k2", Map.of("k1", ANTERIOR))),
+                tokenRevocations, new TokenDenylist(3600, Duration.ofSeconds(60), 8192, meterRegistry));
+        ReflectionTestUtils.setField(jwtService, "expiration", 3600L);
+        ReflectionTestUtils.setField(jwtService, "maximoVerificados", 100L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+    }
+
+    private static String firmado(String secreto, Instant expiresAt) {
+        return firmado(secreto, null, expiresAt);
+    }
+
+    private static String firmado(String secreto, String kid, Instant expiresAt) {
+        var token = JWT.create()
+                .withSubject("nicolas")
+                .withExpiresAt(expiresAt);
+        if (kid != null) {
+            token.withKeyId(kid);
+        }
+        return token.sign(Algorithm.HMAC512(Base64.getEncoder().encode(secreto.getBytes())));
+    }
+
+    private double aciertos() {
+        return meterRegistry.get("cache.gets").tags("cache", "jwt-verificados", "result", "hit")
+                .functionCounter().count();
+    }
+
+    @Test
+    void verify_TokenGenerado_DevuelveSusDatos() {
+        // Arrange
+        String token = jwtService.generateToken(usuario);
+        // Act
+        VerifiedToken verificado = jwtService.verify(token);
+        // Assert
+        assertAll("verify_TokenGenerado_DevuelveSusDatos",
+                () -> assertEquals("nicolas", verificado.username()),
+                () -> assertEquals("k2", JWT.decode(token).getKeyId()),
+                () -> assertTrue(verificado.expiresAt().isAfter(Instant.now())),
+                () -> assertEquals("nicolas", jwtService.extractUserName(token)),
+                () -> assertTrue(jwtService.isTokenValid(token, usuario))
+        );
+    }
+
+    @Test
+    void verify_SegundaVez_SaleDeLaCache() {
+        // Arrange
+        String token = jwtService.generateToken(usuario);
+        VerifiedToken primera = jwtService.verify(token);
+        // Act
+        VerifiedToken segunda = jwtService.verify(token);
+        // Assert
+        assertAll("verify_SegundaVez_SaleDeLaCache",
+                () -> assertSame(primera, segunda),
+                () -> assertEquals(1, aciertos())
+        );
+    }
+
+    @Test
+    void verify_FirmadoConOtraClave_Falla() {
+        // Arrange
+        String token = firmado("otro-secreto", Instant.now().plusSeconds(60));
+        // Act & Assert
+        assertAll("verify_FirmadoConOtraClave_Falla",
+                () -> assertThrows(JWTVerificationException.class, () -> jwtService.verify(token)),
+                () -> assertFalse(jwtService.isTokenValid(token, usuario))
+        );
+    }
+
+    @Test
+    void verify_Caducado_Falla() {
+        // Arrange
+        String token = firmado(SECRET, Instant.now().minusSeconds(60));
+        // Act & Assert
+        assertThrows(JWTVerificationException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void isTokenValid_DeOtroUsuario_EsFalso() {
+        // Arrange
+        String token = jwtService.generateToken(usuario);
+        UserDetails otro = User.withUsername("otro").password("x").roles("USER").build();
+        // Act & Assert
+        assertFalse(jwtService.isTokenValid(token, otro));
+    }
+
+    @Test
+    void verify_ConElKidDeUnaClaveAnterior_UsaEsaClave() {
+        // Arrange: emitido antes de rotar la clave
+        String token = firmado(ANTERIOR, "k1", Instant.now().plusSeconds(60));
+        // Act & Assert
+        assertEquals("nicolas", jwtService.verify(token).username());
+    }
+
+    @Test
+    void verify_SinKid_UsaLaClaveActual() {
+        // Arrange: emitido antes de que los tokens llevaran kid
+        String token = firmado(SECRET, Instant.now().plusSeconds(60));
+        // Act & Assert
+        assertEquals("nicolas", jwtService.verify(token).username());
+    }
+
+    @Test
+    void verify_ConKidDeOtraClave_Falla() {
+        // Arrange
+        String desconocido = firmado(SECRET, "k9", Instant.now().plusSeconds(60));
+        String cambiado = firmado(SECRET, "k1", Instant.now().plusSeconds(60));
+        // Act & Assert
+        assertAll("verify_ConKidDeOtraClave_Falla",
+                () -> assertThrows(JWTVerificationException.class, () -> jwtService.verify(desconocido)),
+                () -> assertThrows(JWTVerificationException.class, () -> jwtService.verify(cambiado))
+        );
+    }
+
+    @Test
+    void generateToken_ConUnUsuario_LlevaSuIdYSusRoles() {
+        // Arrange
+        var user = es.nicolas.rest.user.models.User.builder()
+                .id(7L).username("nicolas").password("x").roles(Set.of(Role.USER, Role.ADMIN)).build();
+        // Act
+        VerifiedToken verificado = jwtService.verify(jwtService.generateToken(user));
+        // Assert
+        assertAll("generateToken_ConUnUsuario_LlevaSuIdYSusRoles",
+                () -> assertTrue(verificado.isStateless()),
+                () -> assertEquals(7L, verificado.userId()),
+                () -> assertEquals(Set.of(Role.USER, Role.ADMIN), verificado.roles())
+        );
+    }
+
+    @Test
+    void verify_TrasRevocarAlUsuario_FallaAunqueEsteEnLaCache() {
+        // Arrange
+        var user = es.nicolas.rest.user.models.User.builder()
+                .id(7L).username("nicolas").password("x").roles(Set.of(Role.USER)).build();
+        String token = jwtService.generateToken(user);
+        jwtService.verify(token);
+        // Act
+        tokenRevocations.revocar(7L);
+        // Assert
+        assertThrows(JWTVerificationException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void revoke_SoloInvalidaEseToken() {
+        // Arrange: dos sesiones del mismo usuario
+        String token = jwtService.generateToken(usuario);
+        String otro = jwtService.generateToken(usuario);
+        jwtService.verify(token);
+        // Act
+        jwtService.revoke(token);
+        // Assert
+        assertAll("revoke_SoloInvalidaEseToken",
+                () -> assertNotEquals(JWT.decode(token).getId(), JWT.decode(otro).getId()),
+                () -> assertThrows(JWTVerificationException.class, () -> jwtService.verify(token)),
+                () -> assertEquals("nicolas", jwtService.verify(otro).username())
+        );
+    }
+
+    @Test
+    void revoke_SinJti_UsaElHashDelToken() {
+        // Arrange: emitido antes de que los tokens llevaran jti
+        String token = firmado(SECRET, Instant.now().plusSeconds(60));
+        String otro = firmado(SECRET, Instant.now().plusSeconds(120));
+        // Act
+        jwtService.revoke(token);
+        // Assert
+        assertAll("revoke_SinJti_UsaElHashDelToken",
+                () -> assertThrows(JWTVerificationException.class, () -> jwtService.verify(token)),
+                () -> assertEquals("nicolas", jwtService.verify(otro).username())
+        );
+    }
+
+    @Test
+    void isRevocado_SoloLosEmitidosHastaLaRevocacion() {
+        // Act
+        tokenRevocations.revocar(7L);
+        // Assert
+        assertAll("isRevocado_SoloLosEmitidosHastaLaRevocacion",
+                () -> assertTrue(tokenRevocations.isRevocado(7L, Instant.now().minusSeconds(1))),
+                () -> assertFalse(tokenRevocations.isRevocado(7L, Instant.now().plusSeconds(1))),
+                () -> assertFalse(tokenRevocations.isRevocado(8L, Instant.now().minusSeconds(1))),
+                () -> assertFalse(tokenRevocations.isRevocado(null, null))
+        );
+    }
+}
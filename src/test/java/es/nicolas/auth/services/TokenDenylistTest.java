@@ -0,0 +1,96 @@
+package es.nicolas.auth.services;
+
+import es.nicolas.rest.auth.services.jwt.TokenDenylist;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenDenylistTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TokenDenylist tokenDenylist;
+
+    @BeforeEach
+    void setUp() {
+        tokenDenylist = new TokenDenylist(3600, Duration.ofSeconds(60), 8192, meterRegistry);
+    }
+
+    @Test
+    void isRevocado_SoloElTokenRevocado() {
+        // Arrange
+        Instant expiresAt = Instant.now().plusSeconds(600);
+        // Act
+        tokenDenylist.revocar("a", expiresAt);
+        // Assert
+        assertAll("isRevocado_SoloElTokenRevocado",
+                () -> assertTrue(tokenDenylist.isRevocado("a", expiresAt)),
+                () -> assertFalse(tokenDenylist.isRevocado("b", expiresAt)),
+                () -> assertFalse(tokenDenylist.isRevocado("a", expiresAt.plusSeconds(600))),
+                () -> assertEquals(1, tokenDenylist.size()),
+                () -> assertEquals(1, meterRegistry.get("jwt.denylist.size").gauge().value())
+        );
+    }
+
+    @Test
+    void isRevocado_MuchosTokensEnElMismoTramo() {
+        // Arrange
+        Instant expiresAt = Instant.now().plusSeconds(600);
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            tokenDenylist.revocar("revocado-" + i, expiresAt);
+        }
+        // Assert
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(tokenDenylist.isRevocado("revocado-" + i, expiresAt));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(tokenDenylist.isRevocado("valido-" + i, expiresAt));
+        }
+        assertEquals(1000, tokenDenylist.size());
+    }
+
+    @Test
+    void revocar_TokenYaCaducado_NoSeGuarda() {
+        // Act
+        tokenDenylist.revocar("a", Instant.now().minusSeconds(1));
+        // Assert
+        assertEquals(0, tokenDenylist.size());
+    }
+
+    @Test
+    void expirar_LiberaLosTramosCaducados() {
+        // Arrange
+        Instant pronto = Instant.now().plusSeconds(120);
+        Instant tarde = Instant.now().plusSeconds(1800);
+        tokenDenylist.revocar("a", pronto);
+        tokenDenylist.revocar("b", tarde);
+        // Act
+        int liberados = tokenDenylist.expirar(pronto.plusSeconds(120));
+        // Assert
+        assertAll("expirar_LiberaLosTramosCaducados",
+                () -> assertEquals(1, liberados),
+                () -> assertEquals(1, tokenDenylist.size()),
+                () -> assertFalse(tokenDenylist.isRevocado("a", pronto)),
+                () -> assertTrue(tokenDenylist.isRevocado("b", tarde))
+        );
+    }
+
+    @Test
+    void revocar_MasAllaDeLaRueda_SeGuardaAparteHastaQueCaduca() {
+        // Arrange: emitido con una caducidad mayor que jwt.expiration
+        Instant expiresAt = Instant.now().plusSeconds(86400);
+        // Act
+        tokenDenylist.revocar("a", expiresAt);
+        // Assert
+        assertAll("revocar_MasAllaDeLaRueda_SeGuardaAparteHastaQueCaduca",
+                () -> assertTrue(tokenDenylist.isRevocado("a", expiresAt)),
+                () -> assertEquals(1, tokenDenylist.size()),
+                () -> assertEquals(0, tokenDenylist.expirar(expiresAt.plusSeconds(1))),
+                () -> assertEquals(0, tokenDenylist.size())
+        );
+    }
+}
@@ -0,0 +1,73 @@
+package es.nicolas.config.auth;
+
+import es.nicolas.rest.auth.services.jwt.JwtService;
+import es.nicolas.rest.user.models.Role;
+import es.nicolas.rest.user.models.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.assertj.MockMvcTester;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ActuatorSecurityTest {
+    private final String ENDPOINT = "/actuator/metrics";
+
+    @Autowired
+    private MockMvcTester mockMvcTester;
+
+    @Autowired
+    private JwtService jwtService;
+
+    // Usuarios de data.sql
+    private String token(String username, Role... roles) {
+        return "Bearer " + jwtService.generateToken(User.builder().username(username).roles(Set.of(roles)).build());
+    }
+
+    @Test
+    void metrics_SinToken_Devuelve401() {
+        // Act
+        var result = mockMvcTester.get().uri(ENDPOINT).exchange();
+
+        // Assert
+        assertThat(result).hasStatus(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void metrics_ConRolUser_Devuelve403() {
+        // Act
+        var result = mockMvcTester.get().uri(ENDPOINT)
+                .header(HttpHeaders.AUTHORIZATION, token("user", Role.USER))
+                .exchange();
+
+        // Assert
+        assertThat(result).hasStatus(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    void metrics_ConRolAdmin_Devuelve200() {
+        // Act
+        var result = mockMvcTester.get().uri(ENDPOINT)
+                .header(HttpHeaders.AUTHORIZATION, token("admin", Role.ADMIN, Role.USER))
+                .exchange();
+
+        // Assert
+        assertThat(result).hasStatusOk();
+    }
+
+    @Test
+    void health_SinToken_EsPublico() {
+        // Act
+        var result = mockMvcTester.get().uri("/actuator/health").exchange();
+
+        // Assert
+        assertThat(result).hasStatusOk();
+    }
+}
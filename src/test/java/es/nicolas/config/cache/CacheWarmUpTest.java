@@ -0,0 +1,127 @@
+package es.nicolas.config.cache;
+
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import es.nicolas.rest.alumnos.repositories.AlumnosRepository;
+import es.nicolas.rest.asignaturas.dto.AsignaturaTamanoDto;
+import es.nicolas.rest.asignaturas.models.Asignatura;
+import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmUpTest {
+
+    @Mock
+    private AlumnosRepository alumnosRepository;
+    @Mock
+    private AsignaturasRespository asignaturasRespository;
+
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CacheWarmUp cacheWarmUp;
+
+    @BeforeEach
+    void setUp() {
+        cacheWarmUp = new CacheWarmUp(alumnosRepository, asignaturasRespository, cacheManager, meterRegistry);
+        ReflectionTestUtils.setField(cacheWarmUp, "maxAlumnos", 3);
+        ReflectionTestUtils.setField(cacheWarmUp, "maxAlumnosAsignaturas", 3);
+        ReflectionTestUtils.setField(cacheWarmUp, "tamanoLote", 2);
+        ReflectionTestUtils.setField(cacheWarmUp, "hilos", 2);
+        ReflectionTestUtils.setField(cacheWarmUp, "timeout", Duration.ofSeconds(5));
+    }
+
+    private static AlumnoResponseDto alumno(long id) {
+        return AlumnoResponseDto.builder().id(id).nombre("Alumno " + id).build();
+    }
+
+    @Test
+    void precargar_CargaAsignaturasYLosAlumnosMasRecientes() {
+        // Arrange
+        Sort sort = Sort.by(Sort.Direction.DESC, "updatedAt", "id");
+        when(asignaturasRespository.findTamanos()).thenReturn(List.of(new AsignaturaTamanoDto(1L, 2L)));
+        when(asignaturasRespository.findWithAlumnosByIdIn(List.of(1L)))
+                .thenReturn(List.of(Asignatura.builder().id(1L).nombre("Programacion").build()));
+        when(alumnosRepository.findResponseDtoNoBorrados(PageRequest.of(0, 2, sort)))
+                .thenReturn(new SliceImpl<>(List.of(alumno(9), alumno(8)), PageRequest.of(0, 2, sort), true));
+        when(alumnosRepository.findResponseDtoNoBorrados(PageRequest.of(1, 2, sort)))
+                .thenReturn(new SliceImpl<>(List.of(alumno(7), alumno(6)), PageRequest.of(1, 2, sort), true));
+
+        // Act
+        Map<String, Long> cargadas = cacheWarmUp.precargar();
+
+        // Assert: solo hasta el máximo de alumnos
+        var alumnos = cacheManager.getCache("alumnos");
+        var asignaturas = cacheManager.getCache("asignaturas");
+        assertAll("precargar_CargaAsignaturasYLosAlumnosMasRecientes",
+                () -> assertEquals(Map.of("alumnos", 3L, "asignaturas", 1L), cargadas),
+                () -> assertNotNull(alumnos.get(9L)),
+                () -> assertNotNull(alumnos.get(7L)),
+                () -> assertNull(alumnos.get(6L)),
+                () -> assertNotNull(asignaturas.get(1L)),
+                () -> assertNull(asignaturas.get("programacion")),
+                () -> assertEquals(3, meterRegistry.get("cache.warmup.entries").tag("cache", "alumnos").counter().count()),
+                () -> assertEquals(1, meterRegistry.get("cache.warmup").timer().count())
+        );
+    }
+
+    @Test
+    void precargar_SiUnaConsultaFallaSigueConLasDemas() {
+        // Arrange
+        when(asignaturasRespository.findTamanos()).thenThrow(new IllegalStateException("sin conexión"));
+        when(alumnosRepository.findResponseDtoNoBorrados(any()))
+                .thenReturn(new SliceImpl<>(List.of(alumno(1))));
+
+        // Act
+        Map<String, Long> cargadas = cacheWarmUp.precargar();
+
+        // Assert
+        assertEquals(Map.of("alumnos", 2L), cargadas);
+        verify(alumnosRepository, times(2)).findResponseDtoNoBorrados(any());
+    }
+
+    @Test
+    void precargar_AsignaturasHastaElMaximoDeAlumnos() {
+        // Arrange: la 2 tiene demasiados alumnos, la 3 todavía cabe
+        ReflectionTestUtils.setField(cacheWarmUp, "maxAlumnos", 0);
+        when(asignaturasRespository.findTamanos()).thenReturn(List.of(
+                new AsignaturaTamanoDto(1L, 2L), new AsignaturaTamanoDto(2L, 500L),
+                new AsignaturaTamanoDto(3L, 1L), new AsignaturaTamanoDto(4L, 0L)));
+        when(asignaturasRespository.findWithAlumnosByIdIn(List.of(1L, 3L)))
+                .thenReturn(List.of(Asignatura.builder().id(1L).build(), Asignatura.builder().id(3L).build()));
+        when(asignaturasRespository.findWithAlumnosByIdIn(List.of(4L)))
+                .thenReturn(List.of(Asignatura.builder().id(4L).build()));
+
+        // Act
+        Map<String, Long> cargadas = cacheWarmUp.precargar();
+
+        // Assert: nunca se cargan los alumnos de la 2
+        var asignaturas = cacheManager.getCache("asignaturas");
+        assertAll("precargar_AsignaturasHastaElMaximoDeAlumnos",
+                () -> assertEquals(Map.of("asignaturas", 3L), cargadas),
+                () -> assertNotNull(asignaturas.get(1L)),
+                () -> assertNull(asignaturas.get(2L)),
+                () -> assertNotNull(asignaturas.get(4L))
+        );
+        verify(asignaturasRespository, never()).findWithAlumnosByIdIn(argThat(ids -> ids.contains(2L)));
+        verifyNoInteractions(alumnosRepository);
+    }
+}
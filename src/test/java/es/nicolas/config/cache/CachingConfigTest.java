@@ -0,0 +1,136 @@
+package es.nicolas.config.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import es.nicolas.rest.user.dto.UserResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingConfigTest {
+
+    private final CacheManager cacheManager = new CachingConfig().cacheManager(new CacheSpecsProperties(null, Map.of(
+            "alumnos", "maximumSize=2,expireAfterWrite=10m,expireAfterAccess=5m,recordStats"), null), List.of(), List.of());
+
+    // Cada caché va envuelta en una VersionedTransactionAwareCache
+    private static org.springframework.cache.Cache decorada(org.springframework.cache.Cache cache) {
+        return ((TransactionAwareCacheDecorator) cache).getTargetCache();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<Object, Object> nativa(String nombre) {
+        return (Cache<Object, Object>) cacheManager.getCache(nombre).getNativeCache();
+    }
+
+    @Test
+    void cacheManager_AplicaLaEspecificacionDeCadaCache() {
+        // Act
+        var alumnos = nativa("alumnos").policy();
+        // Assert
+        assertAll("cacheManager_AplicaLaEspecificacionDeCadaCache",
+                () -> assertEquals(2, alumnos.eviction().orElseThrow().getMaximum()),
+                () -> assertEquals(Duration.ofMinutes(10), alumnos.expireAfterWrite().orElseThrow().getExpiresAfter()),
+                () -> assertEquals(Duration.ofMinutes(5), alumnos.expireAfterAccess().orElseThrow().getExpiresAfter()),
+                () -> assertTrue(alumnos.isRecordingStats())
+        );
+    }
+
+    @Test
+    void cacheManager_UsaLaEspecificacionPorDefectoEnLasDemas() {
+        // Act
+        var otra = nativa("otra").policy();
+        // Assert
+        assertAll("cacheManager_UsaLaEspecificacionPorDefectoEnLasDemas",
+                () -> assertEquals(1000, otra.eviction().orElseThrow().getMaximum()),
+                () -> assertTrue(otra.isRecordingStats())
+        );
+    }
+
+    @Test
+    void cacheManager_AlumnosEsUnaCacheDeVariasClaves() {
+        // Act
+        var alumnos = cacheManager.getCache("alumnos");
+        // Assert
+        assertAll("cacheManager_AlumnosEsUnaCacheDeVariasClaves",
+                () -> assertInstanceOf(VersionedTransactionAwareCache.class, alumnos),
+                () -> assertInstanceOf(MultiKeyCache.class, decorada(alumnos))
+        );
+    }
+
+    @Test
+    void cacheManager_CuentaAciertosFallosYExpulsiones() {
+        // Arrange
+        var cache = cacheManager.getCache("alumnos");
+        // Act
+        cache.put(1L, "uno");
+        cache.get(1L);
+        cache.get(2L);
+        cache.put(2L, "dos");
+        cache.put(3L, "tres");
+        nativa("alumnos").cleanUp();
+        var stats = nativa("alumnos").stats();
+        // Assert
+        assertAll("cacheManager_CuentaAciertosFallosYExpulsiones",
+                () -> assertEquals(1, stats.hitCount()),
+                () -> assertEquals(1, stats.missCount()),
+                () -> assertEquals(1, stats.evictionCount()),
+                () -> assertEquals(2, nativa("alumnos").estimatedSize())
+        );
+    }
+
+    @Test
+    void cacheManager_ConRefreshAfterWrite_UsaElCacheReloaderDeLaCache() {
+        // Arrange
+        CacheReloader reloader = new CacheReloader() {
+            @Override
+            public String cacheName() {
+                return "asignaturas";
+            }
+
+            @Override
+            public Object reload(Object key) {
+                return "recargada";
+            }
+        };
+        // Act
+        var manager = new CachingConfig().cacheManager(new CacheSpecsProperties(null, Map.of(
+                "asignaturas", "maximumSize=10,refreshAfterWrite=1m,expireAfterWrite=10m"), null), List.of(reloader), List.of());
+        var asignaturas = manager.getCache("asignaturas");
+        // Assert
+        assertAll("cacheManager_ConRefreshAfterWrite_UsaElCacheReloaderDeLaCache",
+                () -> assertInstanceOf(RefreshingCaffeineCache.class, decorada(asignaturas)),
+                () -> assertEquals(Duration.ofMinutes(1), ((Cache<?, ?>) asignaturas.getNativeCache()).policy()
+                        .refreshAfterWrite().orElseThrow()),
+                // Un fallo no se carga en la caché, lo carga el método @Cacheable
+                () -> assertNull(asignaturas.get(1L))
+        );
+    }
+
+    @Test
+    void cacheManager_ConRefreshAfterWriteSinCacheReloader_FallaAlArrancar() {
+        // Act & Assert
+        var properties = new CacheSpecsProperties(null, Map.of(
+                "asignaturas", "maximumSize=10,refreshAfterWrite=1m,expireAfterWrite=10m"), null);
+        assertThrows(IllegalStateException.class, () -> new CachingConfig().cacheManager(properties, List.of(), List.of()));
+    }
+
+    @Test
+    void version_EsLaFechaDeModificacionDeLosValoresConocidos() {
+        // Arrange
+        var updatedAt = LocalDateTime.of(2024, 1, 2, 12, 12, 12);
+        // Act & Assert
+        assertAll("version_EsLaFechaDeModificacionDeLosValoresConocidos",
+                () -> assertEquals(updatedAt, CachingConfig.version(AlumnoResponseDto.builder().updatedAt(updatedAt).build())),
+                () -> assertEquals(updatedAt, CachingConfig.version(UserResponse.builder().updatedAt(updatedAt).build())),
+                () -> assertNull(CachingConfig.version("otro")),
+                () -> assertNull(CachingConfig.version(null))
+        );
+    }
+}
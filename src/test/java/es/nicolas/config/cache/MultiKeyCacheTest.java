@@ -0,0 +1,230 @@
+package es.nicolas.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiKeyCacheTest {
+
+    private final UUID uuid = UUID.fromString("267ed00a-6c21-4c4a-8626-db28bcca7a26");
+    private final AlumnoResponseDto alumno = AlumnoResponseDto.builder()
+            .id(1L)
+            .nombre("Nicolas")
+            .uuid(uuid)
+            .build();
+
+    private final MultiKeyCache cache = new MultiKeyCache("alumnos", Caffeine.newBuilder().executor(Runnable::run),
+            valor -> valor instanceof AlumnoResponseDto a ? List.of(a.getId(), a.getUuid().toString()) : List.of());
+
+    @Test
+    void put_PorUuid_esAccesiblePorId() {
+        // Act: @Cacheable de findByUuid
+        cache.put(uuid.toString(), alumno);
+        // Assert
+        assertAll("put_PorUuid_esAccesiblePorId",
+                () -> assertEquals(alumno, cache.get(1L, AlumnoResponseDto.class)),
+                () -> assertEquals(alumno, cache.get(uuid.toString(), AlumnoResponseDto.class)),
+                () -> assertEquals(1, cache.getNativeCache().estimatedSize())
+        );
+    }
+
+    @Test
+    void put_PorId_actualizaTambienElUuid() {
+        // Arrange
+        cache.put(uuid.toString(), alumno);
+        AlumnoResponseDto actualizado = AlumnoResponseDto.builder().id(1L).nombre("Gabriel").uuid(uuid).build();
+        // Act: @CachePut de update
+        cache.put(1L, actualizado);
+        // Assert
+        assertEquals("Gabriel", cache.get(uuid.toString(), AlumnoResponseDto.class).getNombre());
+    }
+
+    @Test
+    void evict_PorId_borraTambienElUuid() {
+        // Arrange
+        cache.put(1L, alumno);
+        // Act: @CacheEvict de deleteById
+        cache.evict(1L);
+        // Assert
+        assertAll("evict_PorId_borraTambienElUuid",
+                () -> assertNull(cache.get(uuid.toString())),
+                () -> assertNull(cache.get(1L)),
+                () -> assertEquals(0, cache.aliasCount())
+        );
+    }
+
+    @Test
+    void evict_PorUuid_borraTambienElId() {
+        // Arrange
+        cache.put(1L, alumno);
+        // Act
+        cache.evict(uuid.toString());
+        // Assert
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void expulsion_QuitaLosAlias() {
+        // Arrange
+        MultiKeyCache pequena = new MultiKeyCache("alumnos", Caffeine.newBuilder().maximumSize(0).executor(Runnable::run),
+                valor -> valor instanceof AlumnoResponseDto a ? List.of(a.getId(), a.getUuid().toString()) : List.of());
+        // Act
+        pequena.put(1L, alumno);
+        pequena.getNativeCache().cleanUp();
+        // Assert
+        assertAll("expulsion_QuitaLosAlias",
+                () -> assertNull(pequena.get(uuid.toString())),
+                () -> assertEquals(0, pequena.aliasCount())
+        );
+    }
+
+    @Test
+    void get_ConCargador_guardaBajoTodasLasClaves() {
+        // Act
+        var cargado = cache.get(uuid.toString(), () -> alumno);
+        // Assert
+        assertAll("get_ConCargador_guardaBajoTodasLasClaves",
+                () -> assertEquals(alumno, cargado),
+                () -> assertEquals(alumno, cache.get(1L, AlumnoResponseDto.class))
+        );
+    }
+
+    // TTL blando de 1 minuto y duro de 10, con un reloj que avanzamos a mano
+    private MultiKeyCache conRecarga(AtomicLong reloj, CacheReloader reloader) {
+        String spec = "refreshAfterWrite=1m,expireAfterWrite=10m";
+        return new MultiKeyCache("alumnos", Caffeine.from(spec).executor(Runnable::run).ticker(reloj::get),
+                valor -> valor instanceof AlumnoResponseDto a ? List.of(a.getId(), a.getUuid().toString()) : List.of(),
+                CachingConfig.recarga("alumnos", spec, Map.of("alumnos", reloader)));
+    }
+
+    private static CacheReloader reloader(AtomicInteger recargas, AtomicBoolean falla, Object valor) {
+        return new CacheReloader() {
+            @Override
+            public String cacheName() {
+                return "alumnos";
+            }
+
+            @Override
+            public Object reload(Object key) {
+                recargas.incrementAndGet();
+                if (falla.get()) {
+                    throw new IllegalStateException("base de datos ocupada");
+                }
+                return valor;
+            }
+        };
+    }
+
+    @Test
+    void ttlBlando_SirveLaEntradaYLaRecargaEnSegundoPlano() {
+        // Arrange
+        AtomicLong reloj = new AtomicLong();
+        AtomicInteger recargas = new AtomicInteger();
+        AlumnoResponseDto recargado = AlumnoResponseDto.builder().id(1L).nombre("Gabriel").uuid(uuid).build();
+        MultiKeyCache recargable = conRecarga(reloj, reloader(recargas, new AtomicBoolean(false), recargado));
+        recargable.put(1L, alumno);
+        reloj.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        // Act
+        var servido = recargable.get(uuid.toString(), AlumnoResponseDto.class);
+        // Assert: se sirve la anterior sin esperar y la siguiente lectura ya ve la recargada
+        assertAll("ttlBlando_SirveLaEntradaYLaRecargaEnSegundoPlano",
+                () -> assertEquals("Nicolas", servido.getNombre()),
+                () -> assertEquals(1, recargas.get()),
+                () -> assertEquals("Gabriel", recargable.get(1L, AlumnoResponseDto.class).getNombre()),
+                () -> assertEquals("Gabriel", recargable.get(uuid.toString(), AlumnoResponseDto.class).getNombre())
+        );
+    }
+
+    @Test
+    void ttlDuro_SiLaRecargaFallaSeSirveLaAnteriorHastaQueCaduca() {
+        // Arrange
+        AtomicLong reloj = new AtomicLong();
+        AtomicInteger recargas = new AtomicInteger();
+        MultiKeyCache recargable = conRecarga(reloj, reloader(recargas, new AtomicBoolean(true), null));
+        recargable.put(1L, alumno);
+        // Act & Assert
+        reloj.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        assertEquals(alumno, recargable.get(1L, AlumnoResponseDto.class));
+        reloj.addAndGet(TimeUnit.MINUTES.toNanos(5));
+        assertEquals(alumno, recargable.get(1L, AlumnoResponseDto.class));
+        reloj.addAndGet(Duration.ofMinutes(4).toNanos());
+        assertNull(recargable.get(1L));
+        assertTrue(recargas.get() >= 2);
+    }
+
+    @Test
+    void ttlBlando_UnFalloNoCargaNada() {
+        // Arrange
+        AtomicInteger recargas = new AtomicInteger();
+        MultiKeyCache recargable = conRecarga(new AtomicLong(), reloader(recargas, new AtomicBoolean(false), alumno));
+        // Act & Assert: el fallo lo carga el método @Cacheable
+        assertNull(recargable.get(1L));
+        assertEquals(0, recargas.get());
+    }
+
+    @Test
+    void ttlBlando_SiLaRecargaDevuelveNullQuitaLaEntradaYSusAlias() {
+        // Arrange: el alumno se ha borrado de la base de datos
+        AtomicLong reloj = new AtomicLong();
+        AtomicInteger recargas = new AtomicInteger();
+        MultiKeyCache recargable = conRecarga(reloj, reloader(recargas, new AtomicBoolean(false), null));
+        recargable.put(1L, alumno);
+        reloj.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        // Act
+        recargable.get(1L);
+        // Assert
+        assertAll("ttlBlando_SiLaRecargaDevuelveNullQuitaLaEntradaYSusAlias",
+                () -> assertEquals(1, recargas.get()),
+                () -> assertNull(recargable.get(1L)),
+                () -> assertNull(recargable.get(uuid.toString())),
+                () -> assertEquals(0, recargable.aliasCount())
+        );
+    }
+
+    @Test
+    void codec_GuardaCodificadoYDevuelveElValorOriginalPorCualquierClave() {
+        // Arrange: codec que guarda el nombre del alumno
+        CacheValueCodec codec = new CacheValueCodec() {
+            @Override
+            public String cacheName() {
+                return "alumnos";
+            }
+
+            @Override
+            public Object encode(Object valor) {
+                return valor instanceof AlumnoResponseDto a ? a.getNombre().getBytes() : valor;
+            }
+
+            @Override
+            public Object decode(Object guardado) {
+                return guardado instanceof byte[] bytes ? AlumnoResponseDto.builder().id(1L).nombre(new String(bytes)).uuid(uuid).build() : guardado;
+            }
+        };
+        MultiKeyCache codificada = new MultiKeyCache("alumnos", Caffeine.newBuilder().executor(Runnable::run),
+                valor -> valor instanceof AlumnoResponseDto a ? List.of(a.getId(), a.getUuid().toString()) : List.of(),
+                null, codec);
+        // Act
+        codificada.put(1L, alumno);
+        // Assert
+        assertAll("codec_GuardaCodificadoYDevuelveElValorOriginalPorCualquierClave",
+                () -> assertInstanceOf(byte[].class, codificada.getNativeCache().getIfPresent(1L)),
+                () -> assertEquals(alumno, codificada.get(1L, AlumnoResponseDto.class)),
+                () -> assertEquals(alumno, codificada.get(uuid.toString()).get()),
+                () -> assertThrows(IllegalStateException.class, () -> codificada.get(1L, String.class))
+        );
+        // Al borrar se quitan también sus alias, que se leen del valor decodificado
+        codificada.evict(1L);
+        assertEquals(0, codificada.aliasCount());
+    }
+}
@@ -0,0 +1,112 @@
+package es.nicolas.config.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SingleFlight singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        singleFlight = new SingleFlight(meterRegistry);
+        singleFlight.registrarMetricas();
+    }
+
+    private double cargas(String result) {
+        var counter = meterRegistry.find(SingleFlight.METRICA).tags("name", "alumnos", "result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test
+    void load_AgrupaLasCargasConcurrentesDeLaMismaClave() throws Exception {
+        AtomicInteger consultas = new AtomicInteger();
+        CountDownLatch enCarga = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> primera = executor.submit(() -> singleFlight.load("alumnos", 1L, () -> {
+                consultas.incrementAndGet();
+                enCarga.countDown();
+                await(liberar);
+                return "alumno 1";
+            }));
+            assertTrue(enCarga.await(5, TimeUnit.SECONDS));
+            Future<String> segunda = executor.submit(() -> singleFlight.load("alumnos", 1L, () -> {
+                consultas.incrementAndGet();
+                return "otra carga";
+            }));
+            // La segunda llamada ya espera a la primera
+            while (cargas("coalesced") == 0) {
+                Thread.onSpinWait();
+            }
+            liberar.countDown();
+
+            assertAll("load_AgrupaLasCargasConcurrentesDeLaMismaClave",
+                    () -> assertEquals("alumno 1", primera.get(5, TimeUnit.SECONDS)),
+                    () -> assertEquals("alumno 1", segunda.get(5, TimeUnit.SECONDS)),
+                    () -> assertEquals(1, consultas.get()),
+                    () -> assertEquals(1, cargas("executed")),
+                    () -> assertEquals(1, cargas("coalesced")),
+                    () -> assertEquals(0, meterRegistry.get("singleflight.inflight").gauge().value())
+            );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void load_NoGuardaElResultadoAlTerminar() {
+        AtomicInteger consultas = new AtomicInteger();
+
+        singleFlight.load("alumnos", 1L, consultas::incrementAndGet);
+        singleFlight.load("alumnos", 1L, consultas::incrementAndGet);
+
+        assertEquals(2, consultas.get());
+        assertEquals(0, cargas("coalesced"));
+    }
+
+    @Test
+    void load_PropagaLaExcepcionALosQueEsperan() throws Exception {
+        CountDownLatch enCarga = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> primera = executor.submit(() -> singleFlight.load("alumnos", 2L, () -> {
+                enCarga.countDown();
+                await(liberar);
+                throw new IllegalArgumentException("no existe");
+            }));
+            assertTrue(enCarga.await(5, TimeUnit.SECONDS));
+            Future<Object> segunda = executor.submit(() -> singleFlight.load("alumnos", 2L, () -> "otra carga"));
+            while (cargas("coalesced") == 0) {
+                Thread.onSpinWait();
+            }
+            liberar.countDown();
+
+            var error = assertThrows(Exception.class, () -> segunda.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, error.getCause());
+            assertThrows(Exception.class, () -> primera.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
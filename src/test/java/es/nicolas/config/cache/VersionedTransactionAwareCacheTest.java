@@ -0,0 +1,130 @@
+package es.nicolas.config.cache;
+
+import es.nicolas.rest.alumnos.dto.AlumnoResponseDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionedTransactionAwareCacheTest {
+    private final LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 2, 12, 12, 12);
+
+    private ConcurrentMapCache destino;
+    private VersionedTransactionAwareCache cache;
+
+    @BeforeEach
+    void setUp() {
+        destino = new ConcurrentMapCache("alumnos");
+        cache = new VersionedTransactionAwareCache(destino, CachingConfig::version);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private AlumnoResponseDto alumno(String nombre, LocalDateTime version) {
+        return AlumnoResponseDto.builder().id(1L).nombre(nombre).updatedAt(version).build();
+    }
+
+    // Simula el final de la transacción en curso
+    private void terminar(boolean confirmada) {
+        var sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (confirmada) {
+            sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+        }
+        sincronizaciones.forEach(s -> s.afterCompletion(confirmada
+                ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+
+    @Test
+    void put_DentroDeUnaTransaccion_SeAplicaAlConfirmar() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        // Act
+        cache.put(1L, alumno("Ana", updatedAt));
+        var antes = destino.get(1L);
+        terminar(true);
+        // Assert
+        assertAll("put_DentroDeUnaTransaccion_SeAplicaAlConfirmar",
+                () -> assertNull(antes),
+                () -> assertEquals("Ana", ((AlumnoResponseDto) destino.get(1L).get()).getNombre())
+        );
+    }
+
+    @Test
+    void put_SiLaTransaccionSeDeshace_NoSeAplica() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        // Act
+        cache.put(1L, alumno("Ana", updatedAt));
+        terminar(false);
+        // Assert
+        assertNull(destino.get(1L));
+    }
+
+    @Test
+    void put_ConVersionMasReciente_SustituyeElValor() {
+        // Arrange
+        cache.put(1L, alumno("Ana", updatedAt));
+        // Act
+        cache.put(1L, alumno("Eva", updatedAt.plusSeconds(1)));
+        // Assert
+        assertEquals("Eva", ((AlumnoResponseDto) destino.get(1L).get()).getNombre());
+    }
+
+    @Test
+    void put_ConVersionAnterior_QuitaLaEntrada() {
+        // Arrange
+        cache.put(1L, alumno("Eva", updatedAt.plusSeconds(1)));
+        // Act: llega tarde la escritura de una transacción anterior
+        cache.put(1L, alumno("Ana", updatedAt));
+        // Assert
+        assertNull(destino.get(1L));
+    }
+
+    @Test
+    void evict_DentroDeUnaTransaccion_SeAplicaAlConfirmar() {
+        // Arrange
+        destino.put(1L, alumno("Ana", updatedAt));
+        TransactionSynchronizationManager.initSynchronization();
+        // Act
+        cache.evict(1L);
+        var antes = destino.get(1L);
+        terminar(true);
+        // Assert
+        assertAll("evict_DentroDeUnaTransaccion_SeAplicaAlConfirmar",
+                () -> assertNotNull(antes),
+                () -> assertNull(destino.get(1L))
+        );
+    }
+
+    @Test
+    void put_PorUuidConVersionAnterior_ComparaConLaEntradaDelId() {
+        // Arrange: la entrada más reciente está bajo el id y su alias aún no se ha registrado
+        UUID uuid = UUID.fromString("267ed00a-6c21-4c4a-8626-db28bcca7a26");
+        MultiKeyCache multiKey = new MultiKeyCache("alumnos", Caffeine.newBuilder().executor(Runnable::run),
+                valor -> valor instanceof AlumnoResponseDto a ? List.of(a.getId(), a.getUuid().toString()) : List.of());
+        VersionedTransactionAwareCache versionada = new VersionedTransactionAwareCache(multiKey, CachingConfig::version);
+        multiKey.getNativeCache().put(1L, alumno("Eva", updatedAt.plusSeconds(1)).toBuilder().uuid(uuid).build());
+        // Act: llega tarde por uuid la escritura de una transacción anterior
+        versionada.put(uuid.toString(), alumno("Ana", updatedAt).toBuilder().uuid(uuid).build());
+        // Assert
+        assertAll("put_PorUuidConVersionAnterior_ComparaConLaEntradaDelId",
+                () -> assertNull(multiKey.get(1L)),
+                () -> assertNull(multiKey.get(uuid.toString()))
+        );
+    }
+}
@@ -0,0 +1,106 @@
+package es.nicolas.graphql.controllers;
+
+import es.nicolas.config.cache.SingleFlight;
+import es.nicolas.graphql.dto.AlumnoGraphQLResponse;
+import es.nicolas.graphql.dto.AsignaturaGraphQLResponse;
+import es.nicolas.graphql.mappers.AlumnoAsignaturaGraphQLMapper;
+import es.nicolas.rest.alumnos.models.Alumno;
+import es.nicolas.rest.alumnos.repositories.AlumnosRepository;
+import es.nicolas.rest.asignaturas.models.Asignatura;
+import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlumnoAsignaturaGraphQLControllerTest {
+
+    private final Asignatura asignatura = Asignatura.builder()
+            .id(1L)
+            .nombre("Programacion")
+            .createdAt(LocalDateTime.of(2025, 1, 1, 10, 0))
+            .updatedAt(LocalDateTime.of(2025, 1, 2, 10, 0))
+            .build();
+    private final Alumno alumno = Alumno.builder()
+            .id(1L)
+            .nombre("Nicolas")
+            .apellido("Osorio")
+            .grado("2 DAW")
+            .uuid(UUID.fromString("267ed00a-6c21-4c4a-8626-db28bcca7a26"))
+            .createdAt(LocalDateTime.of(2025, 1, 1, 10, 0))
+            .updatedAt(LocalDateTime.of(2025, 1, 2, 10, 0))
+            .asignatura(asignatura)
+            .build();
+
+    @Mock
+    private AlumnosRepository alumnosRepository;
+    @Mock
+    private AsignaturasRespository asignaturasRespository;
+
+    private AlumnoAsignaturaGraphQLController controller;
+
+    @BeforeEach
+    void setUp() {
+        SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry());
+        controller = new AlumnoAsignaturaGraphQLController(alumnosRepository, asignaturasRespository,
+                new AlumnoAsignaturaGraphQLMapper(), singleFlight);
+    }
+
+    @Test
+    void alumnoById_DevuelveElDtoConSuAsignatura() {
+        // Arrange
+        when(alumnosRepository.findById(1L)).thenReturn(Optional.of(alumno));
+
+        // Act
+        AlumnoGraphQLResponse resultado = controller.alumnoById(1L);
+
+        // Assert: lo que se comparte es el DTO mapeado, no la entidad
+        assertAll("alumnoById_DevuelveElDtoConSuAsignatura",
+                () -> assertEquals(1L, resultado.id()),
+                () -> assertEquals("Nicolas", resultado.nombre()),
+                () -> assertEquals("267ed00a-6c21-4c4a-8626-db28bcca7a26", resultado.uuid()),
+                () -> assertEquals("2025-01-02T10:00", resultado.updatedAt()),
+                () -> assertFalse(resultado.isDeleted()),
+                () -> assertEquals(new AsignaturaGraphQLResponse(1L, "Programacion", "2025-01-01T10:00", "2025-01-02T10:00", false),
+                        resultado.asignatura())
+        );
+
+        // Verify
+        verify(alumnosRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void alumnoById_NoExiste_DevuelveNull() {
+        // Arrange
+        when(alumnosRepository.findById(9L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertNull(controller.alumnoById(9L));
+    }
+
+    @Test
+    void alumnos_DeUnaAsignatura_seBuscanPorSuId() {
+        // Arrange
+        when(alumnosRepository.findByAsignaturaId(1L)).thenReturn(List.of(alumno));
+
+        // Act
+        List<AlumnoGraphQLResponse> alumnos = controller.alumnos(new AsignaturaGraphQLResponse(1L, "Programacion", null, null, false));
+
+        // Assert
+        assertAll("alumnos_DeUnaAsignatura_seBuscanPorSuId",
+                () -> assertEquals(1, alumnos.size()),
+                () -> assertEquals("Nicolas", alumnos.getFirst().nombre())
+        );
+    }
+}
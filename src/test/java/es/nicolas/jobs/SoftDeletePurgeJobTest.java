@@ -0,0 +1,202 @@
+package es.nicolas.jobs;
+
+import es.nicolas.rest.alumnos.cache.AlumnoQueryCache;
+import es.nicolas.rest.alumnos.repositories.AlumnosRepository;
+import es.nicolas.rest.alumnos.search.AlumnoSearchIndex;
+import es.nicolas.rest.asignaturas.dictionary.AsignaturaNameDictionary;
+import es.nicolas.rest.asignaturas.repositories.AsignaturasRespository;
+import es.nicolas.rest.user.repositories.UserRepository;
+import es.nicolas.utils.etag.WriteVersions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SoftDeletePurgeJobTest {
+
+    @Mock
+    private AlumnosRepository alumnosRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private AsignaturasRespository asignaturasRespository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private CacheManager cacheManager;
+    @Mock
+    private Cache cache;
+    @Mock
+    private AsignaturaNameDictionary asignaturaNameDictionary;
+    @Mock
+    private AlumnoQueryCache alumnoQueryCache;
+    @Mock
+    private AlumnoSearchIndex alumnoSearchIndex;
+    @Mock
+    private WriteVersions writeVersions;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private SoftDeletePurgeJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new SoftDeletePurgeJob(alumnosRepository, userRepository, asignaturasRespository,
+                transactionTemplate, cacheManager, asignaturaNameDictionary, alumnoQueryCache, alumnoSearchIndex, writeVersions, meterRegistry);
+        ReflectionTestUtils.setField(job, "retencion", Duration.ofDays(30));
+        ReflectionTestUtils.setField(job, "chunkSize", 2);
+        ReflectionTestUtils.setField(job, "pausa", Duration.ZERO);
+        ReflectionTestUtils.setField(job, "maxLotes", 10);
+        job.registrarMetricas();
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void purgar_BorraPorLotesSiguiendoElUltimoId() {
+        // Arrange
+        when(alumnosRepository.findIdsBorradosAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 4L));
+        when(alumnosRepository.findIdsBorradosAntesDe(any(LocalDateTime.class), eq(4L), any(Pageable.class))).thenReturn(List.of(7L));
+        when(userRepository.findIdsBorradosAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of());
+        when(asignaturasRespository.findIdsBorradasSinReferenciasAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of());
+        when(cacheManager.getCache("alumnos")).thenReturn(cache);
+
+        // Act
+        job.purgar();
+
+        // Assert
+        assertAll("purgar_BorraPorLotesSiguiendoElUltimoId",
+                () -> assertEquals(3, meterRegistry.get("purge.rows").tag("table", "alumnos").counter().count()),
+                () -> assertEquals(2, meterRegistry.get("purge.chunk").tag("table", "alumnos").timer().count()),
+                () -> assertEquals(7, meterRegistry.get("purge.last.id").tag("table", "alumnos").gauge().value()),
+                () -> assertEquals(0, meterRegistry.get("purge.running").gauge().value())
+        );
+
+        // Verify: un lote por transacción y nada que borrar en las demás tablas
+        verify(alumnosRepository).deleteAllByIdInBatch(List.of(1L, 4L));
+        verify(alumnosRepository).deleteAllByIdInBatch(List.of(7L));
+        verify(cache).evict(1L);
+        verify(cache).evict(4L);
+        verify(cache).evict(7L);
+        verify(alumnoQueryCache, times(2)).invalidar();
+        verify(alumnoSearchIndex).eliminar(1L);
+        verify(alumnoSearchIndex).eliminar(4L);
+        verify(alumnoSearchIndex).eliminar(7L);
+        verify(userRepository, never()).deleteAllByIdInBatch(any());
+        verify(asignaturasRespository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void purgar_BorraLosRolesAntesQueLosUsuarios() {
+        // Arrange
+        when(alumnosRepository.findIdsBorradosAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of());
+        when(userRepository.findIdsBorradosAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of(3L));
+        when(asignaturasRespository.findIdsBorradasSinReferenciasAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of(2L));
+        when(userRepository.findUsernamesByIdIn(List.of(3L))).thenReturn(List.of("nicolas"));
+        Cache users = mock(Cache.class);
+        Cache usuariosAuth = mock(Cache.class);
+        Cache asignaturas = mock(Cache.class);
+        when(cacheManager.getCache("users")).thenReturn(users);
+        when(cacheManager.getCache("usuarios-auth")).thenReturn(usuariosAuth);
+        when(cacheManager.getCache("asignaturas")).thenReturn(asignaturas);
+
+        // Act
+        job.purgar();
+
+        // Verify
+        var orden = inOrder(userRepository, asignaturasRespository);
+        orden.verify(userRepository).findUsernamesByIdIn(List.of(3L));
+        orden.verify(userRepository).deleteRolesByUserIdIn(List.of(3L));
+        orden.verify(userRepository).deleteAllByIdInBatch(List.of(3L));
+        orden.verify(asignaturasRespository).deleteAllByIdInBatch(List.of(2L));
+        verify(asignaturaNameDictionary).eliminar(2L);
+        verify(writeVersions).incrementar(WriteVersions.USUARIOS);
+        verify(writeVersions).incrementar(WriteVersions.ASIGNATURAS);
+        verify(cacheManager, never()).getCache("alumnos");
+    }
+
+    @Test
+    void purgar_QuitaDeLasCachesLosUsuariosYAsignaturasPurgados() {
+        // Arrange
+        when(alumnosRepository.findIdsBorradosAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of());
+        when(userRepository.findIdsBorradosAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of(3L, 5L));
+        when(userRepository.findIdsBorradosAntesDe(any(LocalDateTime.class), eq(5L), any(Pageable.class))).thenReturn(List.of());
+        when(asignaturasRespository.findIdsBorradasSinReferenciasAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of(2L));
+        when(userRepository.findUsernamesByIdIn(List.of(3L, 5L))).thenReturn(List.of("nicolas", "gabriel"));
+        Cache users = mock(Cache.class);
+        Cache usuariosAuth = mock(Cache.class);
+        Cache asignaturas = mock(Cache.class);
+        when(cacheManager.getCache("users")).thenReturn(users);
+        when(cacheManager.getCache("usuarios-auth")).thenReturn(usuariosAuth);
+        when(cacheManager.getCache("asignaturas")).thenReturn(asignaturas);
+
+        // Act
+        job.purgar();
+
+        // Verify: por id en users y asignaturas, por username en la caché de autenticación
+        verify(users).evict(3L);
+        verify(users).evict(5L);
+        verify(usuariosAuth).evict("nicolas");
+        verify(usuariosAuth).evict("gabriel");
+        verify(asignaturas).evict(2L);
+        verifyNoMoreInteractions(users, usuariosAuth, asignaturas);
+    }
+
+    @Test
+    void purgar_RespetaElMaximoDeLotesPorEjecucion() {
+        // Arrange
+        ReflectionTestUtils.setField(job, "maxLotes", 1);
+        when(alumnosRepository.findIdsBorradosAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(userRepository.findIdsBorradosAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of());
+        when(asignaturasRespository.findIdsBorradasSinReferenciasAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of());
+        when(cacheManager.getCache("alumnos")).thenReturn(cache);
+
+        // Act
+        job.purgar();
+
+        // Verify: el siguiente lote queda para la próxima ejecución
+        verify(alumnosRepository, times(1)).findIdsBorradosAntesDe(any(LocalDateTime.class), anyLong(), any(Pageable.class));
+        verify(alumnosRepository, times(1)).deleteAllByIdInBatch(List.of(1L, 2L));
+    }
+
+    @Test
+    void purgar_ActualizaIndiceYVersionesAlConfirmar() {
+        // Arrange: con sincronización de transacciones activa, como dentro de transactionTemplate
+        when(alumnosRepository.findIdsBorradosAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of(1L));
+        when(userRepository.findIdsBorradosAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of(3L));
+        when(asignaturasRespository.findIdsBorradasSinReferenciasAntesDe(any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(List.of(2L));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            job.purgar();
+
+            // Assert: nada visible antes del commit
+            verifyNoInteractions(alumnoSearchIndex, alumnoQueryCache, writeVersions, asignaturaNameDictionary);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(alumnoSearchIndex).eliminar(1L);
+        verify(alumnoQueryCache).invalidar();
+        verify(writeVersions).incrementar(WriteVersions.USUARIOS);
+        verify(writeVersions).incrementar(WriteVersions.ASIGNATURAS);
+        verify(asignaturaNameDictionary).eliminar(2L);
+    }
+}
@@ -0,0 +1,62 @@
+package es.nicolas.utils.etag;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagUtilsTest {
+
+    @Test
+    void of_ShouldBeStableAndChangeWithUpdatedAt() {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 2, 12, 12, 12);
+
+        String eTag = ETagUtils.of("alumno", 1L, updatedAt);
+
+        assertAll("of",
+                () -> assertTrue(eTag.startsWith("\"") && eTag.endsWith("\"")),
+                () -> assertEquals(eTag, ETagUtils.of("alumno", 1L, updatedAt)),
+                () -> assertNotEquals(eTag, ETagUtils.of("alumno", 1L, updatedAt.plusNanos(1000))),
+                () -> assertNotEquals(eTag, ETagUtils.of("alumno", 2L, updatedAt))
+        );
+    }
+
+    @Test
+    void ofVersiones_ShouldChangeWhenAnyVersionChanges() {
+        WriteVersions versiones = new WriteVersions();
+        String antes = ETagUtils.ofVersiones("asignaturas", versiones.version(WriteVersions.ASIGNATURAS), versiones.version(WriteVersions.ALUMNOS));
+
+        versiones.incrementar(WriteVersions.ALUMNOS);
+
+        assertNotEquals(antes, ETagUtils.ofVersiones("asignaturas", versiones.version(WriteVersions.ASIGNATURAS), versiones.version(WriteVersions.ALUMNOS)));
+    }
+
+    @Test
+    void matches_ShouldAcceptListsAndWildcard() {
+        String eTag = ETagUtils.of("alumno", 1L);
+
+        assertAll("matches",
+                () -> assertTrue(ETagUtils.matches(eTag, eTag)),
+                () -> assertTrue(ETagUtils.matches("\"otro\", " + eTag, eTag)),
+                () -> assertTrue(ETagUtils.matches("*", eTag)),
+                () -> assertFalse(ETagUtils.matches("W/" + eTag, eTag)),
+                () -> assertFalse(ETagUtils.matches("\"otro\"", eTag))
+        );
+    }
+
+    @Test
+    void ok_ShouldSetLastModifiedOnlyWithUpdatedAt() {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 2, 12, 12, 12);
+
+        HttpHeaders conFecha = ETagUtils.ok("body", "\"e\"", updatedAt).getHeaders();
+        HttpHeaders sinFecha = ETagUtils.ok("body", "\"e\"", null).getHeaders();
+
+        assertAll("ok",
+                () -> assertEquals("\"e\"", conFecha.getETag()),
+                () -> assertEquals(ETagUtils.lastModified(updatedAt).toEpochMilli(), conFecha.getLastModified()),
+                () -> assertEquals(-1, sinFecha.getLastModified())
+        );
+    }
+}
@@ -0,0 +1,70 @@
+package es.nicolas.utils.pagination;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorUtilsTest {
+    private final CursorUtils cursorUtils = new CursorUtils(new ObjectMapper().findAndRegisterModules());
+
+    private final Map<String, Class<?>> keyTypes = new LinkedHashMap<>(Map.of(
+            "updatedAt", LocalDateTime.class,
+            "id", Long.class));
+
+    @Test
+    void encodeAndDecode_ShouldRestoreKeysWithTheirTypes() {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 2, 12, 12, 12);
+        Map<String, Object> keys = Map.of("updatedAt", updatedAt, "id", 42L);
+        Window<String> window = Window.from(List.of("a", "b"), i -> ScrollPosition.forward(keys), true);
+
+        String cursor = cursorUtils.encode(window);
+        KeysetScrollPosition position = cursorUtils.decode(cursor, keyTypes);
+
+        assertAll("cursor",
+                () -> assertNotNull(cursor),
+                () -> assertEquals(updatedAt, position.getKeys().get("updatedAt")),
+                () -> assertEquals(42L, position.getKeys().get("id"))
+        );
+    }
+
+    @Test
+    void encode_ShouldReturnNull_WhenThereIsNoNextPage() {
+        Window<String> window = Window.from(List.of("a"), i -> ScrollPosition.forward(Map.of("id", 1L)), false);
+
+        assertNull(cursorUtils.encode(window));
+    }
+
+    @Test
+    void decode_ShouldReturnInitialPosition_WhenCursorIsEmpty() {
+        assertTrue(cursorUtils.decode("", keyTypes).isInitial());
+    }
+
+    @Test
+    void decode_ShouldThrow_WhenCursorDoesNotMatchSort() {
+        Window<String> window = Window.from(List.of("a"), i -> ScrollPosition.forward(Map.of("id", 1L)), true);
+        String cursor = cursorUtils.encode(window);
+
+        assertThrows(IllegalArgumentException.class, () -> cursorUtils.decode(cursor, keyTypes));
+        assertThrows(IllegalArgumentException.class, () -> cursorUtils.decode("no-es-un-cursor", keyTypes));
+    }
+
+    @Test
+    void decode_ShouldThrow_WhenKeyIsNull() {
+        // Cursor manipulado: {"id":null} pasaría como greaterThan(id, null)
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"id\":null}".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> cursorUtils.decode(cursor, Map.of("id", Long.class)));
+    }
+}
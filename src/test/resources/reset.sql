@@ -5,6 +5,8 @@ CREATE TABLE ALUMNOS (
                          id bigint generated by default as identity PRIMARY KEY ,
                          nombre varchar(30) not null,
                          apellido varchar(30) not null,
+                         nombre_busqueda varchar(30) generated always as (lower(nombre)),
+                         apellido_busqueda varchar(30) generated always as (lower(apellido)),
                          grado varchar(10) not null,
 
                          is_deleted boolean default false,
@@ -15,6 +17,9 @@ CREATE TABLE ALUMNOS (
                          asignatura_id bigint
 );
 
+create index idx_alumnos_nombre_busqueda on ALUMNOS (nombre_busqueda);
+create index idx_alumnos_apellido_busqueda on ALUMNOS (apellido_busqueda);
+
 create table asignaturas(
     id bigint  generated by default as identity PRIMARY KEY,
     nombre varchar(20) not null unique,
@@ -22,4 +27,9 @@ create table asignaturas(
     is_deleted boolean default false,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP not null,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP not null
-);
\ No newline at end of file
+);
+
+-- Las secuencias de ids vuelven a empezar para que cada test tenga los mismos ids.
+-- Los tests de repositorio usan el optimizador "none" para que Hibernate no guarde bloques de ids en memoria
+ALTER SEQUENCE IF EXISTS alumnos_seq RESTART WITH 1;
+ALTER SEQUENCE IF EXISTS asignaturas_seq RESTART WITH 1;